@@ -17,4 +17,57 @@ public interface ConfigConstant {
     String APP_JSP_PATH = "webmvc.jsp_path";
     String APP_ASSET_PATH = "webmvc.asset_path";
 
+    String HANDLER_INVOKER = "webmvc.handler_invoker";
+
+    String ROUTER_NOT_FOUND_CACHE_SIZE = "webmvc.router.not_found_cache_size";
+
+    String MAX_FORM_SIZE = "webmvc.max_form_size";
+
+    String MAX_BODY_SIZE = "webmvc.max_body_size";
+
+    String RESPONSE_BUFFER_SIZE = "webmvc.response_buffer_size";
+
+    String JSON_PREFIX = "webmvc.json.";
+    String JSON_ENGINE = "webmvc.json.engine";
+
+    String ASYNC_IO = "webmvc.async.io";
+    String ASYNC_TIMEOUT = "webmvc.async.timeout";
+    String ASYNC_POOL_SIZE = "webmvc.async.pool_size";
+    String ASYNC_QUEUE_SIZE = "webmvc.async.queue_size";
+    String ASYNC_VIRTUAL_THREADS = "webmvc.async.virtual_threads";
+    String ASYNC_PINNED_THRESHOLD = "webmvc.async.pinned_threshold";
+
+    String ASSET_HANDLER = "webmvc.asset.handler";
+    String ASSET_CACHE_SIZE = "webmvc.asset.cache_size";
+    String ASSET_CACHE_FILE_SIZE = "webmvc.asset.cache_file_size";
+    String ASSET_MAX_AGE = "webmvc.asset.max_age";
+
+    String COMPRESSION_ENABLED = "webmvc.compression.enabled";
+    String COMPRESSION_LEVEL = "webmvc.compression.level";
+    String COMPRESSION_MIN_SIZE = "webmvc.compression.min_size";
+    String COMPRESSION_MIME_TYPES = "webmvc.compression.mime_types";
+    String COMPRESSION_POOL_SIZE = "webmvc.compression.pool_size";
+
+    String ETAG_ENABLED = "webmvc.etag.enabled";
+    String ETAG_VIEWS = "webmvc.etag.views";
+
+    String RESPONSE_CACHE_SIZE = "webmvc.response_cache.size";
+
+    String BULKHEAD_PREFIX = "webmvc.bulkhead.";
+
+    String METRICS_ENABLED = "webmvc.metrics.enabled";
+    String METRICS_PATH = "webmvc.metrics.path";
+
+    String TEMPLATE_SUFFIX = "webmvc.template.suffix";
+    String TEMPLATE_CONTENT_TYPE = "webmvc.template.content_type";
+
+    String SERVER_HOST = "webmvc.server.host";
+    String SERVER_PORT = "webmvc.server.port";
+    String SERVER_DOCUMENT_ROOT = "webmvc.server.document_root";
+    String SERVER_WORKER_THREADS = "webmvc.server.worker_threads";
+    String SERVER_QUEUE_SIZE = "webmvc.server.queue_size";
+    String SERVER_VIRTUAL_THREADS = "webmvc.server.virtual_threads";
+    String SERVER_KEEP_ALIVE_TIMEOUT = "webmvc.server.keep_alive_timeout";
+    String SERVER_MAX_HEADER_SIZE = "webmvc.server.max_header_size";
+
 }
@@ -1,32 +1,74 @@
 package com.webmvc;
 
-import com.webmvc.annotation.RequestParam;
-import com.webmvc.annotation.ResponseBody;
+import com.webmvc.asset.AssetHandler;
+import com.webmvc.async.BodyReadListener;
+import com.webmvc.async.BodyWriteListener;
+import com.webmvc.annotation.CacheResponse;
 import com.webmvc.bean.Handler;
 import com.webmvc.bean.ModelAndView;
+import com.webmvc.bean.LazyParam;
+import com.webmvc.bean.Param;
+import com.webmvc.cache.CachedResponse;
+import com.webmvc.cache.ResponseCache;
+import com.webmvc.compress.CompressingResponseWrapper;
+import com.webmvc.excepetion.ResponseStatusException;
 import com.webmvc.excepetion.WebMVCException;
-import com.webmvc.helper.BeanHelper;
+import com.webmvc.helper.AssetHelper;
+import com.webmvc.helper.AsyncHelper;
+import com.webmvc.helper.CompressionHelper;
 import com.webmvc.helper.ConfigHelper;
 import com.webmvc.helper.ControllerHelper;
-import com.webmvc.helper.ConvertHelp;
+import com.webmvc.helper.ETagHelper;
+import com.webmvc.helper.RequestContextHelper;
+import com.webmvc.helper.ResponseCacheHelper;
+import com.webmvc.helper.ViewHelper;
+import com.webmvc.limit.ConcurrencyLimiter;
+import com.webmvc.metrics.HandlerMetrics;
+import com.webmvc.metrics.PrometheusExporter;
+import com.webmvc.enums.RequestMethod;
+import com.webmvc.resolver.HandlerArgumentResolver;
+import com.webmvc.render.BodyWriter;
+import com.webmvc.render.CapturingResponseWrapper;
+import com.webmvc.render.DetachedRequestWrapper;
+import com.webmvc.render.DetachedResponseWrapper;
+import com.webmvc.render.JsonRenderer;
+import com.webmvc.router.Route;
 import com.webmvc.util.*;
+import com.webmvc.util.threadpool.ThreadPoolExecutor;
+import com.webmvc.view.ModelRequestWrapper;
+import com.webmvc.view.View;
+import com.webmvc.view.ViewResolver;
+import com.webmvc.view.template.Template;
+import com.webmvc.view.template.TemplateOutput;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRegistration;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 /**
  * Created by sgz
@@ -36,158 +78,928 @@ public class DispatcherServlet extends HttpServlet{
 	
 	private static final long serialVersionUID = -6957112771305058960L;
 
+    private static final byte[] NOT_FOUND_BODY = "没有找到请求路径".getBytes(StandardCharsets.UTF_8);
+
+    /*由框架处理静态资源时不为null*/
+    private transient AssetHandler assetHandler;
+
+    /*静态资源路径去掉最后的/，和请求的servletPath比较*/
+    private String assetServletPath;
+
+    private transient ViewResolver viewResolver;
+
+    /*请求体最多允许的字节数*/
+    private long maxBodySize;
+
+    private String templateContentType;
+
+    /*配置了导出路径时不为null*/
+    private transient PrometheusExporter metricsExporter;
+
+    private String metricsPath;
+
 	@Override
     public void init(ServletConfig config) throws ServletException {
+        //保存ServletConfig，log和getServletContext要用到
+        super.init(config);
         //初始化
         HelpLoader.init();
         //获取servletContext对象
         ServletContext servletContext = config.getServletContext();
-        //注册处理jsp的servlet
+        //注册处理jsp的servlet，只用模板视图时可以没有jsp引擎
         ServletRegistration jspServlet = servletContext.getServletRegistration("jsp");
-        jspServlet.addMapping(ConfigHelper.getAppJspPath() + "*");
-        //注册默认的servlet
-        ServletRegistration defaultServlet = servletContext.getServletRegistration("default");
-        defaultServlet.addMapping(ConfigHelper.getAppAssetPath() + "*");
+        if (jspServlet != null) {
+            jspServlet.addMapping(ConfigHelper.getAppJspPath() + "*");
+        }
+        String assetPath = ConfigHelper.getAppAssetPath();
+        //没有默认servlet时(如内嵌服务器)也由AssetHandler处理
+        ServletRegistration defaultServlet = "default".equals(ConfigHelper.getAssetHandler())
+                ? servletContext.getServletRegistration("default") : null;
+        if (defaultServlet != null) {
+            //注册默认的servlet
+            defaultServlet.addMapping(assetPath + "*");
+        } else {
+            //静态资源也映射到自己，由AssetHandler处理
+            ServletRegistration dispatcher = servletContext.getServletRegistration(config.getServletName());
+            dispatcher.addMapping(assetPath + "*");
+            AssetHelper.init(servletContext);
+            assetHandler = AssetHelper.getHandler();
+            assetServletPath = assetPath.endsWith("/") ? assetPath.substring(0, assetPath.length() - 1) : assetPath;
+        }
+        int views = ViewHelper.init(servletContext);
+        viewResolver = ViewHelper.getResolver();
+        log("预先解析了" + views + "个视图");
+        maxBodySize = ConfigHelper.getMaxBodySize();
+        templateContentType = ConfigHelper.getTemplateContentType();
+        metricsPath = ConfigHelper.getMetricsPath();
+        if (StringUtil.isNotEmpty(metricsPath)) {
+            metricsExporter = new PrometheusExporter();
+        }
     }
 
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        //给HttpServletRequest和HttpServletResponse注值
-	    Map<String, List<Field>> map = ControllerHelper.getRequestAndResponseFileds();
-        List<Field> requestFields = map.get("request");
-        List<Field> responseFields = map.get("response");
-        if (CollectionUtil.isNotEmpty(requestFields)) {
-            for (Field field :requestFields) {
-                try {
-                    //从bean容器中取对象，保证对象一致
-                    ReflectionUtil.setFiled(BeanHelper.getBean(field.getDeclaringClass().getName()), field, req);
-                } catch (Exception e) {
-                    throw new WebMVCException("给field: "
-                            + field.getDeclaringClass() + "中的"
-                            + field.getName() + "注入HttpServletRequest时出错");
+        if (assetHandler != null && assetServletPath.equals(req.getServletPath())) {
+            assetHandler.handle(req, resp);
+            return;
+        }
+        //把请求绑定到当前线程，controller中注入的代理对象会转给它
+        RequestContextHelper.Binding previous = RequestContextHelper.bind(req, resp);
+        try {
+            doDispatch(req, resp);
+        } finally {
+            previous.restore();
+        }
+    }
+
+    private void doDispatch(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        long start = System.nanoTime();
+	    /*获取请求的路径和方法类型*/
+        RequestMethod requestMethod = RequestMethod.resolve(req.getMethod());
+        String requestPath = req.getPathInfo();
+        if (metricsExporter != null && metricsPath.equals(requestPath)) {
+            metricsExporter.handle(req, resp);
+            return;
+        }
+        /*获取处理器*/
+        Route route = ControllerHelper.getRoute(requestPath);
+        if (route == Route.NOT_FOUND) {
+            //扫描器的请求大多走到这里，响应体是固定的，不拼接路径，长度已知时不用chunked编码
+            resp.setStatus(404);
+            resp.setContentType("text/html;charset=UTF-8");
+            resp.setContentLength(NOT_FOUND_BODY.length);
+            resp.getOutputStream().write(NOT_FOUND_BODY);
+            return;
+        }
+        Handler handler = route.getHandler(requestMethod);
+        if (handler == null) {
+            //路径存在但不支持该请求方法
+            resp.setHeader("Allow", route.getAllowedMethods());
+            resp.sendError(405);
+            return;
+        }
+
+        //请求参数对象，解析器用到某个参数时才会去取
+        LazyParam param = new LazyParam(req, route, requestPath);
+        final HandlerMetrics metrics = handler.getMetrics();
+        if (metrics == null) {
+            execute(handler, param, requestMethod, requestPath, req, resp);
+            return;
+        }
+        metrics.record(HandlerMetrics.Phase.LOOKUP, System.nanoTime() - start);
+        metrics.begin();
+        boolean failed = true;
+        try {
+            execute(handler, param, requestMethod, requestPath, req, resp);
+            failed = false;
+        } finally {
+            endMetrics(metrics, start, failed, req, resp);
+        }
+    }
+
+    private void execute(Handler handler, LazyParam param, RequestMethod requestMethod, String requestPath,
+                         HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (handler.getExecutor() != null && req.isAsyncSupported()) {
+            //在Bulkhead指定的线程池或者Async的线程池中执行
+            submitToExecutor(handler, param, requestMethod, requestPath, req, resp);
+            return;
+        }
+        dispatchHandler(handler, param, requestMethod, requestPath, req, resp, null);
+    }
+
+    /**
+     * 请求结束时记录统计，已经开始异步请求时在异步请求结束后记录
+     * 处理器抛出异常或状态码是5xx时算出错
+     */
+    private void endMetrics(final HandlerMetrics metrics, final long start, boolean failed,
+                            final HttpServletRequest req, final HttpServletResponse resp) {
+        if (req.isAsyncStarted()) {
+            try {
+                req.getAsyncContext().addListener(new AsyncListener() {
+                    private boolean error;
+
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        metrics.end(start, error || resp.getStatus() >= 500);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        error = true;
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        error = true;
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                return;
+            } catch (IllegalStateException e) {
+                //异步请求已经结束了
+            }
+        }
+        metrics.end(start, failed || resp.getStatus() >= 500);
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     * @param since 阶段开始时的System.nanoTime()
+     * @return 当前的System.nanoTime()，作为下一个阶段的开始，没有开启统计时返回0
+     */
+    private static long lap(HandlerMetrics metrics, HandlerMetrics.Phase phase, long since) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.record(phase, now - since);
+        return now;
+    }
+
+    /**
+     * 找到处理器之后的处理
+     * @param asyncContext 在Bulkhead的线程池中执行时不为null，处理完成后结束异步请求
+     */
+    private void dispatchHandler(Handler handler, LazyParam param, RequestMethod requestMethod, String requestPath,
+                                 HttpServletRequest req, HttpServletResponse resp, AsyncContext asyncContext)
+            throws ServletException, IOException {
+        if (handler.getCacheResponse() != null && (requestMethod == RequestMethod.GET || requestMethod == RequestMethod.HEAD)) {
+            ConcurrencyLimiter limiter = handler.getLimiter();
+            if (limiter != null && !limiter.tryAcquire()) {
+                rejectOverLimit(limiter, resp, asyncContext);
+                return;
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                invokeCached(handler, param, requestPath, req, resp, asyncContext);
+                failed = false;
+            } finally {
+                if (limiter != null) {
+                    limiter.release(start, failed);
                 }
             }
+            if (asyncContext != null) {
+                asyncContext.complete();
+            }
+            return;
         }
+        if (asyncContext == null && AsyncHelper.isAsyncIo() && req.isAsyncSupported() && hasBody(req)) {
+            //先非阻塞地读完请求体，再调用处理器
+            readBodyAsync(handler, param, req, resp);
+            return;
+        }
+        invokeHandler(handler, param, req, resp, asyncContext);
+    }
 
-        if (CollectionUtil.isNotEmpty(responseFields)) {
-            for (Field field :responseFields) {
+    /**
+     * 开始异步请求，把处理器交给Bulkhead或Async的线程池执行，请求体在线程池中阻塞读取
+     * 线程池满时按饱和策略处理，AbortPolicy返回503；被丢弃的请求在异步超时后返回503
+     */
+    private void submitToExecutor(final Handler handler, final LazyParam param, final RequestMethod requestMethod,
+                                  final String requestPath, final HttpServletRequest req,
+                                  final HttpServletResponse resp) throws IOException {
+        final ExecutorService executor = handler.getExecutor();
+        final AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(AsyncHelper.getTimeout());
+        //开始执行和排队超时只能有一个生效
+        final AtomicBoolean started = new AtomicBoolean();
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                RequestContextHelper.Binding previous = RequestContextHelper.bind(req, resp);
                 try {
-                    ReflectionUtil.setFiled(field.getDeclaringClass().newInstance(), field, resp);
+                    dispatchHandler(handler, param, requestMethod, requestPath, req, resp, asyncContext);
                 } catch (Exception e) {
-                    throw new WebMVCException("给field: "
-                            + field.getDeclaringClass() + "中的"
-                            + field.getName() + "注入HttpServletResponse时出错");
+                    log("处理请求时出错", e);
+                    sendErrorQuietly(resp, 500, null);
+                    completeQuietly(asyncContext);
+                } finally {
+                    previous.restore();
                 }
             }
+        };
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (started.compareAndSet(false, true)) {
+                    //还在队列中，或者被饱和策略丢弃了；虚拟线程的线程池没有队列
+                    if (executor instanceof ThreadPoolExecutor) {
+                        ((ThreadPoolExecutor) executor).remove(task);
+                    }
+                    resp.sendError(503, "排队超时");
+                    asyncContext.complete();
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                started.set(true);
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (started.compareAndSet(false, true)) {
+                resp.sendError(503, "服务器繁忙");
+                asyncContext.complete();
+            }
         }
+    }
 
+    private void completeQuietly(AsyncContext asyncContext) {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            //已经结束了
+        }
+    }
 
-	    /*获取请求的路径和方法类型*/
-        String requestMethod = req.getMethod().toLowerCase();
-        String requestPath = req.getPathInfo();
-        /*获取处理器*/
-        Handler handler = null;
+    /**
+     * 解析参数并调用处理器，然后渲染结果
+     * @param asyncContext 已经开始异步请求时不为null
+     */
+    private void invokeHandler(Handler handler, Param param, HttpServletRequest req, HttpServletResponse resp,
+                               AsyncContext asyncContext) throws ServletException, IOException {
+        final ConcurrencyLimiter limiter = handler.getLimiter();
+        if (limiter == null) {
+            doInvokeHandler(handler, param, req, resp, asyncContext);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            rejectOverLimit(limiter, resp, asyncContext);
+            return;
+        }
+        final long start = System.nanoTime();
+        CompletableFuture<Object> pending = null;
+        boolean failed = true;
         try {
-            handler = ControllerHelper.getHandler(requestMethod, requestPath);
-        } catch (NullPointerException e) {
-            resp.setContentType("text/html");
-            resp.setCharacterEncoding("UTF-8");
-            resp.setStatus(404);
-            PrintWriter writer = resp.getWriter();
-            writer.write("没有找到请求路径, " + requestPath);
-            writer.flush();
-            writer.close();
-        }
-       
-
-        if (handler != null) {
-            //创建controller实例
-            Class<?> controllerClass = handler.getControllerClass();
-            Object controllerBean = BeanHelper.getBean(controllerClass.getName());
-            //创建请求参数对象
-            Map<String, Object> paramMap = new HashMap<>();
-            Enumeration<String> paramNames = req.getParameterNames();
-            while (paramNames.hasMoreElements()) {
-                String paramName = paramNames.nextElement();
-                String paramValue = req.getParameter(paramName);
-                paramMap.put(paramName, paramValue);
-            }
-            /*获取URL中的请求参数*/
-            String body = CodecUtil.decodeURL(StreamUtil.getString(req.getInputStream()));
-            if (StringUtil.isNotEmpty(body)) {
-                String [] params = body.split("&");
-                if (ArrayUtil.isNotEmpty(params)) {
-                    for (String param : params) {
-                        String [] array = param.split("=");
-                        if (ArrayUtil.isNotEmpty(array) && array.length == 2) {
-                            String paramName = array[0];
-                            String paramValue = array[1];
-                            paramMap.put(paramName, paramValue);
-                        }
+            pending = doInvokeHandler(handler, param, req, resp, asyncContext);
+            failed = false;
+        } finally {
+            if (pending == null) {
+                limiter.release(start, failed);
+            } else {
+                //异步处理器在结果出来后才归还许可，结果一直不出来时在异步超时时归还，算作失败
+                pending.whenComplete(new BiConsumer<Object, Throwable>() {
+                    @Override
+                    public void accept(Object value, Throwable throwable) {
+                        limiter.release(start, throwable != null);
                     }
-                }
+                });
             }
-            /*请求要执行的方法*/
-            Method mappingMethod = handler.getMappingMethod();
-            /*获取参数*/
-            Parameter[] parameters = mappingMethod.getParameters();
-            Object[] pars = null;
-            int i = 0;
-            if (ArrayUtil.isNotEmpty(parameters)) {
-                pars = new Object[parameters.length];
-                for (Parameter p : parameters) {
-                    if (p.isAnnotationPresent(RequestParam.class)) {
-                        RequestParam rq = p.getAnnotation(RequestParam.class);
-                        /*获取注解上的值*/
-                        String v = rq.value();
-                        boolean required = rq.required();
-                        String defaultValue = rq.defaultValue();
-
-                        Object requestValue = paramMap.get(v);
-                        if (requestValue != null){
-                            pars[i++] = ConvertHelp.convert(requestValue.toString(), p.getType());
-                        } else {
-                            if (required) {
-                                pars[i++] = ConvertHelp.convert(defaultValue, p.getType());
-                            } else {
-                                pars[i++] = null;
-                            }
-                        }
+        }
+    }
+
+    /**
+     * 超过并发限制时返回503
+     */
+    private void rejectOverLimit(ConcurrencyLimiter limiter, HttpServletResponse resp, AsyncContext asyncContext)
+            throws IOException {
+        resp.setHeader("Retry-After", String.valueOf(limiter.getRetryAfter()));
+        resp.sendError(503, "同时处理的请求过多");
+        if (asyncContext != null) {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * @return 处理器是异步的并且已经开始异步请求时返回它的结果，否则返回null
+     */
+    private CompletableFuture<Object> doInvokeHandler(Handler handler, Param param, HttpServletRequest req,
+                                                      HttpServletResponse resp, AsyncContext asyncContext)
+            throws ServletException, IOException {
+        HandlerMetrics metrics = handler.getMetrics();
+        long phaseStart = metrics == null ? 0 : System.nanoTime();
+        Object[] pars;
+        try {
+            Handler versionHandler = handler.getVersionHandler();
+            if (versionHandler != null && ETagHelper.isEnabled(req)) {
+                //版本号没变时不调用处理器
+                Object version = versionHandler.getInvoker().invoke(resolveArguments(versionHandler, param, req, resp));
+                if (version != null && ETagHelper.notModified(req, resp, ETagHelper.versionETag(version))) {
+                    if (asyncContext != null) {
+                        asyncContext.complete();
                     }
+                    return null;
                 }
             }
+            pars = resolveArguments(handler, param, req, resp);
+        } catch (ResponseStatusException e) {
+            resp.sendError(e.getStatus(), e.getMessage());
+            if (asyncContext != null) {
+                asyncContext.complete();
+            }
+            return null;
+        }
+        phaseStart = lap(metrics, HandlerMetrics.Phase.ARGUMENTS, phaseStart);
+
+        Object result = handler.getInvoker().invoke(pars);
+        phaseStart = lap(metrics, HandlerMetrics.Phase.INVOCATION, phaseStart);
+        if (result instanceof CompletionStage || result instanceof Callable) {
+            //异步处理器，释放容器线程，结果出来后再渲染
+            return startAsync(handler, result, req, resp);
+        }
+        render(handler, result, req, resp, asyncContext);
+        lap(metrics, HandlerMetrics.Phase.RENDERING, phaseStart);
+        return null;
+    }
 
-            Object result = ReflectionUtil.invokeMethod(controllerBean, mappingMethod, pars);
-            //是否包含ResponseBody注解
-            boolean ResponseBody =  mappingMethod.isAnnotationPresent(ResponseBody.class);
-            if ( ! ResponseBody) {
-                //返回jsp
-                ModelAndView view = (ModelAndView) result;
-                String path = view.getView();
-                if (StringUtil.isNotEmpty(path)) {
-                    if (path.startsWith("/")) {
-                        resp.sendRedirect(req.getContextPath() + path);
+    /**
+     * 处理带CacheResponse注解的处理器
+     * 缓存有效时直接写出；过期但还在staleWhileRevalidate内时先写出旧内容，
+     * 再由抢到刷新权的请求在后台重新渲染，其它请求不会等待
+     * @param asyncContext 已经在线程池中执行时不为null
+     */
+    private void invokeCached(Handler handler, Param param, String requestPath, HttpServletRequest req,
+                              HttpServletResponse resp, AsyncContext asyncContext) throws ServletException, IOException {
+        ResponseCache cache = ResponseCacheHelper.getCache();
+        CacheResponse cacheResponse = handler.getCacheResponse();
+        String key = ResponseCache.key(requestPath, cacheResponse.params(), param);
+        long now = System.currentTimeMillis();
+        CachedResponse cached = cache.get(key, now);
+        if (cached != null) {
+            resp.setContentType(cached.getContentType());
+            BodyWriter.write(req, resp, cached.getBody(), cached.getBody().length, cached.getHash());
+            if (cached.isStale(now) && cached.startRefresh()) {
+                if (cached.isForwarded()) {
+                    //forward到jsp要用原请求，只能在请求结束前刷新
+                    resp.flushBuffer();
+                    if (asyncContext != null || !req.isAsyncSupported()) {
+                        refresh(handler, param, cached, req, resp);
                     } else {
+                        refreshInBackground(handler, param, cached, req, resp);
+                    }
+                } else {
+                    refreshDetached(handler, param, cached, req, resp);
+                }
+            }
+            return;
+        }
+        CachedResponse fresh;
+        try {
+            fresh = renderForCache(handler, param, key, req, resp);
+        } catch (ResponseStatusException e) {
+            resp.sendError(e.getStatus(), e.getMessage());
+            return;
+        }
+        if (fresh != null) {
+            cache.put(fresh);
+            BodyWriter.write(req, resp, fresh.getBody(), fresh.getBody().length, fresh.getHash());
+        }
+    }
+
+    /**
+     * 把参数和请求复制下来，在AsyncHelper的线程池中刷新，当前请求直接结束，不等待刷新
+     * 线程池满时这次不刷新，之后的请求会再次尝试
+     */
+    private void refreshDetached(final Handler handler, Param param, final CachedResponse cached,
+                                 HttpServletRequest req, final HttpServletResponse resp) {
+        final Param detachedParam;
+        final DetachedRequestWrapper detachedReq;
+        try {
+            detachedParam = param.materialize();
+            detachedReq = new DetachedRequestWrapper(req, StreamUtil.toBytes(detachedParam.openBody()));
+        } catch (Exception e) {
+            cached.endRefresh();
+            log("刷新缓存时出错, " + cached.getKey(), e);
+            return;
+        }
+        try {
+            AsyncHelper.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    refresh(handler, detachedParam, cached, detachedReq, resp);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            cached.endRefresh();
+        }
+    }
+
+    /**
+     * 在AsyncHelper的线程池中刷新forward到jsp的缓存，容器线程直接返回
+     * 刷新结束前请求保持异步状态，forward时还可以使用原请求；线程池满时在当前线程刷新
+     */
+    private void refreshInBackground(final Handler handler, final Param param, final CachedResponse cached,
+                                     final HttpServletRequest req, final HttpServletResponse resp) {
+        final AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(AsyncHelper.getTimeout());
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh(handler, param, cached, req, resp);
+                } finally {
+                    completeQuietly(asyncContext);
+                }
+            }
+        };
+        try {
+            AsyncHelper.getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * 重新渲染过期的缓存，渲染到DetachedResponseWrapper中，已经写出的旧内容不受影响
+     * 结果不能缓存或出错时继续使用旧内容，之后的请求会再次尝试
+     * @param resp 只作为DetachedResponseWrapper包装的对象，不会写到它上面
+     */
+    private void refresh(Handler handler, Param param, CachedResponse cached, HttpServletRequest req,
+                         HttpServletResponse resp) {
+        ResponseCache cache = ResponseCacheHelper.getCache();
+        DetachedResponseWrapper detached = new DetachedResponseWrapper(resp);
+        CachedResponse fresh = null;
+        RequestContextHelper.Binding previous = RequestContextHelper.bind(req, detached);
+        try {
+            fresh = renderForCache(handler, param, cached.getKey(), req, detached);
+        } catch (Exception e) {
+            log("刷新缓存时出错, " + cached.getKey(), e);
+        } finally {
+            previous.restore();
+            if (fresh == null) {
+                cached.endRefresh();
+            }
+        }
+        if (fresh != null) {
+            cache.put(fresh);
+        }
+        cache.refreshed(fresh != null);
+    }
+
+    /**
+     * 调用处理器并把结果渲染到内存中
+     * 重定向、结果为null或状态码不是200时不缓存，响应还没有提交时直接写出，返回null
+     * @param resp 缓存没有命中时是当前请求的响应；刷新过期的缓存时是DetachedResponseWrapper，
+     *             状态码和是否提交都只看它自己，不会写到已经返回旧内容的响应
+     */
+    private CachedResponse renderForCache(Handler handler, Param param, String key, HttpServletRequest req,
+                                          HttpServletResponse resp) throws ServletException, IOException {
+        HandlerMetrics metrics = handler.getMetrics();
+        long phaseStart = metrics == null ? 0 : System.nanoTime();
+        Object[] pars = resolveArguments(handler, param, req, resp);
+        phaseStart = lap(metrics, HandlerMetrics.Phase.ARGUMENTS, phaseStart);
+        Object result = handler.getInvoker().invoke(pars);
+        phaseStart = lap(metrics, HandlerMetrics.Phase.INVOCATION, phaseStart);
+        byte[] body;
+        int length;
+        String contentType;
+        boolean forwarded = false;
+        if (handler.isResponseBody()) {
+            if (result == null) {
+                return null;
+            }
+            body = JsonUtil.toJsonBytes(result);
+            length = body.length;
+            contentType = JsonRenderer.CONTENT_TYPE;
+            if (!resp.isCommitted()) {
+                resp.setContentType(contentType);
+            }
+        } else {
+            ModelAndView view = (ModelAndView) result;
+            String path = view == null ? null : view.getView();
+            if (StringUtil.isEmpty(path)) {
+                return null;
+            }
+            if (path.startsWith("/")) {
+                if (!resp.isCommitted()) {
+                    resp.sendRedirect(req.getContextPath() + path);
+                }
+                return null;
+            }
+            View resolved = viewResolver.resolve(path);
+            if (resolved.getTemplate() != null) {
+                if (resp.getContentType() == null) {
+                    resp.setContentType(templateContentType);
+                }
+                TemplateOutput out = TemplateOutput.get();
+                try {
+                    resolved.getTemplate().render(view.getModel(), req, out);
+                    body = Arrays.copyOf(out.getBuffer(), out.size());
+                } finally {
+                    out.release();
+                }
+                length = body.length;
+                contentType = resp.getContentType();
+            } else {
+                if (req instanceof DetachedRequestWrapper) {
+                    //原请求已经结束，不能再forward，上次渲染时没有forward，这次才需要
+                    throw new WebMVCException("请求结束后不能forward到" + path);
+                }
+                forwarded = true;
+                CapturingResponseWrapper capture = new CapturingResponseWrapper(resp);
+                resolved.getDispatcher().forward(new ModelRequestWrapper(req, view.getModel()), capture);
+                body = capture.getBody();
+                length = capture.getLength();
+                contentType = resp.getContentType();
+            }
+        }
+        //处理器通过注入的响应设置了错误状态码或者自己写出了响应，两种结果都不缓存
+        if (resp.isCommitted() || resp.getStatus() != 200) {
+            if (!resp.isCommitted()) {
+                BodyWriter.write(req, resp, body, length, 0);
+            }
+            return null;
+        }
+        if (body.length != length) {
+            body = Arrays.copyOf(body, length);
+        }
+        lap(metrics, HandlerMetrics.Phase.RENDERING, phaseStart);
+        CacheResponse cacheResponse = handler.getCacheResponse();
+        long now = System.currentTimeMillis();
+        long expiresAt = now + TimeUnit.SECONDS.toMillis(cacheResponse.ttl());
+        return new CachedResponse(key, body, contentType, HashUtil.xxHash64(body, 0, body.length),
+                expiresAt, expiresAt + TimeUnit.SECONDS.toMillis(cacheResponse.staleWhileRevalidate()), forwarded);
+    }
+
+    /**
+     * 按启动时生成的解析器获取参数
+     */
+    private Object[] resolveArguments(Handler handler, Param param, HttpServletRequest req, HttpServletResponse resp) {
+        HandlerArgumentResolver[] resolvers = handler.getArgumentResolvers();
+        Object[] pars = new Object[resolvers.length];
+        for (int i = 0; i < resolvers.length; i++) {
+            pars[i] = resolvers[i].resolve(req, resp, param);
+        }
+        return pars;
+    }
+
+    /**
+     * 是否有需要读取的请求体
+     */
+    private boolean hasBody(HttpServletRequest req) {
+        long contentLength = req.getContentLengthLong();
+        return contentLength > 0 || (contentLength == -1 && req.getHeader("Transfer-Encoding") != null);
+    }
+
+    /**
+     * 开始异步请求，通过ReadListener读取请求体，读完后在容器回调的线程上调用处理器
+     */
+    private void readBodyAsync(final Handler handler, final LazyParam param, final HttpServletRequest req,
+                               final HttpServletResponse resp) throws IOException {
+        long contentLength = req.getContentLengthLong();
+        if (contentLength > maxBodySize) {
+            resp.sendError(413, "请求体超过了" + maxBodySize + "字节");
+            return;
+        }
+        final AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(AsyncHelper.getTimeout());
+        ServletInputStream input = req.getInputStream();
+        input.setReadListener(new BodyReadListener(input, contentLength, maxBodySize) {
+            @Override
+            protected void onBodyRead(byte[] body, int length) {
+                param.setBody(body, length);
+                RequestContextHelper.Binding previous = RequestContextHelper.bind(req, resp);
+                try {
+                    invokeHandler(handler, param, req, resp, asyncContext);
+                } catch (Exception e) {
+                    log("处理请求时出错", e);
+                    sendErrorQuietly(resp, 500, null);
+                    asyncContext.complete();
+                } finally {
+                    previous.restore();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (t instanceof ResponseStatusException) {
+                    ResponseStatusException e = (ResponseStatusException) t;
+                    sendErrorQuietly(resp, e.getStatus(), e.getMessage());
+                } else {
+                    sendErrorQuietly(resp, 400, "读取请求体时出错");
+                }
+                asyncContext.complete();
+            }
+        });
+    }
+
+    private void sendErrorQuietly(HttpServletResponse resp, int status, String message) {
+        if (resp.isCommitted()) {
+            return;
+        }
+        try {
+            resp.sendError(status, message);
+        } catch (IOException e) {
+            log("返回错误状态码时出错", e);
+        }
+    }
+
+    /**
+     * 渲染处理器的结果
+     * @param asyncContext 异步请求时不为null，jsp通过dispatch渲染，渲染完成后结束异步请求
+     */
+    private void render(Handler handler, Object result, HttpServletRequest req, HttpServletResponse resp,
+                        AsyncContext asyncContext) throws ServletException, IOException {
+        if ( ! handler.isResponseBody()) {
+            //返回jsp
+            ModelAndView view = (ModelAndView) result;
+            String path = view.getView();
+            if (StringUtil.isNotEmpty(path)) {
+                if (path.startsWith("/")) {
+                    resp.sendRedirect(req.getContextPath() + path);
+                } else {
+                    View resolved = viewResolver.resolve(path);
+                    if (resolved.getTemplate() != null) {
+                        renderTemplate(resolved.getTemplate(), view.getModel(), req, resp);
+                    } else if (asyncContext != null) {
+                        //dispatch用的是开始异步时的请求，不能包装，只能把model复制到请求中
                         Map<String, Object> model = view.getModel();
-                        for (Map.Entry<String, Object> entry : model.entrySet()) {
-                            req.setAttribute(entry.getKey(), entry.getValue());
+                        if (model != null) {
+                            for (Map.Entry<String, Object> entry : model.entrySet()) {
+                                req.setAttribute(entry.getKey(), entry.getValue());
+                            }
                         }
-                        req.getRequestDispatcher(ConfigHelper.getAppJspPath() + path).forward(req, resp);
+                        //dispatch完成后容器会结束异步请求
+                        asyncContext.dispatch(resolved.getPath());
+                        return;
+                    } else {
+                        forward(resolved, view.getModel(), req, resp);
                     }
                 }
+            }
+        } else {
+            //直接返回json
+            Object model =  result;
+            if (model != null) {
+                if (asyncContext != null && AsyncHelper.isAsyncIo()) {
+                    //通过WriteListener写出，写完后由它结束异步请求
+                    byte[] json = JsonRenderer.renderToBytes(model, req, resp);
+                    if (json == null) {
+                        //返回了304
+                        asyncContext.complete();
+                        return;
+                    }
+                    resp.setContentLength(json.length);
+                    ServletOutputStream output = resp.getOutputStream();
+                    output.setWriteListener(new BodyWriteListener(output, asyncContext, json, json.length));
+                    return;
+                }
+                JsonRenderer.render(model, req, resp);
+            }
+        }
+        if (asyncContext != null) {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * 用模板渲染，结果在内存中，按配置计算ETag，客户端支持时压缩
+     */
+    private void renderTemplate(Template template, Map<String, Object> model, HttpServletRequest req,
+                                HttpServletResponse resp) throws IOException {
+        if (resp.getContentType() == null) {
+            resp.setContentType(templateContentType);
+        }
+        TemplateOutput out = TemplateOutput.get();
+        try {
+            template.render(model, req, out);
+            byte[] body = out.getBuffer();
+            int length = out.size();
+            if (ETagHelper.isViewEnabled()) {
+                BodyWriter.write(req, resp, body, length, HashUtil.xxHash64(body, 0, length));
             } else {
-                //直接返回json
-                Object model =  result;
-                if (model != null) {
-                    resp.setContentType("application/json"); //TODO
-                    resp.setCharacterEncoding("UTF-8");
-                    PrintWriter writer = resp.getWriter();
-                    String json = JsonUtil.toJson(model);
-                    writer.write(json);
-                    writer.flush();
-                    writer.close();
-                }
-            }
-        } 
+                BodyWriter.write(req, resp, body, length);
+            }
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * forward到jsp，model通过ModelRequestWrapper暴露给jsp
+     * 需要计算ETag时先把整个响应体缓冲在内存中，否则边渲染边压缩
+     */
+    private void forward(View view, Map<String, Object> model, HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        RequestDispatcher dispatcher = view.getDispatcher();
+        HttpServletRequest request = new ModelRequestWrapper(req, model);
+        if (ETagHelper.isViewEnabled() && ETagHelper.isEnabled(req) && !resp.containsHeader("ETag")) {
+            CapturingResponseWrapper capture = new CapturingResponseWrapper(resp);
+            dispatcher.forward(request, capture);
+            if (resp.isCommitted()) {
+                //jsp中调用了sendError或sendRedirect
+                return;
+            }
+            byte[] body = capture.getBody();
+            int length = capture.getLength();
+            BodyWriter.write(req, resp, body, length, HashUtil.xxHash64(body, 0, length));
+        } else if (CompressionHelper.isEnabled()) {
+            CompressingResponseWrapper wrapper = new CompressingResponseWrapper(req, resp);
+            dispatcher.forward(request, wrapper);
+            wrapper.finish();
+        } else {
+            dispatcher.forward(request, resp);
+        }
+    }
+
+    /**
+     * 处理返回CompletionStage或Callable的处理器
+     * Callable在AsyncHelper的线程池中执行，结果出来后在完成它的线程上渲染
+     * 容器没有开启异步支持时，在当前线程等待结果
+     * @return 请求处理结束时完成：渲染完成、出错、超时或连接出错，处理器的结果一直不完成时也会在超时时完成
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> startAsync(final Handler handler, Object result, final HttpServletRequest req,
+                                                final HttpServletResponse resp) throws ServletException, IOException {
+        final long timeout = AsyncHelper.getTimeout();
+        CompletableFuture<Object> future;
+        if (result instanceof Callable) {
+            future = submit((Callable<Object>) result, req, resp);
+        } else {
+            future = ((CompletionStage<Object>) result).toCompletableFuture();
+        }
+
+        if (!req.isAsyncSupported()) {
+            Object value;
+            try {
+                value = future.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                resp.sendError(503, "处理请求超时");
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                resp.sendError(503);
+                return null;
+            } catch (ExecutionException e) {
+                sendAsyncError(e.getCause(), resp);
+                return null;
+            }
+            long renderStart = System.nanoTime();
+            render(handler, value, req, resp, null);
+            lap(handler.getMetrics(), HandlerMetrics.Phase.RENDERING, renderStart);
+            return null;
+        }
+
+        //请求体是非阻塞读取的时候已经开始了异步请求
+        final AsyncContext asyncContext;
+        if (req.isAsyncStarted()) {
+            asyncContext = req.getAsyncContext();
+        } else {
+            asyncContext = req.startAsync(req, resp);
+            asyncContext.setTimeout(timeout);
+        }
+        //超时和正常完成只能有一个生效
+        final AtomicBoolean finished = new AtomicBoolean();
+        //不直接使用处理器返回的future，超时时不改变处理器自己的结果
+        final CompletableFuture<Object> done = new CompletableFuture<>();
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                try {
+                    if (finished.compareAndSet(false, true)) {
+                        resp.sendError(503, "处理请求超时");
+                        asyncContext.complete();
+                    }
+                } finally {
+                    done.completeExceptionally(new TimeoutException("处理请求超时"));
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                finished.set(true);
+                done.completeExceptionally(event.getThrowable() != null
+                        ? event.getThrowable() : new IOException("异步请求出错"));
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        future.whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object value, Throwable throwable) {
+                if (!finished.compareAndSet(false, true)) {
+                    //已经超时，done在超时时完成了
+                    return;
+                }
+                RequestContextHelper.Binding previous = RequestContextHelper.bind(req, resp);
+                try {
+                    if (throwable != null) {
+                        sendAsyncError(throwable, resp);
+                        asyncContext.complete();
+                    } else {
+                        long renderStart = System.nanoTime();
+                        render(handler, value, req, resp, asyncContext);
+                        lap(handler.getMetrics(), HandlerMetrics.Phase.RENDERING, renderStart);
+                    }
+                } catch (Exception e) {
+                    log("渲染异步请求时出错", e);
+                    asyncContext.complete();
+                } finally {
+                    previous.restore();
+                    if (throwable != null) {
+                        done.completeExceptionally(throwable);
+                    } else {
+                        done.complete(value);
+                    }
+                }
+            }
+        });
+        return done;
+    }
+
+    /**
+     * 把Callable交给线程池执行，线程池满时返回503
+     */
+    private CompletableFuture<Object> submit(final Callable<Object> callable, final HttpServletRequest req,
+                                             final HttpServletResponse resp) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            AsyncHelper.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    RequestContextHelper.Binding previous = RequestContextHelper.bind(req, resp);
+                    try {
+                        future.complete(callable.call());
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    } finally {
+                        previous.restore();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new ResponseStatusException(503, "服务器繁忙", e));
+        }
+        return future;
+    }
+
+    /**
+     * 异步处理器出错时返回错误状态码
+     */
+    private void sendAsyncError(Throwable throwable, HttpServletResponse resp) throws IOException {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof ResponseStatusException) {
+            ResponseStatusException e = (ResponseStatusException) throwable;
+            resp.sendError(e.getStatus(), e.getMessage());
+            return;
+        }
+        log("异步处理器执行出错", throwable);
+        resp.sendError(500);
     }
 }
@@ -0,0 +1,20 @@
+package com.webmvc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 在AsyncHelper的线程池中执行处理器，不占用容器的线程
+ * 适合阻塞在JDBC等IO上的处理器，JDK 21以上开启webmvc.async.virtual_threads后每个请求一个虚拟线程
+ * 放在controller上时所有处理器都异步执行，不能和@Bulkhead一起使用
+ * Created by sgz
+ * 2026/10/23 11:05
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Async {
+}
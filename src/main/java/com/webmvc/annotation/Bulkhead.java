@@ -0,0 +1,24 @@
+package com.webmvc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 在指定名字的线程池中执行处理器，不占用容器的线程
+ * 线程池在webmvc.properties中用webmvc.bulkhead.名字.*声明，慢的处理器放在单独的线程池中，
+ * 线程池满了也只影响它自己，不会拖慢其它处理器
+ * 放在controller上时所有处理器都在这个线程池中执行，放在方法上时方法上的优先
+ * Created by sgz
+ * 2026/10/20 15:10
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    /*线程池的名字*/
+    String value();
+}
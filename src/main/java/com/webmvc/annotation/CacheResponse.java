@@ -0,0 +1,29 @@
+package com.webmvc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 缓存GET请求渲染后的响应体(json或jsp)，键是请求路径加上params指定的请求参数
+ * 过期后的staleWhileRevalidate秒内仍然返回旧内容，由其中一个请求在返回旧内容后重新渲染
+ * 处理器不能返回CompletionStage或Callable
+ * Created by sgz
+ * 2026/10/19 21:05
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheResponse {
+
+    /*缓存的有效时间(秒)*/
+    long ttl();
+
+    /*过期后还可以返回旧内容的时间(秒)*/
+    long staleWhileRevalidate() default 60;
+
+    /*作为缓存键一部分的请求参数*/
+    String[] params() default {};
+}
@@ -0,0 +1,52 @@
+package com.webmvc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 限制同时处理的请求数，超过时返回503和Retry-After
+ * 放在controller上时所有处理器共用一个限制，放在方法上时只限制这个处理器，方法上的优先
+ * 同名的限制共用一个，可以用来保护多个controller共同依赖的资源
+ * Created by sgz
+ * 2026/10/20 9:30
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConcurrencyLimit {
+
+    enum Algorithm {
+        /*固定的上限*/
+        FIXED,
+        /*成功时加1，失败或超过latencyThreshold时乘以0.9*/
+        AIMD,
+        /*按最近的响应时间和长期的响应时间的比例调整上限*/
+        GRADIENT
+    }
+
+    /*固定的上限，自适应算法的初始上限*/
+    int value();
+
+    Algorithm algorithm() default Algorithm.FIXED;
+
+    /*自适应算法的下限*/
+    int min() default 1;
+
+    /*自适应算法的上限*/
+    int max() default 1000;
+
+    /*AIMD中超过这个毫秒数的请求当作失败，0表示只看异常*/
+    long latencyThreshold() default 0;
+
+    /*没有许可时最多等待的毫秒数，0表示直接拒绝*/
+    long maxWait() default 0;
+
+    /*拒绝时Retry-After的秒数*/
+    int retryAfter() default 1;
+
+    /*限制的名字，默认是类名或类名.方法名*/
+    String name() default "";
+}
@@ -0,0 +1,23 @@
+package com.webmvc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 由处理器提供一个廉价的版本号作为ETag
+ * value是同一个controller中的方法名，参数和处理器方法一样按注解解析，返回值的toString()作为版本号，
+ * 和If-None-Match一致时直接返回304，不调用处理器也不序列化结果
+ * Created by sgz
+ * 2026/10/19 19:20
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ETagVersion {
+
+    /*返回版本号的方法名*/
+    String value();
+}
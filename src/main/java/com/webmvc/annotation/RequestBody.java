@@ -0,0 +1,21 @@
+package com.webmvc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 把json请求体绑定到参数上，参数可以是带泛型的类型如List&lt;User&gt;
+ * Created by sgz
+ * 2026/10/19 11:02
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequestBody {
+
+    /*请求体为空时是否报错*/
+    boolean required() default true;
+}
@@ -0,0 +1,128 @@
+package com.webmvc.asset;
+
+import java.io.File;
+
+/**
+ * 一个静态资源文件的元数据
+ * 文件修改后会重新创建，所以字段都是不可变的
+ * Created by sgz
+ * 2026/10/19 14:32
+ */
+public final class Asset {
+
+    /*请求路径(不带指纹)*/
+    private final String path;
+
+    private final File file;
+
+    private final long length;
+
+    private final long lastModified;
+
+    /*文件内容的crc32，8位十六进制*/
+    private final String hash;
+
+    private final String contentType;
+
+    /*预先压缩好的.gz文件，没有时为null*/
+    private final Variant gzip;
+
+    /*预先压缩好的.br文件，没有时为null*/
+    private final Variant brotli;
+
+    Asset(String path, File file, long length, long lastModified, String hash, String contentType,
+          Variant gzip, Variant brotli) {
+        this.path = path;
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.hash = hash;
+        this.contentType = contentType;
+        this.gzip = gzip;
+        this.brotli = brotli;
+    }
+
+    /**
+     * 只有预压缩文件变化时使用，原文件的元数据不变
+     */
+    Asset withVariants(Variant gzip, Variant brotli) {
+        return new Asset(path, file, length, lastModified, hash, contentType, gzip, brotli);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Variant getGzip() {
+        return gzip;
+    }
+
+    public Variant getBrotli() {
+        return brotli;
+    }
+
+    /**
+     * @return 是否有预先压缩好的文件
+     */
+    public boolean hasVariants() {
+        return gzip != null || brotli != null;
+    }
+
+    /**
+     * 预先压缩好的文件，和原文件分别记录长度、修改时间和内容的crc32，
+     * 只重新生成了压缩文件时也能发现，ETag也跟着变化
+     */
+    public static final class Variant {
+
+        private final File file;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final String hash;
+
+        Variant(File file, long length, long lastModified, String hash) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.webmvc.asset;
+
+import com.webmvc.excepetion.WebMVCException;
+import com.webmvc.util.HttpUtil;
+import com.webmvc.util.map.WeightedLruCache;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 处理静态资源请求，替代容器的默认servlet
+ * 1.小文件的内容缓存在按字节数限制大小的LRU缓存中，大文件用FileChannel.transferTo发送，
+ *   容器是tomcat并且开启了sendfile时交给tomcat直接从文件发送到socket
+ * 2.客户端支持时发送预先压缩好的.br或.gz文件
+ * 3.AssetHelper.url生成带内容指纹的路径(如/asset/app.3f2a9c1b.js)，
+ *   带指纹的请求可以让浏览器缓存很长时间，不带指纹的请求每次都要用ETag验证
+ * Created by sgz
+ * 2026/10/19 14:40
+ */
+public class AssetHandler {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /*指纹是crc32的8位十六进制*/
+    private static final int HASH_LENGTH = 8;
+
+    private final ServletContext servletContext;
+
+    /*请求路径对应的元数据，文件修改后替换*/
+    private final ConcurrentHashMap<String, Asset> assets = new ConcurrentHashMap<>();
+
+    /*小文件的内容，键是请求路径，预压缩文件在后面加上.gz或.br*/
+    private final WeightedLruCache<String, byte[]> contents;
+
+    private final long cacheFileSize;
+
+    private final String immutableCacheControl;
+
+    public AssetHandler(ServletContext servletContext, long cacheSize, long cacheFileSize, long maxAge) {
+        this.servletContext = servletContext;
+        this.cacheFileSize = cacheFileSize;
+        this.immutableCacheControl = "public, max-age=" + maxAge + ", immutable";
+        this.contents = new WeightedLruCache<>(cacheSize, new WeightedLruCache.Weigher<byte[]>() {
+            @Override
+            public long weigh(byte[] value) {
+                return value.length;
+            }
+        });
+    }
+
+    /**
+     * @return 小文件内容的缓存，用于监控
+     */
+    public WeightedLruCache<String, byte[]> getCache() {
+        return contents;
+    }
+
+    /**
+     * 处理静态资源请求，只支持GET和HEAD
+     */
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String method = req.getMethod();
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            resp.setHeader("Allow", "GET, HEAD");
+            resp.sendError(405);
+            return;
+        }
+        String path = req.getServletPath();
+        if (req.getPathInfo() != null) {
+            path = path + req.getPathInfo();
+        }
+        Asset asset = find(path);
+        if (asset == null) {
+            resp.sendError(404);
+            return;
+        }
+
+        //带指纹的路径内容不会变，可以一直缓存
+        resp.setHeader("Cache-Control", asset.getPath().equals(path) ? "no-cache" : immutableCacheControl);
+        if (asset.hasVariants()) {
+            resp.setHeader("Vary", "Accept-Encoding");
+        }
+
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        Asset.Variant variant = null;
+        String encoding = null;
+        if (asset.getBrotli() != null && HttpUtil.acceptsEncoding(acceptEncoding, "br")) {
+            variant = asset.getBrotli();
+            encoding = "br";
+        } else if (asset.getGzip() != null && HttpUtil.acceptsEncoding(acceptEncoding, "gzip")) {
+            variant = asset.getGzip();
+            encoding = "gzip";
+        }
+        File file = variant == null ? asset.getFile() : variant.getFile();
+        long length = variant == null ? asset.getLength() : variant.getLength();
+        //压缩文件用自己的内容生成ETag，只重新生成压缩文件时ETag也会变化
+        String etag = variant == null ? "\"" + asset.getHash() + "-" + Long.toHexString(length) + "\""
+                : "\"" + variant.getHash() + "-" + Long.toHexString(length) + "-" + encoding + "\"";
+        long lastModified = variant == null ? asset.getLastModified()
+                : Math.max(asset.getLastModified(), variant.getLastModified());
+        resp.setHeader("ETag", etag);
+        resp.setDateHeader("Last-Modified", lastModified);
+        if (notModified(req, etag, lastModified)) {
+            resp.setStatus(304);
+            return;
+        }
+
+        if (encoding != null) {
+            resp.setHeader("Content-Encoding", encoding);
+        }
+        resp.setContentType(asset.getContentType());
+        resp.setContentLengthLong(length);
+        if (head) {
+            return;
+        }
+
+        byte[] content = content(encoding == null ? asset.getPath() : asset.getPath() + "." + suffix(encoding),
+                file, length);
+        if (content != null) {
+            resp.getOutputStream().write(content);
+            return;
+        }
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            //tomcat会在service返回后直接把文件发送到socket
+            req.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            req.setAttribute(SENDFILE_START, 0L);
+            req.setAttribute(SENDFILE_END, length);
+            return;
+        }
+        ServletOutputStream out = resp.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < length) {
+                long sent = channel.transferTo(position, length - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * 根据请求路径查找静态资源，路径可以带AssetHelper.url生成的指纹
+     * @return 没有找到时返回null
+     */
+    public Asset find(String path) {
+        if (!isSafe(path)) {
+            return null;
+        }
+        Asset asset = load(path);
+        if (asset != null) {
+            return asset;
+        }
+        //去掉指纹再查找，只有指纹和当前内容一致时才算找到
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        int base = path.length() - name.length();
+        if (dot > 0) {
+            int hashDot = name.lastIndexOf('.', dot - 1);
+            if (hashDot > 0 && dot - hashDot - 1 == HASH_LENGTH) {
+                asset = matchFingerprint(path, path.substring(0, base + hashDot) + path.substring(base + dot));
+                if (asset != null) {
+                    return asset;
+                }
+            }
+            if (name.length() - dot - 1 == HASH_LENGTH) {
+                return matchFingerprint(path, path.substring(0, base + dot));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param path 不带指纹的请求路径
+     * @return 带指纹的请求路径，资源不存在时返回原路径
+     */
+    public String url(String path) {
+        Asset asset = find(path);
+        return asset == null ? path : fingerprint(asset);
+    }
+
+    /**
+     * 指纹放在扩展名前面，没有扩展名时放在最后
+     */
+    private static String fingerprint(Asset asset) {
+        String path = asset.getPath();
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot > slash + 1) {
+            return path.substring(0, dot) + "." + asset.getHash() + path.substring(dot);
+        }
+        return path + "." + asset.getHash();
+    }
+
+    private Asset matchFingerprint(String path, String original) {
+        Asset asset = load(original);
+        if (asset != null && fingerprint(asset).equals(path)) {
+            return asset;
+        }
+        return null;
+    }
+
+    /**
+     * 读取或更新静态资源的元数据，文件不存在时返回null
+     */
+    private Asset load(String path) {
+        String realPath = servletContext.getRealPath(path);
+        if (realPath == null) {
+            return null;
+        }
+        File file = new File(realPath);
+        long lastModified = file.lastModified();
+        Asset asset = assets.get(path);
+        if (asset != null && asset.getLastModified() == lastModified && lastModified != 0) {
+            if (isCurrent(asset.getGzip(), file, ".gz") && isCurrent(asset.getBrotli(), file, ".br")) {
+                return asset;
+            }
+            //只有预压缩文件变化了，原文件不用重新读取
+            contents.remove(path + ".gz");
+            contents.remove(path + ".br");
+            asset = asset.withVariants(variant(path, file, ".gz"), variant(path, file, ".br"));
+            assets.put(path, asset);
+            return asset;
+        }
+        if (!file.isFile()) {
+            if (asset != null) {
+                assets.remove(path);
+                evict(path);
+            }
+            return null;
+        }
+        asset = create(path, file, lastModified);
+        assets.put(path, asset);
+        return asset;
+    }
+
+    private Asset create(String path, File file, long lastModified) {
+        evict(path);
+        long length = file.length();
+        String hash = hash(path, file, length);
+        String contentType = servletContext.getMimeType(file.getName());
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+        return new Asset(path, file, length, lastModified, hash, contentType,
+                variant(path, file, ".gz"), variant(path, file, ".br"));
+    }
+
+    /**
+     * 计算文件内容的crc32，小文件的内容顺便放进缓存
+     * @param key 缓存的键
+     * @return 8位十六进制
+     */
+    private String hash(String key, File file, long length) {
+        CRC32 crc = new CRC32();
+        try {
+            if (length <= cacheFileSize) {
+                byte[] content = readFully(file, (int) length);
+                crc.update(content);
+                contents.put(key, content);
+            } else {
+                byte[] buffer = new byte[8192];
+                try (InputStream in = new FileInputStream(file)) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        crc.update(buffer, 0, read);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new WebMVCException("读取静态资源失败, " + file, e);
+        }
+        return Long.toHexString(crc.getValue() | (1L << 32)).substring(1);
+    }
+
+    private void evict(String path) {
+        contents.remove(path);
+        contents.remove(path + ".gz");
+        contents.remove(path + ".br");
+    }
+
+    /**
+     * @param suffix .gz或.br
+     * @return 预压缩文件的元数据，不存在时返回null
+     */
+    private Asset.Variant variant(String path, File file, String suffix) {
+        File variant = new File(file.getPath() + suffix);
+        long lastModified = variant.lastModified();
+        if (lastModified == 0 || !variant.isFile()) {
+            return null;
+        }
+        long length = variant.length();
+        return new Asset.Variant(variant, length, lastModified, hash(path + suffix, variant, length));
+    }
+
+    /**
+     * @return 预压缩文件和记录的一致，之前没有的现在也没有
+     */
+    private static boolean isCurrent(Asset.Variant variant, File file, String suffix) {
+        File current = variant == null ? new File(file.getPath() + suffix) : variant.getFile();
+        long lastModified = current.lastModified();
+        if (variant == null) {
+            return lastModified == 0;
+        }
+        return lastModified != 0 && lastModified == variant.getLastModified() && current.length() == variant.getLength();
+    }
+
+    /**
+     * @return 缓存中的文件内容，文件太大时返回null
+     */
+    private byte[] content(String key, File file, long length) throws IOException {
+        if (length > cacheFileSize) {
+            return null;
+        }
+        byte[] content = contents.get(key);
+        if (content == null) {
+            content = readFully(file, (int) length);
+            contents.put(key, content);
+        }
+        return content;
+    }
+
+    private static byte[] readFully(File file, int length) throws IOException {
+        byte[] content = new byte[length];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            int read;
+            while (offset < length && (read = in.read(content, offset, length - offset)) != -1) {
+                offset += read;
+            }
+            if (offset < length) {
+                throw new IOException("文件在读取时被修改, " + file);
+            }
+        }
+        return content;
+    }
+
+    private static String suffix(String encoding) {
+        return "gzip".equals(encoding) ? "gz" : encoding;
+    }
+
+    /**
+     * 不允许通过..访问资源目录以外的文件，也不允许访问WEB-INF和META-INF
+     */
+    private static boolean isSafe(String path) {
+        if (path.indexOf('\\') >= 0 || path.indexOf('\0') >= 0 || path.contains("/../") || path.endsWith("/..")) {
+            return false;
+        }
+        String upper = path.toUpperCase();
+        return !upper.contains("/WEB-INF") && !upper.contains("/META-INF");
+    }
+
+    private static boolean notModified(HttpServletRequest req, String etag, long lastModified) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag);
+        }
+        try {
+            long ifModifiedSince = req.getDateHeader("If-Modified-Since");
+            //http日期只精确到秒
+            return ifModifiedSince != -1 && lastModified / 1000 * 1000 <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.webmvc.async;
+
+import com.webmvc.excepetion.ResponseStatusException;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+
+/**
+ * 用非阻塞的方式读取请求体
+ * 只有数据到达时容器才会回调onDataAvailable，慢速客户端上传期间不占用线程，
+ * 整个请求体读完后回调onBodyRead
+ * Created by sgz
+ * 2026/10/18 21:02
+ */
+public abstract class BodyReadListener implements ReadListener {
+
+    /*数组最多的长度*/
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /*请求体先分配这么多，之后随着数据到达增长，客户端声明了很大的Content-Length但不发送数据时不会占用内存*/
+    private static final int INITIAL_BODY_SIZE = 8192;
+
+    private final ServletInputStream input;
+
+    private final long maxBodySize;
+
+    /*请求体最多增长到的长度，Content-Length已知时不超过它*/
+    private final long capacityLimit;
+
+    private final byte[] chunk = new byte[4096];
+
+    private byte[] body;
+
+    private int length;
+
+    /**
+     * @param input 请求的输入流
+     * @param contentLength 请求头中的长度，未知时为-1
+     * @param maxBodySize 请求体最多允许的字节数
+     */
+    public BodyReadListener(ServletInputStream input, long contentLength, long maxBodySize) {
+        this.input = input;
+        this.maxBodySize = Math.min(maxBodySize, MAX_ARRAY_SIZE);
+        this.capacityLimit = contentLength >= 0 ? Math.min(contentLength, this.maxBodySize) : this.maxBodySize;
+        this.body = new byte[(int) Math.min(capacityLimit, INITIAL_BODY_SIZE)];
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        int read;
+        //isReady()返回false时容器会在有数据时再次回调
+        while (input.isReady() && (read = input.read(chunk)) != -1) {
+            if (length + read > maxBodySize) {
+                throw new ResponseStatusException(413, "请求体超过了" + maxBodySize + "字节");
+            }
+            ensureCapacity(length + read);
+            System.arraycopy(chunk, 0, body, length, read);
+            length += read;
+        }
+    }
+
+    /**
+     * 容量翻倍，不超过capacityLimit；客户端发送的数据比Content-Length多时按实际的长度增长
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > body.length) {
+            long limit = Math.max(capacityLimit, capacity);
+            byte[] larger = new byte[(int) Math.min(limit, Math.max(body.length * 2L, capacity))];
+            System.arraycopy(body, 0, larger, 0, length);
+            body = larger;
+        }
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+        onBodyRead(body, length);
+    }
+
+    /**
+     * 请求体全部读完
+     * @param body 请求体，只有前length个字节有效
+     * @param length 请求体的长度
+     */
+    protected abstract void onBodyRead(byte[] body, int length);
+}
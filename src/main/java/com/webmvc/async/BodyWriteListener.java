@@ -0,0 +1,53 @@
+package com.webmvc.async;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+
+/**
+ * 用非阻塞的方式写出响应体
+ * 客户端接收慢时isReady()返回false，线程直接返回，可以写时容器再回调onWritePossible，
+ * 全部写完后结束异步请求
+ * Created by sgz
+ * 2026/10/18 21:15
+ */
+public class BodyWriteListener implements WriteListener {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ServletOutputStream output;
+
+    private final AsyncContext asyncContext;
+
+    private final byte[] body;
+
+    private final int length;
+
+    private int position;
+
+    public BodyWriteListener(ServletOutputStream output, AsyncContext asyncContext, byte[] body, int length) {
+        this.output = output;
+        this.asyncContext = asyncContext;
+        this.body = body;
+        this.length = length;
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        while (output.isReady()) {
+            if (position >= length) {
+                asyncContext.complete();
+                return;
+            }
+            int size = Math.min(CHUNK_SIZE, length - position);
+            output.write(body, position, size);
+            position += size;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        asyncContext.complete();
+    }
+}
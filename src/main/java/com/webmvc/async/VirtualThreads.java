@@ -0,0 +1,49 @@
+package com.webmvc.async;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程的支持
+ * 这个类是JDK 21以下使用的版本，不支持虚拟线程，调用方退回到平台线程的线程池；
+ * JDK 21的版本在src/main/java21中，打包在多版本jar的META-INF/versions/21下，两个版本的方法必须一致
+ * Created by sgz
+ * 2026/10/23 10:20
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return 当前的JDK是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的线程池
+     * @param prefix 线程名的前缀
+     * @return 不支持虚拟线程时返回null
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        return null;
+    }
+
+    /**
+     * 开始监听虚拟线程被固定在平台线程上的事件
+     * 虚拟线程在synchronized块里阻塞时不能让出平台线程，超过阈值的记录下来并打印调用栈
+     * @param thresholdMillis 固定超过这个时间才记录
+     * @return 是否开始了监听
+     */
+    public static boolean startPinnedMonitor(long thresholdMillis) {
+        return false;
+    }
+
+    /**
+     * @return 记录到的虚拟线程被固定的次数
+     */
+    public static long getPinnedCount() {
+        return 0;
+    }
+}
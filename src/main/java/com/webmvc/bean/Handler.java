@@ -1,8 +1,15 @@
 package com.webmvc.bean;
 
+import com.webmvc.annotation.CacheResponse;
+import com.webmvc.annotation.ResponseBody;
 import com.webmvc.enums.RequestMethod;
+import com.webmvc.invoke.HandlerInvoker;
+import com.webmvc.limit.ConcurrencyLimiter;
+import com.webmvc.metrics.HandlerMetrics;
+import com.webmvc.resolver.HandlerArgumentResolver;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Created by A550V
@@ -18,10 +25,43 @@ public class Handler {
     /*请求方法*/
     private RequestMethod[] requestMethods;
 
+    /*启动时为每个参数生成的解析器，和方法参数一一对应*/
+    private HandlerArgumentResolver[] argumentResolvers;
+
+    /*启动时和controller对象绑定好的调用器*/
+    private HandlerInvoker invoker;
+
+    /*方法上是否有ResponseBody注解*/
+    private boolean responseBody;
+
+    /*方法上的CacheResponse注解，没有时为null*/
+    private CacheResponse cacheResponse;
+
+    /*ConcurrencyLimit对应的并发限制，没有时为null*/
+    private ConcurrencyLimiter limiter;
+
+    /*ETagVersion指定的返回版本号的方法，没有时为null*/
+    private Handler versionHandler;
+
+    /*Bulkhead指定的线程池或者Async使用的线程池，没有时在容器的线程上执行*/
+    private ExecutorService executor;
+
+    /*请求数和延迟的统计，没有开启时为null*/
+    private HandlerMetrics metrics;
+
     public Handler(Class<?> controllerClass, Method mappingMethod, RequestMethod[] requestMethods) {
         this.controllerClass = controllerClass;
         this.mappingMethod = mappingMethod;
         this.requestMethods = requestMethods;
+        this.responseBody = mappingMethod.isAnnotationPresent(ResponseBody.class);
+        this.cacheResponse = mappingMethod.getAnnotation(CacheResponse.class);
+    }
+
+    public Handler(Class<?> controllerClass, Method mappingMethod, RequestMethod[] requestMethods,
+                   HandlerArgumentResolver[] argumentResolvers, HandlerInvoker invoker) {
+        this(controllerClass, mappingMethod, requestMethods);
+        this.argumentResolvers = argumentResolvers;
+        this.invoker = invoker;
     }
 
     public Class<?> getControllerClass() {
@@ -35,4 +75,52 @@ public class Handler {
     public RequestMethod[] getRequestMethods() {
         return requestMethods;
     }
+
+    public HandlerArgumentResolver[] getArgumentResolvers() {
+        return argumentResolvers;
+    }
+
+    public HandlerInvoker getInvoker() {
+        return invoker;
+    }
+
+    public boolean isResponseBody() {
+        return responseBody;
+    }
+
+    public CacheResponse getCacheResponse() {
+        return cacheResponse;
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public void setLimiter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public HandlerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(HandlerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Handler getVersionHandler() {
+        return versionHandler;
+    }
+
+    public void setVersionHandler(Handler versionHandler) {
+        this.versionHandler = versionHandler;
+    }
 }
@@ -0,0 +1,158 @@
+package com.webmvc.bean;
+
+import com.webmvc.helper.ConfigHelper;
+import com.webmvc.excepetion.ResponseStatusException;
+import com.webmvc.router.Route;
+import com.webmvc.util.FormParser;
+import com.webmvc.util.LimitedInputStream;
+import com.webmvc.util.StreamUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用到时才去取值的请求参数
+ * 解析器按名字取参数时才调用req.getParameter，需要时才解析表单请求体和路径变量，
+ * 没有参数的处理器不会做任何参数相关的工作
+ * Created by sgz
+ * 2026/10/18 19:02
+ */
+public class LazyParam extends Param {
+
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    private static final long MAX_FORM_SIZE = ConfigHelper.getMaxFormSize();
+
+    private final HttpServletRequest req;
+
+    private final Route route;
+
+    private final String requestPath;
+
+    /*表单请求体中的参数，第一次用到时解析*/
+    private Map<String, List<String>> formParams;
+
+    /*所有参数，调用getMap时才创建*/
+    private Map<String, Object> paramMap;
+
+    private Map<String, String> pathVariables;
+
+    /*已经非阻塞读取好的请求体，为null时从req.getInputStream()读取*/
+    private byte[] body;
+
+    private int bodyLength;
+
+    public LazyParam(HttpServletRequest req, Route route, String requestPath) {
+        super(null, null);
+        this.req = req;
+        this.route = route;
+        this.requestPath = requestPath;
+    }
+
+    /**
+     * 设置已经读取好的请求体
+     * @param body 请求体，只有前length个字节有效
+     * @param length 请求体的长度
+     */
+    public void setBody(byte[] body, int length) {
+        this.body = body;
+        this.bodyLength = length;
+    }
+
+    @Override
+    public InputStream openBody() throws IOException {
+        if (body != null) {
+            return new ByteArrayInputStream(body, 0, bodyLength);
+        }
+        return req.getInputStream();
+    }
+
+    /**
+     * 请求体先全部读到内存中，表单参数从读好的请求体中解析
+     */
+    @Override
+    public Param materialize() throws IOException {
+        if (body == null && (req.getContentLengthLong() > 0 || req.getHeader("Transfer-Encoding") != null)) {
+            byte[] bytes = StreamUtil.toBytes(new LimitedInputStream(req.getInputStream(), ConfigHelper.getMaxBodySize()));
+            setBody(bytes, bytes.length);
+        }
+        Map<String, String> variables = route == null ? Collections.<String, String>emptyMap()
+                : route.getPathVariables(requestPath);
+        return new Param(new HashMap<>(getMap()), variables, body == null ? null : Arrays.copyOf(body, bodyLength));
+    }
+
+    @Override
+    public Object get(String name) {
+        if (paramMap != null) {
+            return paramMap.get(name);
+        }
+        List<String> values = getFormParams().get(name);
+        if (values != null) {
+            return values.get(0);
+        }
+        return req.getParameter(name);
+    }
+
+    @Override
+    public String getPathVariable(String name) {
+        if (pathVariables == null) {
+            pathVariables = route.getPathVariables(requestPath);
+        }
+        return pathVariables.get(name);
+    }
+
+    @Override
+    public Map<String, Object> getMap() {
+        if (paramMap == null) {
+            Map<String, Object> map = new HashMap<>();
+            Enumeration<String> paramNames = req.getParameterNames();
+            while (paramNames.hasMoreElements()) {
+                String paramName = paramNames.nextElement();
+                map.put(paramName, req.getParameter(paramName));
+            }
+            for (Map.Entry<String, List<String>> entry : getFormParams().entrySet()) {
+                map.put(entry.getKey(), entry.getValue().get(0));
+            }
+            paramMap = map;
+        }
+        return paramMap;
+    }
+
+    /**
+     * 请求体为application/x-www-form-urlencoded时，边读边解析请求体中的参数
+     * 容器已经解析过的POST表单请求体为空，不会重复解析
+     */
+    private Map<String, List<String>> getFormParams() {
+        if (formParams == null) {
+            formParams = parseFormBody();
+        }
+        return formParams;
+    }
+
+    private Map<String, List<String>> parseFormBody() {
+        String contentType = req.getContentType();
+        if (contentType == null || !contentType.regionMatches(true, 0, FORM_CONTENT_TYPE, 0, FORM_CONTENT_TYPE.length())) {
+            return Collections.emptyMap();
+        }
+        if (req.getContentLengthLong() > MAX_FORM_SIZE) {
+            throw new ResponseStatusException(413, "请求体超过了" + MAX_FORM_SIZE + "字节");
+        }
+        String encoding = req.getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        try {
+            return FormParser.parse(openBody(), charset, MAX_FORM_SIZE);
+        } catch (IOException e) {
+            throw new ResponseStatusException(400, "读取请求体时出错", e);
+        }
+    }
+}
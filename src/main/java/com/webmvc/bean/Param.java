@@ -2,6 +2,10 @@ package com.webmvc.bean;
 
 import com.webmvc.util.CastUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -12,12 +16,59 @@ public class Param {
 
     private Map<String, Object> paramMap;
 
+    /*路径中的变量*/
+    private Map<String, String> pathVariables;
+
+    /*请求体，没有时为null*/
+    private byte[] body;
+
     public Param(Map<String, Object> paramMap) {
+        this(paramMap, Collections.<String, String>emptyMap());
+    }
+
+    public Param(Map<String, Object> paramMap, Map<String, String> pathVariables) {
+        this(paramMap, pathVariables, null);
+    }
+
+    public Param(Map<String, Object> paramMap, Map<String, String> pathVariables, byte[] body) {
         this.paramMap = paramMap;
+        this.pathVariables = pathVariables;
+        this.body = body;
+    }
+
+    /**
+     * @param name 参数名
+     * @return 请求参数的值，没有时返回null
+     */
+    public Object get(String name) {
+        return paramMap.get(name);
+    }
+
+    /**
+     * @param name 路径变量名
+     * @return 路径变量的值，没有时返回null
+     */
+    public String getPathVariable(String name) {
+        return pathVariables.get(name);
+    }
+
+    /**
+     * @return 请求体的输入流，没有请求体时为空的输入流
+     */
+    public InputStream openBody() throws IOException {
+        return new ByteArrayInputStream(body == null ? new byte[0] : body);
+    }
+
+    /**
+     * 把参数、路径变量和请求体都取出来，得到一个不再引用请求的Param，请求结束后还可以使用
+     * @throws IOException 读取请求体时出错
+     */
+    public Param materialize() throws IOException {
+        return this;
     }
 
     public long getLong(String name) {
-        return CastUtil.castLong(paramMap.get(name));
+        return CastUtil.castLong(get(name));
     }
 
     public Map<String, Object> getMap() {
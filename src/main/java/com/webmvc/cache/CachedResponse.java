@@ -0,0 +1,96 @@
+package com.webmvc.cache;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 缓存的一个响应，响应体是压缩前的内容
+ * Created by sgz
+ * 2026/10/19 21:12
+ */
+public final class CachedResponse {
+
+    /*键、字段和对象头大致占用的字节数，计入缓存大小*/
+    private static final int OVERHEAD = 96;
+
+    private final String key;
+
+    private final byte[] body;
+
+    private final String contentType;
+
+    /*响应体的xxHash64，用于ETag*/
+    private final long hash;
+
+    private final long expiresAt;
+
+    private final long staleUntil;
+
+    /*渲染时forward到了jsp，刷新时还要用原请求，不能在请求结束后刷新*/
+    private final boolean forwarded;
+
+    /*是否已经有请求在重新渲染*/
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public CachedResponse(String key, byte[] body, String contentType, long hash, long expiresAt, long staleUntil,
+                          boolean forwarded) {
+        this.key = key;
+        this.body = body;
+        this.contentType = contentType;
+        this.hash = hash;
+        this.expiresAt = expiresAt;
+        this.staleUntil = staleUntil;
+        this.forwarded = forwarded;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public boolean isForwarded() {
+        return forwarded;
+    }
+
+    public boolean isStale(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * @return 是否还可以返回给客户端
+     */
+    public boolean isUsable(long now) {
+        return now < staleUntil;
+    }
+
+    /**
+     * @return 是否由当前线程重新渲染，同一时间只有一个线程返回true
+     */
+    public boolean startRefresh() {
+        return refreshing.compareAndSet(false, true);
+    }
+
+    /**
+     * 重新渲染失败时调用，之后的请求可以再次尝试
+     */
+    public void endRefresh() {
+        refreshing.set(false);
+    }
+
+    /**
+     * @return 在缓存中大致占用的字节数
+     */
+    long weight() {
+        return body.length + key.length() * 2L + OVERHEAD;
+    }
+}
@@ -0,0 +1,133 @@
+package com.webmvc.cache;
+
+import com.webmvc.bean.Param;
+import com.webmvc.util.map.WeightedLruCache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CacheResponse处理器的响应缓存，按字节数限制大小，超过时淘汰最久没有访问的
+ * Created by sgz
+ * 2026/10/19 21:20
+ */
+public class ResponseCache {
+
+    private final WeightedLruCache<String, CachedResponse> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder staleHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public ResponseCache(long maxBytes) {
+        this.entries = new WeightedLruCache<>(maxBytes, new WeightedLruCache.Weigher<CachedResponse>() {
+            @Override
+            public long weigh(CachedResponse value) {
+                return value.weight();
+            }
+        });
+    }
+
+    /**
+     * 生成缓存键，请求路径后面按顺序加上参数的值
+     * 值前面加上它的长度，值里有&或=时不会和别的参数组合出同样的键；null和空字符串也不一样，
+     * 如 /p?a=1:x&b=3:&b= 表示a为x、b为&b=，/p?a!&b=0: 表示a为null、b为空字符串
+     */
+    public static String key(String path, String[] params, Param param) {
+        if (path == null) {
+            path = "/";
+        }
+        if (params.length == 0) {
+            return path;
+        }
+        StringBuilder key = new StringBuilder(path);
+        for (int i = 0; i < params.length; i++) {
+            Object value = param.get(params[i]);
+            key.append(i == 0 ? '?' : '&').append(params[i]);
+            if (value == null) {
+                key.append('!');
+            } else {
+                String text = value.toString();
+                key.append('=').append(text.length()).append(':').append(text);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return 还可以返回的缓存，没有或者已经超过staleWhileRevalidate时返回null
+     */
+    public CachedResponse get(String key, long now) {
+        CachedResponse cached = entries.get(key);
+        if (cached == null || !cached.isUsable(now)) {
+            misses.increment();
+            return null;
+        }
+        if (cached.isStale(now)) {
+            staleHits.increment();
+        } else {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    public void put(CachedResponse response) {
+        entries.put(response.getKey(), response);
+    }
+
+    /**
+     * 记录一次重新渲染的结果
+     */
+    public void refreshed(boolean success) {
+        if (success) {
+            refreshes.increment();
+        } else {
+            refreshFailures.increment();
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.sum();
+    }
+
+    public long getEvictions() {
+        return entries.getEvictions();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getBytes() {
+        return entries.getWeight();
+    }
+
+    public long getMaxBytes() {
+        return entries.getMaxWeight();
+    }
+}
@@ -0,0 +1,162 @@
+package com.webmvc.compress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 用池中的Deflater压缩后写到另一个输出流，nowrap的池输出gzip格式，否则输出zlib格式(即http的deflate)
+ * 和GZIPOutputStream不同，finish()后Deflater还给池而不是释放，也不会关闭下层的输出流
+ * Created by sgz
+ * 2026/10/19 16:32
+ */
+public class CompressingOutputStream extends OutputStream {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final OutputStream out;
+
+    private final DeflaterPool pool;
+
+    private final boolean gzip;
+
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private Deflater deflater;
+
+    private CRC32 crc;
+
+    public CompressingOutputStream(OutputStream out, DeflaterPool pool) throws IOException {
+        this.out = out;
+        this.pool = pool;
+        this.gzip = pool.isNowrap();
+        this.deflater = pool.borrow();
+        if (gzip) {
+            crc = new CRC32();
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (deflater == null) {
+            throw new IOException("压缩流已经结束");
+        }
+        if (len == 0) {
+            return;
+        }
+        if (gzip) {
+            crc.update(b, off, len);
+        }
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            int n = deflater.deflate(chunk, 0, chunk.length, Deflater.NO_FLUSH);
+            if (n > 0) {
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+
+    /**
+     * 把已经写入的内容压缩后写出，会降低压缩率
+     */
+    @Override
+    public void flush() throws IOException {
+        if (deflater != null) {
+            int n;
+            do {
+                n = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                out.write(chunk, 0, n);
+            } while (n == chunk.length);
+        }
+        out.flush();
+    }
+
+    /**
+     * 写出剩下的压缩数据和gzip尾部，然后把Deflater还给池，可以重复调用
+     */
+    public void finish() throws IOException {
+        if (deflater == null) {
+            return;
+        }
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk, 0, chunk.length);
+                out.write(chunk, 0, n);
+            }
+            if (gzip) {
+                writeTrailer(chunk, 0, (int) crc.getValue(), deflater.getTotalIn());
+                out.write(chunk, 0, 8);
+            }
+        } finally {
+            pool.release(deflater);
+            deflater = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    /**
+     * 把in中的内容一次压缩到output中
+     * @return 压缩后的长度，output放不下时返回-1
+     */
+    public static int compress(DeflaterPool pool, byte[] in, int off, int len, byte[] output) {
+        boolean gzip = pool.isNowrap();
+        int headerLength = gzip ? GZIP_HEADER.length : 0;
+        int trailerLength = gzip ? 8 : 0;
+        if (output.length < headerLength + trailerLength) {
+            return -1;
+        }
+        Deflater deflater = pool.borrow();
+        try {
+            deflater.setInput(in, off, len);
+            deflater.finish();
+            int limit = output.length - trailerLength;
+            int count = headerLength;
+            while (!deflater.finished()) {
+                if (count == limit) {
+                    return -1;
+                }
+                count += deflater.deflate(output, count, limit - count);
+            }
+            if (gzip) {
+                System.arraycopy(GZIP_HEADER, 0, output, 0, headerLength);
+                CRC32 crc = new CRC32();
+                crc.update(in, off, len);
+                writeTrailer(output, count, (int) crc.getValue(), len);
+                count += trailerLength;
+            }
+            return count;
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    /**
+     * gzip尾部是小端序的crc32和原始长度
+     */
+    private static void writeTrailer(byte[] buf, int offset, int crc, int size) {
+        writeInt(buf, offset, crc);
+        writeInt(buf, offset + 4, size);
+    }
+
+    private static void writeInt(byte[] buf, int offset, int value) {
+        buf[offset] = (byte) value;
+        buf[offset + 1] = (byte) (value >> 8);
+        buf[offset + 2] = (byte) (value >> 16);
+        buf[offset + 3] = (byte) (value >> 24);
+    }
+}
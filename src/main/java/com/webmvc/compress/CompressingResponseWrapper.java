@@ -0,0 +1,208 @@
+package com.webmvc.compress;
+
+import com.webmvc.helper.CompressionHelper;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * forward到jsp时压缩响应体
+ * 先缓冲压缩阈值以内的内容，超过阈值时按jsp设置的Content-Type决定是否压缩，
+ * 到结束都没有超过阈值时不压缩，原样写出并设置Content-Length
+ * forward返回后必须调用finish()
+ * Created by sgz
+ * 2026/10/19 17:15
+ */
+public class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final HttpServletRequest req;
+
+    private LazyCompressingOutputStream stream;
+
+    private PrintWriter writer;
+
+    /*jsp设置的Content-Length，不压缩时才传给原响应*/
+    private long contentLength = -1;
+
+    public CompressingResponseWrapper(HttpServletRequest req, HttpServletResponse resp) {
+        super(resp);
+        this.req = req;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("已经调用了getWriter()");
+        }
+        if (stream == null) {
+            stream = new LazyCompressingOutputStream();
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (stream != null) {
+                throw new IllegalStateException("已经调用了getOutputStream()");
+            }
+            stream = new LazyCompressingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        contentLength = len;
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        contentLength = len;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            contentLength = Long.parseLong(value);
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            contentLength = Long.parseLong(value);
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        } else if (stream != null) {
+            stream.flush();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (stream != null && stream.target == null) {
+            stream.count = 0;
+            return;
+        }
+        super.resetBuffer();
+    }
+
+    /**
+     * 写出缓冲的内容和压缩流的结尾，可以重复调用
+     */
+    public void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (stream != null) {
+            stream.finish();
+        }
+    }
+
+    private class LazyCompressingOutputStream extends ServletOutputStream {
+
+        private final byte[] buffer = new byte[CompressionHelper.getMinSize()];
+
+        private int count;
+
+        /*决定是否压缩后写到这里*/
+        private OutputStream target;
+
+        private CompressingOutputStream compressor;
+
+        private boolean finished;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null) {
+                if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+                decide();
+            }
+            target.write(b, off, len);
+        }
+
+        /**
+         * 超过阈值后按Content-Type决定是否压缩
+         */
+        private void decide() throws IOException {
+            HttpServletResponse resp = (HttpServletResponse) getResponse();
+            String encoding = CompressionHelper.negotiate(req, resp, getContentType());
+            target = resp.getOutputStream();
+            if (encoding != null) {
+                resp.setHeader("Content-Encoding", encoding);
+                compressor = new CompressingOutputStream(target, CompressionHelper.getPool(encoding));
+                target = compressor;
+            } else if (contentLength >= 0) {
+                resp.setContentLengthLong(contentLength);
+            }
+            target.write(buffer, 0, count);
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            //没有超过阈值时不写出，最多延迟阈值大小的内容
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (target == null) {
+                HttpServletResponse resp = (HttpServletResponse) getResponse();
+                resp.setContentLength(count);
+                resp.getOutputStream().write(buffer, 0, count);
+                count = 0;
+            } else if (compressor != null) {
+                compressor.finish();
+            }
+            getResponse().getOutputStream().flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("压缩的响应不支持非阻塞写出");
+        }
+    }
+}
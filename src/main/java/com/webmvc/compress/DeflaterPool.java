@@ -0,0 +1,50 @@
+package com.webmvc.compress;
+
+import com.webmvc.util.threadpool.ArrayBlockingQueue;
+
+import java.util.zip.Deflater;
+
+/**
+ * 复用Deflater，避免每个响应都分配一份zlib的本地内存
+ * 池中最多保留capacity个，借不到时新建，还回时池满了就释放掉
+ * Created by sgz
+ * 2026/10/19 16:20
+ */
+public class DeflaterPool {
+
+    private final ArrayBlockingQueue<Deflater> deflaters;
+
+    private final int level;
+
+    /*为true时不输出zlib头和校验和，用于gzip*/
+    private final boolean nowrap;
+
+    public DeflaterPool(int level, boolean nowrap, int capacity) {
+        this.level = level;
+        this.nowrap = nowrap;
+        this.deflaters = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    public Deflater borrow() {
+        Deflater deflater = deflaters.poll();
+        return deflater == null ? new Deflater(level, nowrap) : deflater;
+    }
+
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    public boolean isNowrap() {
+        return nowrap;
+    }
+
+    /**
+     * @return 池中空闲的Deflater数
+     */
+    public int getIdle() {
+        return deflaters.size();
+    }
+}
@@ -3,11 +3,43 @@ package com.webmvc.enums;
 public enum RequestMethod {
 	GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE;
 
+	private static final RequestMethod[] VALUES = values();
+
 	public static RequestMethod[] getAll(){
 		RequestMethod[] methods = new RequestMethod[]{GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE};
 		return methods;
 	}
 
+	/**
+	 * 根据HttpServletRequest.getMethod()的值找到对应的枚举
+	 * 不创建新的字符串，也不会抛出异常
+	 * @param method 请求的方法名，如GET
+	 * @return 对应的枚举，不支持的方法返回null
+	 */
+	public static RequestMethod resolve(String method) {
+		if (method == null) {
+			return null;
+		}
+		switch (method) {
+			case "GET": return GET;
+			case "POST": return POST;
+			case "HEAD": return HEAD;
+			case "PUT": return PUT;
+			case "PATCH": return PATCH;
+			case "DELETE": return DELETE;
+			case "OPTIONS": return OPTIONS;
+			case "TRACE": return TRACE;
+			default:
+				//方法名不是大写时逐个比较
+				for (RequestMethod requestMethod : VALUES) {
+					if (requestMethod.name().equalsIgnoreCase(method)) {
+						return requestMethod;
+					}
+				}
+				return null;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return this.name();
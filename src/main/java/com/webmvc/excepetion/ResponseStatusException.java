@@ -0,0 +1,25 @@
+package com.webmvc.excepetion;
+
+/**
+ * 需要以指定的HTTP状态码响应客户端的异常，如参数缺失时的400
+ */
+public class ResponseStatusException extends WebMVCException {
+
+	private static final long serialVersionUID = -3171785384946251397L;
+
+	private final int status;
+
+	public ResponseStatusException(int status, String msg) {
+		super(msg);
+		this.status = status;
+	}
+
+	public ResponseStatusException(int status, String msg, Exception e) {
+		super(msg, e);
+		this.status = status;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+}
@@ -0,0 +1,39 @@
+package com.webmvc.helper;
+
+import com.webmvc.asset.AssetHandler;
+
+import javax.servlet.ServletContext;
+
+/**
+ * 持有处理静态资源的AssetHandler，在DispatcherServlet初始化时创建
+ * jsp中可以用AssetHelper.url("/asset/app.js")生成带内容指纹的路径
+ * Created by sgz
+ * 2026/10/19 15:20
+ */
+public final class AssetHelper {
+
+    private static volatile AssetHandler handler;
+
+    public static void init(ServletContext servletContext) {
+        handler = new AssetHandler(servletContext,
+                ConfigHelper.getAssetCacheSize(),
+                ConfigHelper.getAssetCacheFileSize(),
+                ConfigHelper.getAssetMaxAge());
+    }
+
+    /**
+     * @return 没有由框架处理静态资源时返回null
+     */
+    public static AssetHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * @param path 静态资源的路径，不带contextPath
+     * @return 带内容指纹的路径，资源不存在或没有由框架处理静态资源时返回原路径
+     */
+    public static String url(String path) {
+        AssetHandler current = handler;
+        return current == null ? path : current.url(path);
+    }
+}
@@ -0,0 +1,78 @@
+package com.webmvc.helper;
+
+import com.webmvc.async.VirtualThreads;
+import com.webmvc.util.threadpool.ArrayBlockingQueue;
+import com.webmvc.util.threadpool.NamedThreadFactory;
+import com.webmvc.util.threadpool.ThreadPoolExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步处理器使用的线程池和超时时间
+ * 处理器返回Callable或者标注了@Async时在这个线程池中执行，返回CompletableFuture时由处理器自己决定在哪执行
+ * JDK 21以上并且开启了webmvc.async.virtual_threads时每个任务一个虚拟线程，否则是固定大小的平台线程池
+ * Created by sgz
+ * 2026/10/18 20:05
+ */
+public final class AsyncHelper {
+
+    private static final long TIMEOUT = ConfigHelper.getAsyncTimeout();
+
+    private static final boolean ASYNC_IO = ConfigHelper.isAsyncIo();
+
+    private static final boolean VIRTUAL = ConfigHelper.isAsyncVirtualThreads() && VirtualThreads.isSupported();
+
+    private static final ExecutorService EXECUTOR = VIRTUAL ? VirtualThreads.newExecutor("webmvc-async") : newPlatformExecutor();
+
+    static {
+        if (ConfigHelper.isAsyncVirtualThreads() && !VIRTUAL) {
+            System.out.println("当前的JDK不支持虚拟线程, 使用平台线程的线程池");
+        }
+        long threshold = ConfigHelper.getAsyncPinnedThreshold();
+        if (VIRTUAL && threshold >= 0) {
+            VirtualThreads.startPinnedMonitor(threshold);
+        }
+    }
+
+    /*线程在用到时才会创建*/
+    private static ThreadPoolExecutor newPlatformExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                ConfigHelper.getAsyncPoolSize(),
+                ConfigHelper.getAsyncPoolSize(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(ConfigHelper.getAsyncQueueSize()),
+                new NamedThreadFactory("webmvc-async"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return 执行Callable和@Async处理器的线程池，没有开启虚拟线程时是ThreadPoolExecutor
+     */
+    public static ExecutorService getExecutor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * @return 是否在虚拟线程中执行
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    /**
+     * @return 是否非阻塞地读请求体和写响应体
+     */
+    public static boolean isAsyncIo() {
+        return ASYNC_IO;
+    }
+
+    /**
+     * @return 异步请求的超时时间(毫秒)
+     */
+    public static long getTimeout() {
+        return TIMEOUT;
+    }
+}
@@ -0,0 +1,117 @@
+package com.webmvc.helper;
+
+import com.webmvc.ConfigConstant;
+import com.webmvc.excepetion.WebMVCException;
+import com.webmvc.util.ClassUtil;
+import com.webmvc.util.ReflectionUtil;
+import com.webmvc.util.threadpool.ArrayBlockingQueue;
+import com.webmvc.util.threadpool.NamedThreadFactory;
+import com.webmvc.util.threadpool.RejectedExecutionHandler;
+import com.webmvc.util.threadpool.ThreadPoolExecutor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulkhead使用的线程池，启动时按配置全部创建好
+ * 每个线程池的配置(webmvc.bulkhead.名字.)：
+ * core_size 核心线程数，必须配置
+ * max_size 最大线程数，默认等于core_size
+ * queue_size 队列长度，默认100
+ * keep_alive 空闲线程的存活时间(秒)，默认60
+ * rejection 饱和策略，abort(默认，返回503)、caller_runs、discard、discard_oldest，
+ *           或RejectedExecutionHandler实现类的类名，被丢弃的请求在异步超时后返回503
+ * Created by sgz
+ * 2026/10/20 15:20
+ */
+public final class BulkheadHelper {
+
+    private static final Map<String, ThreadPoolExecutor> EXECUTORS;
+
+    static {
+        //按名字分组，名字中不能有.
+        Map<String, Map<String, String>> pools = new TreeMap<>();
+        for (Map.Entry<String, String> entry : ConfigHelper.getPropertiesWithPrefix(ConfigConstant.BULKHEAD_PREFIX).entrySet()) {
+            String key = entry.getKey();
+            int dot = key.indexOf('.');
+            if (dot <= 0) {
+                throw new WebMVCException("不正确的线程池配置, " + ConfigConstant.BULKHEAD_PREFIX + key);
+            }
+            String name = key.substring(0, dot);
+            Map<String, String> settings = pools.get(name);
+            if (settings == null) {
+                settings = new LinkedHashMap<>();
+                pools.put(name, settings);
+            }
+            settings.put(key.substring(dot + 1), entry.getValue().trim());
+        }
+        Map<String, ThreadPoolExecutor> executors = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : pools.entrySet()) {
+            executors.put(entry.getKey(), create(entry.getKey(), entry.getValue()));
+        }
+        EXECUTORS = Collections.unmodifiableMap(executors);
+    }
+
+    private static ThreadPoolExecutor create(String name, Map<String, String> settings) {
+        String coreSize = settings.get("core_size");
+        if (coreSize == null) {
+            throw new WebMVCException("线程池" + name + "没有配置core_size");
+        }
+        try {
+            int core = Integer.parseInt(coreSize);
+            int max = settings.containsKey("max_size") ? Integer.parseInt(settings.get("max_size")) : core;
+            int queueSize = settings.containsKey("queue_size") ? Integer.parseInt(settings.get("queue_size")) : 100;
+            long keepAlive = settings.containsKey("keep_alive") ? Long.parseLong(settings.get("keep_alive")) : 60L;
+            return new ThreadPoolExecutor(core, max, keepAlive, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueSize),
+                    new NamedThreadFactory("webmvc-bulkhead-" + name),
+                    rejection(name, settings.get("rejection")));
+        } catch (IllegalArgumentException e) {
+            //包括NumberFormatException和线程数、队列长度不正确
+            throw new WebMVCException("线程池" + name + "的配置不正确, " + settings, e);
+        }
+    }
+
+    private static RejectedExecutionHandler rejection(String name, String rejection) {
+        if (rejection == null || rejection.equals("abort")) {
+            return new ThreadPoolExecutor.AbortPolicy();
+        }
+        switch (rejection) {
+            case "caller_runs":
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case "discard":
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case "discard_oldest":
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            default:
+                Class<?> handlerClass = ClassUtil.loadClass(rejection, true);
+                if (!RejectedExecutionHandler.class.isAssignableFrom(handlerClass)) {
+                    throw new WebMVCException("线程池" + name + "的饱和策略没有实现RejectedExecutionHandler, " + rejection);
+                }
+                return (RejectedExecutionHandler) ReflectionUtil.newInstance(handlerClass);
+        }
+    }
+
+    /**
+     * @return 名字对应的线程池
+     * @throws WebMVCException 没有配置这个线程池
+     */
+    public static ThreadPoolExecutor getExecutor(String name) {
+        ThreadPoolExecutor executor = EXECUTORS.get(name);
+        if (executor == null) {
+            throw new WebMVCException("没有配置线程池" + name + ", 需要在" + ConfigConstant.CONFIG_FILE
+                    + "中配置" + ConfigConstant.BULKHEAD_PREFIX + name + ".core_size");
+        }
+        return executor;
+    }
+
+    /**
+     * @return 所有的线程池，用于监控
+     */
+    public static Map<String, ThreadPoolExecutor> getExecutors() {
+        return EXECUTORS;
+    }
+}
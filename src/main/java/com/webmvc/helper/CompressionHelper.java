@@ -0,0 +1,85 @@
+package com.webmvc.helper;
+
+import com.webmvc.compress.DeflaterPool;
+import com.webmvc.util.HttpUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 响应压缩的配置和Deflater池
+ * 根据Accept-Encoding和响应的媒体类型决定是否压缩，gzip优先于deflate
+ * Created by sgz
+ * 2026/10/19 16:50
+ */
+public final class CompressionHelper {
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    private static final boolean ENABLED = ConfigHelper.isCompressionEnabled();
+
+    private static final int MIN_SIZE = ConfigHelper.getCompressionMinSize();
+
+    private static final Set<String> MIME_TYPES = new HashSet<>();
+
+    private static final DeflaterPool GZIP_POOL;
+
+    private static final DeflaterPool DEFLATE_POOL;
+
+    static {
+        for (String type : ConfigHelper.getCompressionMimeTypes().split(",")) {
+            if (!type.trim().isEmpty()) {
+                MIME_TYPES.add(type.trim().toLowerCase());
+            }
+        }
+        int level = ConfigHelper.getCompressionLevel();
+        int poolSize = ConfigHelper.getCompressionPoolSize();
+        GZIP_POOL = new DeflaterPool(level, true, poolSize);
+        DEFLATE_POOL = new DeflaterPool(level, false, poolSize);
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 选择响应的压缩格式，响应的类型需要压缩时同时设置Vary头
+     * @param contentType 响应的Content-Type
+     * @return gzip、deflate，不压缩时返回null
+     */
+    public static String negotiate(HttpServletRequest req, HttpServletResponse resp, String contentType) {
+        if (!ENABLED || req == null || !MIME_TYPES.contains(HttpUtil.mediaType(contentType))) {
+            return null;
+        }
+        if (resp.containsHeader("Content-Encoding")) {
+            return null;
+        }
+        resp.addHeader("Vary", "Accept-Encoding");
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (HttpUtil.acceptsEncoding(acceptEncoding, GZIP)) {
+            return GZIP;
+        }
+        if (HttpUtil.acceptsEncoding(acceptEncoding, DEFLATE)) {
+            return DEFLATE;
+        }
+        return null;
+    }
+
+    /**
+     * @param encoding gzip或deflate
+     */
+    public static DeflaterPool getPool(String encoding) {
+        return GZIP.equals(encoding) ? GZIP_POOL : DEFLATE_POOL;
+    }
+
+    /**
+     * @return 响应体达到这个字节数才压缩
+     */
+    public static int getMinSize() {
+        return MIN_SIZE;
+    }
+}
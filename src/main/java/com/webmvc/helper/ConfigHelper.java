@@ -1,5 +1,7 @@
 package com.webmvc.helper;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import com.webmvc.ConfigConstant;
@@ -44,6 +46,286 @@ public final class ConfigHelper {
 	public static String getAppAssetPath() {
 		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.APP_ASSET_PATH, "/asset/");
 	}
-	
-	
+
+	/**
+	 * 调用处理器方法的方式
+	 * @return reflect、method_handle 或 generated(默认)
+	 */
+	public static String getHandlerInvoker() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.HANDLER_INVOKER, "generated");
+	}
+
+	/**
+	 * 表单请求体最多允许的字节数，默认2M
+	 */
+	public static long getMaxFormSize() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.MAX_FORM_SIZE, "2097152"));
+	}
+
+	/**
+	 * 请求体最多允许的字节数，默认10M
+	 */
+	public static long getMaxBodySize() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.MAX_BODY_SIZE, "10485760"));
+	}
+
+	/**
+	 * 响应体不超过该大小时先缓冲再一次写出并设置Content-Length，默认32K，为0时不缓冲
+	 */
+	public static int getResponseBufferSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.RESPONSE_BUFFER_SIZE, "32768"));
+	}
+
+	/**
+	 * 是否用ReadListener和WriteListener非阻塞地读请求体和写响应体，默认关闭
+	 */
+	public static boolean isAsyncIo() {
+		return Boolean.parseBoolean(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASYNC_IO, "false"));
+	}
+
+	/**
+	 * 异步处理器的超时时间(毫秒)，默认30秒
+	 */
+	public static long getAsyncTimeout() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASYNC_TIMEOUT, "30000"));
+	}
+
+	/**
+	 * 执行处理器返回的Callable的线程数，默认为CPU核数的两倍
+	 */
+	public static int getAsyncPoolSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASYNC_POOL_SIZE,
+				String.valueOf(Runtime.getRuntime().availableProcessors() * 2)));
+	}
+
+	/**
+	 * 执行Callable的线程池的队列长度，默认1000
+	 */
+	public static int getAsyncQueueSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASYNC_QUEUE_SIZE, "1000"));
+	}
+
+	/**
+	 * JDK 21以上时是否在虚拟线程中执行Callable和@Async的处理器，默认关闭
+	 * 开启后每个任务一个虚拟线程，pool_size和queue_size不再起作用
+	 */
+	public static boolean isAsyncVirtualThreads() {
+		return Boolean.parseBoolean(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASYNC_VIRTUAL_THREADS, "false"));
+	}
+
+	/**
+	 * 虚拟线程被固定在平台线程上超过多少毫秒时记录下来，默认20，小于0时不监听
+	 */
+	public static long getAsyncPinnedThreshold() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASYNC_PINNED_THRESHOLD, "20"));
+	}
+
+	/**
+	 * @return json引擎的实现类，默认使用jackson
+	 */
+	public static String getJsonEngine() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.JSON_ENGINE, "com.webmvc.json.JacksonJsonEngine");
+	}
+
+	/**
+	 * @return webmvc.json.开头的配置，key中去掉了这个前缀
+	 */
+	public static Map<String, String> getJsonSettings() {
+		return getPropertiesWithPrefix(ConfigConstant.JSON_PREFIX);
+	}
+
+	/**
+	 * 取出以prefix开头的所有配置
+	 * @param prefix 前缀
+	 * @return key中去掉了前缀的配置
+	 */
+	public static Map<String, String> getPropertiesWithPrefix(String prefix) {
+		Map<String, String> result = new HashMap<>();
+		for (String name : CONFIG_PROPERTIES.stringPropertyNames()) {
+			if (name.startsWith(prefix)) {
+				result.put(name.substring(prefix.length()), CONFIG_PROPERTIES.getProperty(name));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 处理静态资源的方式
+	 * @return framework 由框架处理，default 交给容器的默认servlet
+	 */
+	public static String getAssetHandler() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASSET_HANDLER, "framework");
+	}
+
+	/**
+	 * 静态资源内存缓存的总字节数，默认16M
+	 */
+	public static long getAssetCacheSize() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASSET_CACHE_SIZE, "16777216"));
+	}
+
+	/**
+	 * 不超过这个字节数的静态资源才放入内存缓存，默认64K
+	 */
+	public static long getAssetCacheFileSize() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASSET_CACHE_FILE_SIZE, "65536"));
+	}
+
+	/**
+	 * 带内容指纹的静态资源的缓存时间(秒)，默认一年
+	 */
+	public static long getAssetMaxAge() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ASSET_MAX_AGE, "31536000"));
+	}
+
+	/**
+	 * 是否压缩响应体，默认true
+	 */
+	public static boolean isCompressionEnabled() {
+		return Boolean.parseBoolean(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.COMPRESSION_ENABLED, "true"));
+	}
+
+	/**
+	 * 压缩级别，1到9，默认6
+	 */
+	public static int getCompressionLevel() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.COMPRESSION_LEVEL, "6"));
+	}
+
+	/**
+	 * 响应体达到这个字节数才压缩，默认1024
+	 */
+	public static int getCompressionMinSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.COMPRESSION_MIN_SIZE, "1024"));
+	}
+
+	/**
+	 * 需要压缩的媒体类型，逗号分隔
+	 */
+	public static String getCompressionMimeTypes() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.COMPRESSION_MIME_TYPES,
+				"text/html,text/plain,text/css,text/xml,application/json,application/javascript,application/xml");
+	}
+
+	/**
+	 * 每种压缩格式最多保留的Deflater数，默认cpu数的2倍
+	 */
+	public static int getCompressionPoolSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.COMPRESSION_POOL_SIZE,
+				String.valueOf(Runtime.getRuntime().availableProcessors() * 2)));
+	}
+
+	/**
+	 * GET请求是否计算ETag并处理If-None-Match，默认true
+	 */
+	public static boolean isETagEnabled() {
+		return Boolean.parseBoolean(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ETAG_ENABLED, "true"));
+	}
+
+	/**
+	 * jsp渲染的结果是否也计算ETag，默认false
+	 */
+	public static boolean isViewETagEnabled() {
+		return Boolean.parseBoolean(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ETAG_VIEWS, "false"));
+	}
+
+	/**
+	 * CacheResponse响应缓存的总字节数，默认32M
+	 */
+	public static long getResponseCacheSize() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.RESPONSE_CACHE_SIZE, "33554432"));
+	}
+
+	/**
+	 * 缓存多少个最近没有匹配到路由的路径，默认1024，为0时不缓存
+	 */
+	public static int getRouterNotFoundCacheSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.ROUTER_NOT_FOUND_CACHE_SIZE, "1024"));
+	}
+
+	/**
+	 * 是否统计每个处理器的请求数和延迟，默认true
+	 */
+	public static boolean isMetricsEnabled() {
+		return Boolean.parseBoolean(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.METRICS_ENABLED, "true"));
+	}
+
+	/**
+	 * 以Prometheus文本格式导出统计的路径，如/metrics，默认不导出
+	 */
+	public static String getMetricsPath() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.METRICS_PATH, "");
+	}
+
+	/**
+	 * 以这个后缀结尾的视图名由模板引擎渲染，默认.tpl
+	 */
+	public static String getTemplateSuffix() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.TEMPLATE_SUFFIX, ".tpl");
+	}
+
+	/**
+	 * 模板视图的Content-Type，默认text/html;charset=UTF-8
+	 */
+	public static String getTemplateContentType() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.TEMPLATE_CONTENT_TYPE, "text/html;charset=UTF-8");
+	}
+
+	/**
+	 * 内嵌服务器监听的地址，默认监听所有地址
+	 */
+	public static String getServerHost() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_HOST, "0.0.0.0");
+	}
+
+	/**
+	 * 内嵌服务器监听的端口，默认8080，为0时随机选择
+	 */
+	public static int getServerPort() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_PORT, "8080"));
+	}
+
+	/**
+	 * 内嵌服务器的web根目录，静态资源和视图从这里读取，默认src/main/webapp
+	 */
+	public static String getServerDocumentRoot() {
+		return PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_DOCUMENT_ROOT, "src/main/webapp");
+	}
+
+	/**
+	 * 内嵌服务器处理请求的线程数，默认为CPU核数的两倍
+	 */
+	public static int getServerWorkerThreads() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_WORKER_THREADS,
+				String.valueOf(Runtime.getRuntime().availableProcessors() * 2)));
+	}
+
+	/**
+	 * 内嵌服务器等待处理的请求数，超过时返回503，默认1000
+	 */
+	public static int getServerQueueSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_QUEUE_SIZE, "1000"));
+	}
+
+	/**
+	 * JDK 21以上时内嵌服务器是否每个请求一个虚拟线程，默认关闭
+	 * 开启后worker_threads和queue_size不再起作用
+	 */
+	public static boolean isServerVirtualThreads() {
+		return Boolean.parseBoolean(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_VIRTUAL_THREADS, "false"));
+	}
+
+	/**
+	 * 内嵌服务器保持空闲连接的时间(毫秒)，也是读写的超时时间，默认60秒
+	 */
+	public static long getServerKeepAliveTimeout() {
+		return Long.parseLong(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_KEEP_ALIVE_TIMEOUT, "60000"));
+	}
+
+	/**
+	 * 请求行和请求头最多允许的字节数，默认8K
+	 */
+	public static int getServerMaxHeaderSize() {
+		return Integer.parseInt(PropertiesUtil.getPropertiesValue(CONFIG_PROPERTIES, ConfigConstant.SERVER_MAX_HEADER_SIZE, "8192"));
+	}
 }
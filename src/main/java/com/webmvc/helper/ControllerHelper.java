@@ -1,42 +1,69 @@
 package com.webmvc.helper;
 
+import com.webmvc.annotation.Async;
+import com.webmvc.annotation.Bulkhead;
+import com.webmvc.annotation.CacheResponse;
+import com.webmvc.annotation.ConcurrencyLimit;
+import com.webmvc.annotation.ETagVersion;
+import com.webmvc.annotation.PathVariable;
+import com.webmvc.annotation.RequestBody;
 import com.webmvc.annotation.RequestMapping;
+import com.webmvc.annotation.RequestParam;
 import com.webmvc.bean.Handler;
-import com.webmvc.bean.Request;
 import com.webmvc.enums.RequestMethod;
+import com.webmvc.excepetion.WebMVCException;
+import com.webmvc.invoke.HandlerInvoker;
+import com.webmvc.invoke.HandlerInvokers;
+import com.webmvc.limit.ConcurrencyLimiter;
+import com.webmvc.limit.ConcurrencyLimiters;
+import com.webmvc.resolver.ConstantResolver;
+import com.webmvc.resolver.HandlerArgumentResolver;
+import com.webmvc.resolver.PathVariableResolver;
+import com.webmvc.resolver.RequestBodyResolver;
+import com.webmvc.resolver.RequestParamResolver;
+import com.webmvc.resolver.ServletArgumentResolver;
+import com.webmvc.router.NotFoundCache;
+import com.webmvc.router.Route;
+import com.webmvc.router.Router;
 import com.webmvc.util.ArrayUtil;
 import com.webmvc.util.CollectionUtil;
+import com.webmvc.util.ReflectionUtil;
+import com.webmvc.util.StringUtil;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Created by A550V
  * 2018/2/26 19:47
  */
 public final class ControllerHelper {
-    private static final Map<Request, Handler> REQUEST_MAP = new HashMap<>();
-
-    private static final Map<String, List<Field>> REQUEST_AND_RESPONSE_FILEDS = new HashMap<>();
+    /*启动时根据RequestMapping构建的路由树*/
+    private static final Router ROUTER = new Router(ConfigHelper.getRouterNotFoundCacheSize());
 
     static {
         Set<Class<?>> controllerClassSet = ClassHelper.getControllerClassSet();
         if (CollectionUtil.isNotEmpty(controllerClassSet)) {
-            List<Field> req = new ArrayList<>();
-            List<Field> resp = new ArrayList<>();
-            /*遍历包含controller注解的类，将HttpServletRequest和HttpServletResponse的域添加到集合中*/
+            /*遍历包含controller注解的类，给HttpServletRequest和HttpServletResponse的域注入代理对象*/
             for (Class<?> controllerClass : controllerClassSet) {
                 if (controllerClass.isAnnotationPresent(RequestMapping.class)) {
+                    //controller对象，AOP代理后的对象也在bean容器中
+                    Object controllerBean = getControllerBean(controllerClass);
+
                     Field[] fields =  controllerClass.getDeclaredFields();
                     for (Field field : fields) {
                         if (field.getType() == HttpServletRequest.class) {
-                            req.add(field);
+                            ReflectionUtil.setFiled(controllerBean, field, RequestContextHelper.getRequestProxy());
                         }
                         if (field.getType() == HttpServletResponse.class) {
-                            resp.add(field);
+                            ReflectionUtil.setFiled(controllerBean, field, RequestContextHelper.getResponseProxy());
                         }
                     }
 
@@ -46,6 +73,12 @@ public final class ControllerHelper {
                     RequestMethod[] baseMethods = requestMapping.method();
                     String[] baseValues = requestMapping.value();
 
+                    //controller上的并发限制由所有处理器共用
+                    ConcurrencyLimit classLimit = controllerClass.getAnnotation(ConcurrencyLimit.class);
+                    ConcurrencyLimiter classLimiter = classLimit == null ? null
+                            : ConcurrencyLimiters.getOrCreate(classLimit, controllerClass.getName());
+                    Bulkhead classBulkhead = controllerClass.getAnnotation(Bulkhead.class);
+
                     Method[] allMethods = controllerClass.getMethods();
                     for (Method requestMethod : allMethods) {
                         //找出包含RequestMapping注解的方法
@@ -54,6 +87,15 @@ public final class ControllerHelper {
                             //方法上面的RequestMapping注解
                             RequestMethod[] method = methodMapping.method();
                             String[] values = methodMapping.value();
+                            //每个方法只生成一次参数解析器
+                            HandlerArgumentResolver[] argumentResolvers = compileArgumentResolvers(requestMethod);
+                            HandlerInvoker invoker = HandlerInvokers.create(controllerBean, requestMethod);
+                            checkCacheResponse(requestMethod);
+                            ConcurrencyLimit methodLimit = requestMethod.getAnnotation(ConcurrencyLimit.class);
+                            ConcurrencyLimiter limiter = methodLimit == null ? classLimiter
+                                    : ConcurrencyLimiters.getOrCreate(methodLimit, controllerClass.getName() + "." + requestMethod.getName());
+                            ExecutorService executor = resolveExecutor(controllerClass, requestMethod, classBulkhead);
+                            Handler versionHandler = compileVersionHandler(controllerClass, controllerBean, requestMethod);
                             for (String baseValue : baseValues) {
                                 for (String value : values) {
                                     //将类上的请求路径和方法上的请求路径拼接起来
@@ -61,6 +103,10 @@ public final class ControllerHelper {
                                         baseValue = "";
                                     }
                                     String requestPath  = baseValue + value;
+                                    checkPathVariables(requestPath, requestMethod);
+                                    if (versionHandler != null) {
+                                        checkPathVariables(requestPath, versionHandler.getMappingMethod());
+                                    }
                                     RequestMethod[] requestMethods;
                                     if (ArrayUtil.isNotEmpty(method)) {
                                         //如果方法上的不为空，则以方法上的注解
@@ -72,45 +118,165 @@ public final class ControllerHelper {
                                         //如果都为空，则默认全部
                                         requestMethods = RequestMethod.getAll();
                                     }
-                                    Request request = new Request(requestPath);
-                                    Handler handler = new Handler(controllerClass, requestMethod, requestMethods);
-                                    REQUEST_MAP.put(request, handler);
+                                    Handler handler = new Handler(controllerClass, requestMethod, requestMethods, argumentResolvers, invoker);
+                                    handler.setVersionHandler(versionHandler);
+                                    handler.setLimiter(limiter);
+                                    handler.setExecutor(executor);
+                                    handler.setMetrics(MetricsHelper.register(requestPath, requestMethods, requestMethod));
+                                    ROUTER.addRoute(requestPath, requestMethods, handler);
                                 }
                             }
                         }
                     }
                 }
             }
-            /*将HttpServletRequest和HttpServletResponse存起来等待取到值后注入*/
-            REQUEST_AND_RESPONSE_FILEDS.put("request", req);
-            REQUEST_AND_RESPONSE_FILEDS.put("response", resp);
         }
     }
 
     /**
-     * 根据请求路径和方法找到要映射到的类和方法
-     * @param requestMethod 请求的方法类型(如get,post)
-     * @param requestPath 请求路径
-     * @return 包含类和方法的Handler
+     * 从bean容器中取出controller对象
+     * 先按类名查找，找不到时(如指定了名字或实现了接口)再按类型查找
+     */
+    private static Object getControllerBean(Class<?> controllerClass) {
+        Map<String, Object> beanMap = BeanHelper.getBeanMap();
+        Object bean = beanMap.get(controllerClass.getName());
+        if (bean != null) {
+            return bean;
+        }
+        for (Object o : beanMap.values()) {
+            if (controllerClass.isInstance(o)) {
+                return o;
+            }
+        }
+        throw new WebMVCException("没有找到controller: " + controllerClass.getName());
+    }
+
+    /**
+     * Bulkhead指定的线程池或者Async使用的AsyncHelper的线程池，方法上的优先
+     * @return 都没有时返回null，在容器的线程上执行
+     */
+    private static ExecutorService resolveExecutor(Class<?> controllerClass, Method method, Bulkhead classBulkhead) {
+        Bulkhead bulkhead = method.isAnnotationPresent(Bulkhead.class) ? method.getAnnotation(Bulkhead.class) : classBulkhead;
+        boolean async = method.isAnnotationPresent(Async.class) || controllerClass.isAnnotationPresent(Async.class);
+        if (bulkhead != null && async) {
+            throw new WebMVCException("Bulkhead和Async不能一起使用, " + method);
+        }
+        if (bulkhead != null) {
+            return BulkheadHelper.getExecutor(bulkhead.value());
+        }
+        return async ? AsyncHelper.getExecutor() : null;
+    }
+
+    /**
+     * 带CacheResponse注解的处理器要同步返回结果，缓存的是渲染好的响应体
      */
-    public static Handler getHandler(String requestMethod, String requestPath) {
-        Request request = new Request(requestPath);
-        Handler handler = REQUEST_MAP.get(request);
-        RequestMethod[] supportiveMethods = handler.getRequestMethods();
-        for (RequestMethod supportiveMethod : supportiveMethods) {
-            if (supportiveMethod.name().equalsIgnoreCase(requestMethod)) {
-                return handler;
+    private static void checkCacheResponse(Method method) {
+        if (method.isAnnotationPresent(CacheResponse.class)) {
+            Class<?> returnType = method.getReturnType();
+            if (CompletionStage.class.isAssignableFrom(returnType) || Callable.class.isAssignableFrom(returnType)) {
+                throw new WebMVCException("CacheResponse不支持异步的处理器, " + method);
+            }
+        }
+    }
+
+    /**
+     * 找到ETagVersion指定的方法，生成调用它的Handler
+     * @return 没有ETagVersion注解时返回null
+     */
+    private static Handler compileVersionHandler(Class<?> controllerClass, Object controllerBean, Method method) {
+        ETagVersion eTagVersion = method.getAnnotation(ETagVersion.class);
+        if (eTagVersion == null) {
+            return null;
+        }
+        Method versionMethod = null;
+        for (Method candidate : controllerClass.getMethods()) {
+            if (candidate.getName().equals(eTagVersion.value())) {
+                if (versionMethod != null) {
+                    throw new WebMVCException(controllerClass.getName() + "中有多个" + eTagVersion.value() + "方法");
+                }
+                versionMethod = candidate;
             }
         }
-        return null;
+        if (versionMethod == null || versionMethod.getReturnType() == void.class) {
+            throw new WebMVCException(controllerClass.getName() + "中没有返回版本号的public方法" + eTagVersion.value());
+        }
+        return new Handler(controllerClass, versionMethod, new RequestMethod[0],
+                compileArgumentResolvers(versionMethod), HandlerInvokers.create(controllerBean, versionMethod));
+    }
+
+    /**
+     * 为方法的每个参数生成解析器
+     * 带RequestParam、PathVariable或RequestBody注解的参数按注解解析，
+     * HttpServletRequest、HttpServletResponse、Param直接注入，其它参数为null或零值
+     * @param method 处理请求的方法
+     * @return 和参数一一对应的解析器
+     */
+    private static HandlerArgumentResolver[] compileArgumentResolvers(Method method) {
+        Parameter[] parameters = method.getParameters();
+        HandlerArgumentResolver[] resolvers = new HandlerArgumentResolver[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter p = parameters[i];
+            Class<?> type = p.getType();
+            if (p.isAnnotationPresent(RequestParam.class)) {
+                RequestParam requestParam = p.getAnnotation(RequestParam.class);
+                resolvers[i] = new RequestParamResolver(parameterName(method, p, requestParam.value()), requestParam, type);
+            } else if (p.isAnnotationPresent(PathVariable.class)) {
+                resolvers[i] = new PathVariableResolver(parameterName(method, p, p.getAnnotation(PathVariable.class).value()), type);
+            } else if (p.isAnnotationPresent(RequestBody.class)) {
+                boolean required = p.getAnnotation(RequestBody.class).required();
+                resolvers[i] = new RequestBodyResolver(p.getParameterizedType(), required, ConfigHelper.getMaxBodySize());
+            } else if (ServletArgumentResolver.of(type) != null) {
+                resolvers[i] = ServletArgumentResolver.of(type);
+            } else {
+                resolvers[i] = new ConstantResolver(ConvertHelp.defaultValue(type));
+            }
+        }
+        return resolvers;
+    }
+
+    /**
+     * 注解没有指定名字时使用参数名
+     * 编译时没有加-parameters，参数名是arg0、arg1，按它解析每次都是null，所以启动时直接报错
+     */
+    private static String parameterName(Method method, Parameter p, String value) {
+        if (!StringUtil.isEmpty(value)) {
+            return value;
+        }
+        if (!p.isNamePresent()) {
+            throw new WebMVCException("参数" + p.getName() + "的注解没有指定名字，编译时没有加-parameters不能使用参数名，方法为:" + method);
+        }
+        return p.getName();
+    }
+
+    /**
+     * PathVariable的名字必须出现在路由的路径中，否则每次请求都解析不到
+     */
+    private static void checkPathVariables(String requestPath, Method method) {
+        for (Parameter p : method.getParameters()) {
+            PathVariable pathVariable = p.getAnnotation(PathVariable.class);
+            if (pathVariable != null) {
+                String name = parameterName(method, p, pathVariable.value());
+                if (!requestPath.contains("{" + name + "}")) {
+                    throw new WebMVCException("路径" + requestPath + "中没有路径变量{" + name + "}，方法为:" + method);
+                }
+            }
+        }
+    }
+
+    /**
+     * 根据请求路径找到路由，再由Route.getHandler(RequestMethod)按请求方法取出Handler
+     * 整个查找过程不创建对象
+     * @param requestPath 请求路径
+     * @return 匹配到的路由，没有找到时返回Route.NOT_FOUND
+     */
+    public static Route getRoute(String requestPath) {
+        return ROUTER.match(requestPath);
     }
 
     /**
-     * @return Controller中HttpServletRequest和HttpServletResponse的域
-     * HttpServletRequest的key为request
-     * HttpServletResponse的key为response
+     * @return 没有匹配到的路径的缓存，不缓存时返回null
      */
-    public static Map<String, List<Field>> getRequestAndResponseFileds() {
-        return REQUEST_AND_RESPONSE_FILEDS;
+    public static NotFoundCache getNotFoundCache() {
+        return ROUTER.getNotFoundCache();
     }
 }
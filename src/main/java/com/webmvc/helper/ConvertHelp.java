@@ -9,28 +9,112 @@ package com.webmvc.helper;
 public class ConvertHelp {
 
     /**
-     * 将未知类型转化为基本类型
-     * @param o 要转化的对象
-     * @param clazz 要转化成的类型
-     * @return 转化好的结果
+     * 把请求中的字符串转换为参数类型
      */
-    public static  Object convert(String o, Class<?> clazz) {
+    public interface Converter {
+        Object convert(String value);
+    }
 
+    private static final Converter INTEGER = new Converter() {
+        @Override
+        public Object convert(String value) {
+            return Integer.valueOf(value);
+        }
+    };
+    private static final Converter DOUBLE = new Converter() {
+        @Override
+        public Object convert(String value) {
+            return Double.valueOf(value);
+        }
+    };
+    private static final Converter LONG = new Converter() {
+        @Override
+        public Object convert(String value) {
+            return Long.valueOf(value);
+        }
+    };
+    private static final Converter FLOAT = new Converter() {
+        @Override
+        public Object convert(String value) {
+            return Float.valueOf(value);
+        }
+    };
+    private static final Converter BOOLEAN = new Converter() {
+        @Override
+        public Object convert(String value) {
+            return Boolean.valueOf(value);
+        }
+    };
+    private static final Converter STRING = new Converter() {
+        @Override
+        public Object convert(String value) {
+            return value;
+        }
+    };
+
+    /**
+     * 根据类型取得转换器，在启动时调用一次，请求时不再判断类型
+     * @param clazz 要转化成的类型
+     * @return 转换器
+     */
+    public static Converter getConverter(Class<?> clazz) {
         if (clazz == Integer.class || clazz == int.class) {
-            return Integer.parseInt(o);
+            return INTEGER;
         }
         if (clazz == Double.class || clazz == double.class) {
-            return Double.valueOf(o);
+            return DOUBLE;
         }
         if (clazz == Long.class || clazz == long.class) {
-            return Long.valueOf(o);
+            return LONG;
         }
         if (clazz == Float.class || clazz == float.class) {
-            return Float.valueOf(o);
+            return FLOAT;
         }
         if (clazz == Boolean.class || clazz == boolean.class) {
-            return Boolean.valueOf(o);
+            return BOOLEAN;
+        }
+        return STRING;
+    }
+
+    /**
+     * 将未知类型转化为基本类型
+     * @param o 要转化的对象
+     * @param clazz 要转化成的类型
+     * @return 转化好的结果
+     */
+    public static  Object convert(String o, Class<?> clazz) {
+        return getConverter(clazz).convert(o);
+    }
+
+    /**
+     * @param clazz 参数类型
+     * @return 基本类型的默认值，其它类型返回null
+     */
+    public static Object defaultValue(Class<?> clazz) {
+        if (clazz == int.class) {
+            return 0;
+        }
+        if (clazz == long.class) {
+            return 0L;
+        }
+        if (clazz == double.class) {
+            return 0D;
+        }
+        if (clazz == float.class) {
+            return 0F;
+        }
+        if (clazz == boolean.class) {
+            return false;
+        }
+        if (clazz == short.class) {
+            return (short) 0;
+        }
+        if (clazz == byte.class) {
+            return (byte) 0;
+        }
+        if (clazz == char.class) {
+            return '\0';
         }
-        return o;
+        return null;
     }
 }
@@ -0,0 +1,124 @@
+package com.webmvc.helper;
+
+import com.webmvc.util.HashUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 生成ETag并处理If-None-Match
+ * ETag是响应体(压缩前)的xxHash64，压缩的响应在后面加上压缩格式；
+ * 比较If-None-Match时按http的弱比较，忽略W/前缀和压缩格式
+ * Created by sgz
+ * 2026/10/19 19:30
+ */
+public final class ETagHelper {
+
+    private static final boolean ENABLED = ConfigHelper.isETagEnabled();
+
+    private static final boolean VIEW_ENABLED = ConfigHelper.isViewETagEnabled();
+
+    /**
+     * @return 这个请求是否需要ETag，只有GET和HEAD需要
+     */
+    public static boolean isEnabled(HttpServletRequest req) {
+        if (!ENABLED) {
+            return false;
+        }
+        String method = req.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * @return jsp渲染的结果是否也计算ETag，需要先缓冲整个响应体
+     */
+    public static boolean isViewEnabled() {
+        return VIEW_ENABLED;
+    }
+
+    /**
+     * @param encoding 压缩格式，不压缩时为null
+     */
+    public static String etag(byte[] body, int off, int len, String encoding) {
+        return etag(HashUtil.xxHash64(body, off, len), encoding);
+    }
+
+    /**
+     * @param hash 已经计算好的响应体的xxHash64
+     * @param encoding 压缩格式，不压缩时为null
+     */
+    public static String etag(long hash, String encoding) {
+        String hex = HashUtil.toHex(hash);
+        return encoding == null ? "\"" + hex + "\"" : "\"" + hex + "-" + encoding + "\"";
+    }
+
+    /**
+     * ETagVersion方法返回的版本号对应的ETag
+     */
+    public static String versionETag(Object version) {
+        byte[] bytes = version.toString().getBytes(StandardCharsets.UTF_8);
+        return "\"v" + HashUtil.toHex(HashUtil.xxHash64(bytes, 0, bytes.length)) + "\"";
+    }
+
+    /**
+     * 设置ETag头，和If-None-Match一致时设置304
+     * @return 是否返回了304，为true时不能再写响应体
+     */
+    public static boolean notModified(HttpServletRequest req, HttpServletResponse resp, String etag) {
+        resp.setHeader("ETag", etag);
+        if (matches(req.getHeader("If-None-Match"), etag)) {
+            resp.setStatus(304);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 弱比较，If-None-Match中有一个和etag一致就算一致
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaque(etag, 0, etag.length());
+        int start = 0;
+        int length = ifNoneMatch.length();
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            String tag = opaque(ifNoneMatch, start, end);
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * 去掉W/前缀、引号和压缩格式
+     */
+    private static String opaque(String s, int start, int end) {
+        while (start < end && s.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (s.startsWith("W/", start)) {
+            start += 2;
+        }
+        if (end - start >= 2 && s.charAt(start) == '"' && s.charAt(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        int dash = s.indexOf('-', start);
+        if (dash >= 0 && dash < end) {
+            end = dash;
+        }
+        return s.substring(start, end);
+    }
+}
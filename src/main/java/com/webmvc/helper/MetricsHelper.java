@@ -0,0 +1,67 @@
+package com.webmvc.helper;
+
+import com.webmvc.enums.RequestMethod;
+import com.webmvc.metrics.HandlerMetrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 保存所有处理器的HandlerMetrics，启动时注册，之后可以按路由查询
+ * webmvc.metrics.enabled为false时不记录
+ * Created by sgz
+ * 2026/10/20 20:05
+ */
+public final class MetricsHelper {
+
+    private static final boolean ENABLED = ConfigHelper.isMetricsEnabled();
+
+    private static final List<HandlerMetrics> METRICS = new ArrayList<>();
+
+    /**
+     * 注册一个处理器
+     * @return 没有开启时返回null
+     */
+    public static synchronized HandlerMetrics register(String route, RequestMethod[] requestMethods, Method method) {
+        if (!ENABLED) {
+            return null;
+        }
+        StringBuilder methods = new StringBuilder();
+        for (RequestMethod requestMethod : requestMethods) {
+            if (methods.length() > 0) {
+                methods.append(',');
+            }
+            methods.append(requestMethod.name());
+        }
+        HandlerMetrics metrics = new HandlerMetrics(route, methods.toString(),
+                method.getDeclaringClass().getName() + "." + method.getName());
+        METRICS.add(metrics);
+        return metrics;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return 所有处理器的统计
+     */
+    public static synchronized List<HandlerMetrics> getAll() {
+        return new ArrayList<>(METRICS);
+    }
+
+    /**
+     * @param route 注册时的路由，如/user/{id}
+     * @return 这个路由上所有处理器的统计，不同的请求方法可能对应不同的处理器
+     */
+    public static synchronized List<HandlerMetrics> find(String route) {
+        List<HandlerMetrics> result = new ArrayList<>(1);
+        for (HandlerMetrics metrics : METRICS) {
+            if (metrics.getRoute().equals(route)) {
+                result.add(metrics);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+package com.webmvc.helper;
+
+import com.webmvc.excepetion.WebMVCException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 把当前线程正在处理的HttpServletRequest和HttpServletResponse绑定到线程上
+ * controller中的HttpServletRequest和HttpServletResponse域在启动时注入一次代理对象，
+ * 代理对象调用方法时再转给当前线程绑定的请求，这样单例的controller在并发下也是安全的
+ * Created by sgz
+ * 2026/10/18 17:03
+ */
+public final class RequestContextHelper {
+
+    /**
+     * 每个线程一个，复用同一个对象，绑定和清除只是修改字段
+     */
+    private static final class Context {
+        HttpServletRequest request;
+        HttpServletResponse response;
+    }
+
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
+    private static final HttpServletRequest REQUEST_PROXY = (HttpServletRequest) Proxy.newProxyInstance(
+            RequestContextHelper.class.getClassLoader(),
+            new Class<?>[]{HttpServletRequest.class},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    return delegate(proxy, getRequest(), method, args);
+                }
+            });
+
+    private static final HttpServletResponse RESPONSE_PROXY = (HttpServletResponse) Proxy.newProxyInstance(
+            RequestContextHelper.class.getClassLoader(),
+            new Class<?>[]{HttpServletResponse.class},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    return delegate(proxy, getResponse(), method, args);
+                }
+            });
+
+    private static Object delegate(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            //equals、hashCode、toString作用在代理对象本身上
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            return "当前线程的" + proxy.getClass().getInterfaces()[0].getSimpleName();
+        }
+        if (target == null) {
+            throw new WebMVCException("当前线程没有绑定请求，不能调用" + method.getName());
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 之前绑定在线程上的请求和响应，恢复时放回去
+     * 同一个线程上会嵌套绑定：Servlet容器在请求线程上调用异步的回调、线程池满了在当前线程上执行任务、
+     * 刷新缓存时绑定另一个响应，直接清除会让外层的请求丢失绑定，所以结束时恢复成绑定之前的样子
+     */
+    public static final class Binding {
+
+        /*之前没有绑定时共用，不用每次创建*/
+        private static final Binding EMPTY = new Binding(null, null);
+
+        private final HttpServletRequest request;
+
+        private final HttpServletResponse response;
+
+        private Binding(HttpServletRequest request, HttpServletResponse response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        /**
+         * 恢复绑定之前的请求和响应，必须在调用bind的线程上调用
+         */
+        public void restore() {
+            Context context = CONTEXT.get();
+            context.request = request;
+            context.response = response;
+        }
+    }
+
+    /**
+     * 请求开始时绑定到当前线程
+     * @return 绑定之前的请求和响应，结束时调用restore恢复
+     */
+    public static Binding bind(HttpServletRequest request, HttpServletResponse response) {
+        Context context = CONTEXT.get();
+        Binding previous = context.request == null && context.response == null
+                ? Binding.EMPTY : new Binding(context.request, context.response);
+        context.request = request;
+        context.response = response;
+        return previous;
+    }
+
+    /**
+     * 清除当前线程的绑定，避免线程池中的线程持有已经结束的请求
+     * 嵌套绑定时用bind返回的Binding恢复，不要直接清除
+     */
+    public static void clear() {
+        Context context = CONTEXT.get();
+        context.request = null;
+        context.response = null;
+    }
+
+    /**
+     * @return 当前线程绑定的请求，没有时返回null
+     */
+    public static HttpServletRequest getRequest() {
+        return CONTEXT.get().request;
+    }
+
+    /**
+     * @return 当前线程绑定的响应，没有时返回null
+     */
+    public static HttpServletResponse getResponse() {
+        return CONTEXT.get().response;
+    }
+
+    /**
+     * @return 转给当前线程请求的代理对象
+     */
+    public static HttpServletRequest getRequestProxy() {
+        return REQUEST_PROXY;
+    }
+
+    /**
+     * @return 转给当前线程响应的代理对象
+     */
+    public static HttpServletResponse getResponseProxy() {
+        return RESPONSE_PROXY;
+    }
+}
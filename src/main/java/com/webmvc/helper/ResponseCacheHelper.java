@@ -0,0 +1,17 @@
+package com.webmvc.helper;
+
+import com.webmvc.cache.ResponseCache;
+
+/**
+ * 持有CacheResponse处理器共用的响应缓存
+ * Created by sgz
+ * 2026/10/19 21:30
+ */
+public final class ResponseCacheHelper {
+
+    private static final ResponseCache CACHE = new ResponseCache(ConfigHelper.getResponseCacheSize());
+
+    public static ResponseCache getCache() {
+        return CACHE;
+    }
+}
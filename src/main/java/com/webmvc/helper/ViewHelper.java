@@ -0,0 +1,33 @@
+package com.webmvc.helper;
+
+import com.webmvc.view.ViewResolver;
+
+import javax.servlet.ServletContext;
+
+/**
+ * 持有解析视图的ViewResolver，在DispatcherServlet初始化时创建并预先解析jsp目录下的视图
+ * Created by sgz
+ * 2026/10/21 16:00
+ */
+public final class ViewHelper {
+
+    private static volatile ViewResolver resolver;
+
+    /**
+     * @return 预先解析的视图个数
+     */
+    public static int init(ServletContext servletContext) {
+        ViewResolver viewResolver = new ViewResolver(servletContext, ConfigHelper.getAppJspPath(),
+                ConfigHelper.getTemplateSuffix());
+        int count = viewResolver.preload();
+        resolver = viewResolver;
+        return count;
+    }
+
+    /**
+     * @return DispatcherServlet初始化之前返回null
+     */
+    public static ViewResolver getResolver() {
+        return resolver;
+    }
+}
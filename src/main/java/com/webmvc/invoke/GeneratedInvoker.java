@@ -0,0 +1,39 @@
+package com.webmvc.invoke;
+
+import com.webmvc.excepetion.WebMVCException;
+
+import java.lang.reflect.Method;
+
+/**
+ * InvokerGenerator为每个处理器方法生成的调用器的父类
+ * 生成的子类在doInvoke中直接调用controller的方法，调用点是普通的invokevirtual，JIT可以把处理器方法内联进来；
+ * 这里只负责把异常转换成WebMVCException
+ * Created by sgz
+ * 2026/10/25 14:10
+ */
+public abstract class GeneratedInvoker implements HandlerInvoker {
+
+    private final Method method;
+
+    protected GeneratedInvoker(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * 由生成的子类实现：展开参数、拆箱，直接调用方法并把结果装箱
+     */
+    protected abstract Object doInvoke(Object[] args) throws Throwable;
+
+    @Override
+    public final Object invoke(Object[] args) {
+        try {
+            return doInvoke(args);
+        } catch (WebMVCException | Error e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WebMVCException("调用方法时出错,方法为:" + method, e);
+        } catch (Throwable e) {
+            throw new WebMVCException("调用方法时出错,方法为:" + method, new Exception(e));
+        }
+    }
+}
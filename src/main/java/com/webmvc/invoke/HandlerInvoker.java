@@ -0,0 +1,15 @@
+package com.webmvc.invoke;
+
+/**
+ * 调用处理器方法，启动时已经和controller对象绑定
+ * Created by sgz
+ * 2026/10/18 16:02
+ */
+public interface HandlerInvoker {
+
+    /**
+     * @param args 方法的参数
+     * @return 方法执行的结果
+     */
+    Object invoke(Object[] args);
+}
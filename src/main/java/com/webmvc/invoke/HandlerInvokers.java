@@ -0,0 +1,40 @@
+package com.webmvc.invoke;
+
+import com.webmvc.helper.ConfigHelper;
+
+import java.lang.reflect.Method;
+
+/**
+ * 根据配置webmvc.handler_invoker生成调用器
+ * reflect 使用反射，method_handle 使用MethodHandle，
+ * generated(默认) 为每个方法生成直接调用的类，方法或参数类型不是public时退回到MethodHandle
+ * Created by sgz
+ * 2026/10/18 16:20
+ */
+public final class HandlerInvokers {
+
+    public static final String REFLECT = "reflect";
+
+    public static final String METHOD_HANDLE = "method_handle";
+
+    public static final String GENERATED = "generated";
+
+    /**
+     * @param target 方法所在的对象
+     * @param method 要被执行的方法
+     * @return 绑定好对象的调用器
+     */
+    public static HandlerInvoker create(Object target, Method method) {
+        String type = ConfigHelper.getHandlerInvoker();
+        if (REFLECT.equalsIgnoreCase(type)) {
+            return new ReflectiveInvoker(target, method);
+        }
+        if (GENERATED.equalsIgnoreCase(type)) {
+            HandlerInvoker invoker = InvokerGenerator.create(target, method);
+            if (invoker != null) {
+                return invoker;
+            }
+        }
+        return new MethodHandleInvoker(target, method);
+    }
+}
@@ -0,0 +1,191 @@
+package com.webmvc.invoke;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 为每个处理器方法生成一个GeneratedInvoker的子类，相当于手写的：
+ * <pre>
+ * protected Object doInvoke(Object[] args) {
+ *     return Long.valueOf(target.user((String) args[0], ((Integer) args[1]).intValue()));
+ * }
+ * </pre>
+ * controller保存在生成类自己的final字段中，调用点只有一个目标方法，不经过反射和MethodHandle，JIT可以直接内联；
+ * 字节码用cglib依赖的ASM生成，每个类由单独的类加载器定义，父加载器是controller的类加载器
+ * 生成的类在另一个类加载器中，只能访问public的类和方法，其他情况返回null，由调用方退回到MethodHandle
+ * Created by sgz
+ * 2026/10/25 14:20
+ */
+final class InvokerGenerator implements Opcodes {
+
+    private static final String SUPER_NAME = Type.getInternalName(GeneratedInvoker.class);
+
+    private static final String CONSTRUCTOR_DESC = "(Ljava/lang/Object;Ljava/lang/reflect/Method;)V";
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private InvokerGenerator() {
+    }
+
+    /**
+     * @param target 方法所在的对象，静态方法时不使用
+     * @param method 要被执行的方法
+     * @return 生成的调用器，方法或参数类型不是public、生成失败时返回null
+     */
+    static HandlerInvoker create(Object target, Method method) {
+        if (!isAccessible(method)) {
+            return null;
+        }
+        Class<?> declaringClass = method.getDeclaringClass();
+        String name = declaringClass.getName() + "$$WebMVCInvoker$$" + method.getName() + "$$" + COUNTER.incrementAndGet();
+        ClassLoader parent = declaringClass.getClassLoader() != null
+                ? declaringClass.getClassLoader() : InvokerGenerator.class.getClassLoader();
+        try {
+            Class<?> invokerClass = new InvokerClassLoader(parent).define(name, generate(name.replace('.', '/'), method));
+            return (HandlerInvoker) invokerClass.getConstructor(Object.class, Method.class).newInstance(target, method);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            //比如controller的类加载器看不到框架的类
+            System.err.println("生成调用器时出错, 使用MethodHandle, 方法为:" + method + ", " + e);
+            return null;
+        }
+    }
+
+    /**
+     * 方法、所在的类和参数类型都是public，生成的类才能调用和转换
+     */
+    private static boolean isAccessible(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return false;
+        }
+        for (Class<?> type : method.getParameterTypes()) {
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (!type.isPrimitive() && !Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] generate(String internalName, Method method) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        Class<?> declaringClass = method.getDeclaringClass();
+        String owner = Type.getInternalName(declaringClass);
+        String ownerDesc = Type.getDescriptor(declaringClass);
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_6, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, internalName, null, SUPER_NAME, null);
+        if (!isStatic) {
+            cw.visitField(ACC_PRIVATE | ACC_FINAL, "target", ownerDesc, null, null).visitEnd();
+        }
+
+        //构造方法(Object target, Method method)
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", "(Ljava/lang/reflect/Method;)V");
+        if (!isStatic) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitTypeInsn(CHECKCAST, owner);
+            mv.visitFieldInsn(PUTFIELD, internalName, "target", ownerDesc);
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        //doInvoke(Object[] args)
+        mv = cw.visitMethod(ACC_PROTECTED, "doInvoke", "([Ljava/lang/Object;)Ljava/lang/Object;", null,
+                new String[]{"java/lang/Throwable"});
+        mv.visitCode();
+        if (!isStatic) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, internalName, "target", ownerDesc);
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitLdcInsn(i);
+            mv.visitInsn(AALOAD);
+            unbox(mv, parameterTypes[i]);
+        }
+        int opcode = isStatic ? INVOKESTATIC : declaringClass.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL;
+        mv.visitMethodInsn(opcode, owner, method.getName(), Type.getMethodDescriptor(method));
+        box(mv, method.getReturnType());
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * 把栈顶的Object转换成参数类型，基本类型必须是对应的包装类，和Method.invoke一样不接受null
+     */
+    private static void unbox(MethodVisitor mv, Class<?> type) {
+        if (type == Object.class) {
+            return;
+        }
+        if (!type.isPrimitive()) {
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+            return;
+        }
+        String wrapper = Type.getInternalName(wrapper(type));
+        mv.visitTypeInsn(CHECKCAST, wrapper);
+        mv.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getName() + "Value", "()" + Type.getDescriptor(type));
+    }
+
+    /**
+     * 把栈顶的返回值转换成Object，void返回null
+     */
+    private static void box(MethodVisitor mv, Class<?> type) {
+        if (type == void.class) {
+            mv.visitInsn(ACONST_NULL);
+        } else if (type.isPrimitive()) {
+            String wrapper = Type.getInternalName(wrapper(type));
+            mv.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf", "(" + Type.getDescriptor(type) + ")L" + wrapper + ";");
+        }
+    }
+
+    private static Class<?> wrapper(Class<?> type) {
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+
+    /**
+     * 每个生成的类一个，只用来调用defineClass
+     */
+    private static final class InvokerClassLoader extends ClassLoader {
+
+        InvokerClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.webmvc.invoke;
+
+import com.webmvc.excepetion.WebMVCException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 使用MethodHandle调用
+ * 启动时把方法绑定到controller对象上，并转换成 (Object[])Object 的形式，
+ * 调用时没有访问检查，基本类型的装箱拆箱由MethodHandle完成
+ * handle是实例字段，对JIT来说不是常量，invokeExact不能被折叠成对处理器方法的直接调用，
+ * 每次都要经过MethodHandle的适配链，只是比反射少了参数检查；需要内联时用InvokerGenerator生成的调用器
+ * Created by sgz
+ * 2026/10/18 16:12
+ */
+public class MethodHandleInvoker implements HandlerInvoker {
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final MethodHandle handle;
+
+    private final Method method;
+
+    public MethodHandleInvoker(Object target, Method method) {
+        this.method = method;
+        try {
+            method.setAccessible(true);
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(method).bindTo(target);
+            this.handle = methodHandle
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(INVOKE_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new WebMVCException("生成MethodHandle时出错,方法为:" + method, e);
+        }
+    }
+
+    @Override
+    public Object invoke(Object[] args) {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (WebMVCException | Error e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WebMVCException("调用方法时出错,方法为:" + method, e);
+        } catch (Throwable e) {
+            throw new WebMVCException("调用方法时出错,方法为:" + method, new Exception(e));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.webmvc.invoke;
+
+import com.webmvc.excepetion.WebMVCException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 使用Method.invoke调用，访问检查只在创建时取消一次
+ * Created by sgz
+ * 2026/10/18 16:05
+ */
+public class ReflectiveInvoker implements HandlerInvoker {
+
+    private final Object target;
+
+    private final Method method;
+
+    public ReflectiveInvoker(Object target, Method method) {
+        this.target = target;
+        this.method = method;
+        //取消访问检查
+        method.setAccessible(true);
+    }
+
+    @Override
+    public Object invoke(Object[] args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getTargetException();
+            if (cause instanceof WebMVCException) {
+                throw (WebMVCException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new WebMVCException("调用方法时出错,方法为:" + method,
+                    cause instanceof Exception ? (Exception) cause : e);
+        } catch (Exception e) {
+            throw new WebMVCException("调用方法时出错,方法为:" + method, e);
+        }
+    }
+}
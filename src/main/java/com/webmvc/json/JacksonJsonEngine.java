@@ -0,0 +1,188 @@
+package com.webmvc.json;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.webmvc.excepetion.WebMVCException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于jackson的实现
+ * 每种类型的ObjectWriter和ObjectReader第一次使用时创建并缓存，之后不再重复解析类型
+ * 支持的配置(去掉webmvc.json.前缀之后):
+ * serialization.XXX=true/false     对应SerializationFeature
+ * deserialization.XXX=true/false   对应DeserializationFeature
+ * mapper.XXX=true/false            对应MapperFeature
+ * generator.XXX=true/false         对应JsonGenerator.Feature
+ * parser.XXX=true/false            对应JsonParser.Feature
+ * include=NON_NULL                 对应JsonInclude.Include
+ * Created by sgz
+ * 2026/10/19 10:20
+ */
+public class JacksonJsonEngine implements JsonEngine {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Class<?>, ObjectWriter> writerCache = new ConcurrentHashMap<>();
+
+    private final Map<Type, ObjectReader> readerCache = new ConcurrentHashMap<>();
+
+    public JacksonJsonEngine() {
+        this(Collections.<String, String>emptyMap());
+    }
+
+    public JacksonJsonEngine(Map<String, String> settings) {
+        this.objectMapper = new ObjectMapper();
+        for (Map.Entry<String, String> entry : settings.entrySet()) {
+            configure(entry.getKey(), entry.getValue().trim());
+        }
+        //写到响应中的输出流由框架负责关闭
+        objectMapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        objectMapper.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    private void configure(String key, String value) {
+        int index = key.indexOf('.');
+        String group = index < 0 ? key : key.substring(0, index);
+        String name = index < 0 ? "" : key.substring(index + 1);
+        boolean enabled = Boolean.parseBoolean(value);
+        try {
+            switch (group) {
+                case "serialization":
+                    objectMapper.configure(SerializationFeature.valueOf(name), enabled);
+                    break;
+                case "deserialization":
+                    objectMapper.configure(DeserializationFeature.valueOf(name), enabled);
+                    break;
+                case "mapper":
+                    objectMapper.configure(MapperFeature.valueOf(name), enabled);
+                    break;
+                case "generator":
+                    objectMapper.configure(JsonGenerator.Feature.valueOf(name), enabled);
+                    break;
+                case "parser":
+                    objectMapper.configure(JsonParser.Feature.valueOf(name), enabled);
+                    break;
+                case "include":
+                    objectMapper.setSerializationInclusion(JsonInclude.Include.valueOf(value));
+                    break;
+                default:
+                    //其它配置(如engine)不是给jackson的
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new WebMVCException("不支持的json配置: webmvc.json." + key, e);
+        }
+    }
+
+    /**
+     * @return type对应的ObjectWriter，null使用通用的ObjectWriter
+     */
+    private ObjectWriter writer(Object obj) {
+        if (obj == null) {
+            return objectMapper.writer();
+        }
+        Class<?> type = obj.getClass();
+        ObjectWriter writer = writerCache.get(type);
+        if (writer == null) {
+            writer = objectMapper.writerFor(type);
+            writerCache.put(type, writer);
+        }
+        return writer;
+    }
+
+    private ObjectReader reader(Type type) {
+        ObjectReader reader = readerCache.get(type);
+        if (reader == null) {
+            reader = objectMapper.readerFor(objectMapper.getTypeFactory().constructType(type));
+            readerCache.put(type, reader);
+        }
+        return reader;
+    }
+
+    @Override
+    public String toJson(Object obj) {
+        try {
+            return writer(obj).writeValueAsString(obj);
+        } catch (IOException e) {
+            throw new WebMVCException("pojo转换为json失败", e);
+        }
+    }
+
+    @Override
+    public byte[] toJsonBytes(Object obj) {
+        try {
+            return writer(obj).writeValueAsBytes(obj);
+        } catch (IOException e) {
+            throw new WebMVCException("pojo转换为json失败", e);
+        }
+    }
+
+    @Override
+    public void write(Object obj, OutputStream out) {
+        try {
+            writer(obj).writeValue(out, obj);
+        } catch (IOException e) {
+            throw new WebMVCException("pojo转换为json失败", e);
+        }
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> type) {
+        try {
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            throw new WebMVCException("json转换为pojo出错", e);
+        }
+    }
+
+    @Override
+    public Object read(byte[] data, int offset, int length, Type type) {
+        try {
+            return reader(type).readValue(data, offset, length);
+        } catch (IOException e) {
+            throw new WebMVCException("json转换为pojo出错", e);
+        }
+    }
+
+    @Override
+    public Object read(InputStream in, Type type) {
+        try {
+            return reader(type).readValue(in);
+        } catch (IOException e) {
+            throw new WebMVCException("json转换为pojo出错", e);
+        }
+    }
+
+    @Override
+    public JsonReader readerFor(Type type) {
+        final ObjectReader reader = reader(type);
+        return new JsonReader() {
+            @Override
+            public Object read(InputStream in) {
+                try {
+                    return reader.readValue(in);
+                } catch (IOException e) {
+                    throw new WebMVCException("json转换为pojo出错", e);
+                }
+            }
+        };
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
@@ -0,0 +1,51 @@
+package com.webmvc.json;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * json的序列化和反序列化
+ * 通过webmvc.json.engine配置实现类，实现类需要有一个参数为Map&lt;String, String&gt;的构造方法
+ * (参数为webmvc.json.开头的配置，key中去掉了这个前缀)或者无参的构造方法
+ * 出错时抛出WebMVCException
+ * Created by sgz
+ * 2026/10/19 10:05
+ */
+public interface JsonEngine {
+
+    /**
+     * pojo转换为json
+     */
+    String toJson(Object obj);
+
+    /**
+     * pojo按UTF-8转换为json字节
+     */
+    byte[] toJsonBytes(Object obj);
+
+    /**
+     * pojo按UTF-8转换为json直接写到输出流中，不会关闭输出流
+     */
+    void write(Object obj, OutputStream out);
+
+    /**
+     * json转换为pojo
+     */
+    <T> T fromJson(String json, Class<T> type);
+
+    /**
+     * 从字节中读取json，type可以是带泛型的类型
+     */
+    Object read(byte[] data, int offset, int length, Type type);
+
+    /**
+     * 从输入流中读取json，type可以是带泛型的类型，不会关闭输入流
+     */
+    Object read(InputStream in, Type type);
+
+    /**
+     * 创建读取type类型的JsonReader，在启动时调用，请求时不再解析类型
+     */
+    JsonReader readerFor(Type type);
+}
@@ -0,0 +1,16 @@
+package com.webmvc.json;
+
+import java.io.InputStream;
+
+/**
+ * 读取某一种类型的json，由JsonEngine.readerFor(Type)在启动时创建
+ * Created by sgz
+ * 2026/10/19 11:06
+ */
+public interface JsonReader {
+
+    /**
+     * 从输入流中读取json，不会关闭输入流，出错时抛出WebMVCException
+     */
+    Object read(InputStream in);
+}
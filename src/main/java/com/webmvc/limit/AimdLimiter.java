@@ -0,0 +1,40 @@
+package com.webmvc.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加性增、乘性减
+ * 请求成功并且正在处理的请求数超过上限的一半时上限加1，失败或处理时间超过阈值时上限乘以0.9
+ * Created by sgz
+ * 2026/10/20 10:02
+ */
+public class AimdLimiter extends ConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int min;
+
+    private final int max;
+
+    private final long latencyThresholdNanos;
+
+    public AimdLimiter(String name, int initialLimit, int min, int max, long latencyThresholdMillis,
+                       long maxWaitMillis, int retryAfter) {
+        super(name, initialLimit, maxWaitMillis, retryAfter);
+        this.min = min;
+        this.max = max;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+    }
+
+    @Override
+    protected synchronized void onSample(long rttNanos, int inFlight, boolean failed) {
+        int limit = getLimit();
+        if (failed || (latencyThresholdNanos > 0 && rttNanos > latencyThresholdNanos)) {
+            limit = Math.max(min, (int) (limit * BACKOFF_RATIO));
+        } else if (inFlight * 2 >= limit) {
+            //只有上限真的被用到时才增加，避免空闲时无限增长
+            limit = Math.min(max, limit + 1);
+        }
+        setLimit(limit);
+    }
+}
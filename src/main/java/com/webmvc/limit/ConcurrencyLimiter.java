@@ -0,0 +1,98 @@
+package com.webmvc.limit;
+
+import com.webmvc.util.locks.AdjustableSemaphore;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限制同时处理的请求数，请求结束时把响应时间交给子类调整上限
+ * Created by sgz
+ * 2026/10/20 9:45
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+
+    private final AdjustableSemaphore semaphore;
+
+    private final long maxWaitNanos;
+
+    private final int retryAfter;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public ConcurrencyLimiter(String name, int limit, long maxWaitMillis, int retryAfter) {
+        this.name = name;
+        this.semaphore = new AdjustableSemaphore(limit);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return 是否拿到了许可，拿到时请求结束后必须调用release
+     */
+    public boolean tryAcquire() {
+        boolean acquired;
+        if (maxWaitNanos <= 0) {
+            acquired = semaphore.tryAcquire();
+        } else {
+            try {
+                acquired = semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+        }
+        if (!acquired) {
+            rejected.increment();
+        }
+        return acquired;
+    }
+
+    /**
+     * @param startNanos tryAcquire之前的System.nanoTime()
+     * @param failed 处理器是否抛出了异常
+     */
+    public void release(long startNanos, boolean failed) {
+        int inFlight = semaphore.getUsed();
+        semaphore.release();
+        onSample(System.nanoTime() - startNanos, inFlight, failed);
+    }
+
+    /**
+     * 一个请求结束，子类据此调整上限
+     * @param rttNanos 请求的处理时间
+     * @param inFlight 这个请求结束前正在处理的请求数
+     */
+    protected void onSample(long rttNanos, int inFlight, boolean failed) {
+    }
+
+    protected void setLimit(int limit) {
+        semaphore.setLimit(limit);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return semaphore.getLimit();
+    }
+
+    public int getInFlight() {
+        return semaphore.getUsed();
+    }
+
+    public int getQueueLength() {
+        return semaphore.getQueueLength();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,52 @@
+package com.webmvc.limit;
+
+import com.webmvc.annotation.ConcurrencyLimit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按名字创建和保存ConcurrencyLimiter，同名的注解共用一个
+ * 只在启动时创建
+ * Created by sgz
+ * 2026/10/20 10:30
+ */
+public final class ConcurrencyLimiters {
+
+    private static final Map<String, ConcurrencyLimiter> LIMITERS = new LinkedHashMap<>();
+
+    /**
+     * @param defaultName 注解没有指定名字时使用的名字
+     */
+    public static synchronized ConcurrencyLimiter getOrCreate(ConcurrencyLimit limit, String defaultName) {
+        String name = limit.name().isEmpty() ? defaultName : limit.name();
+        ConcurrencyLimiter limiter = LIMITERS.get(name);
+        if (limiter == null) {
+            limiter = create(name, limit);
+            LIMITERS.put(name, limiter);
+        }
+        return limiter;
+    }
+
+    private static ConcurrencyLimiter create(String name, ConcurrencyLimit limit) {
+        switch (limit.algorithm()) {
+            case AIMD:
+                return new AimdLimiter(name, limit.value(), limit.min(), limit.max(), limit.latencyThreshold(),
+                        limit.maxWait(), limit.retryAfter());
+            case GRADIENT:
+                return new GradientLimiter(name, limit.value(), limit.min(), limit.max(),
+                        limit.maxWait(), limit.retryAfter());
+            default:
+                return new ConcurrencyLimiter(name, limit.value(), limit.maxWait(), limit.retryAfter());
+        }
+    }
+
+    /**
+     * @return 所有的限制，用于监控
+     */
+    public static synchronized Collection<ConcurrencyLimiter> getAll() {
+        return new ArrayList<>(LIMITERS.values());
+    }
+}
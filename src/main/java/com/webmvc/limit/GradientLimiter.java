@@ -0,0 +1,61 @@
+package com.webmvc.limit;
+
+/**
+ * 按响应时间的梯度调整上限
+ * 用两个指数移动平均分别跟踪长期和最近的响应时间，最近的变慢说明开始排队，
+ * 新上限 = 上限 * (长期 / 最近) + sqrt(上限)，比例限制在[0.5, 1]，再和旧上限平滑
+ * Created by sgz
+ * 2026/10/20 10:15
+ */
+public class GradientLimiter extends ConcurrencyLimiter {
+
+    private static final double SHORT_WEIGHT = 0.1;
+
+    private static final double LONG_WEIGHT = 0.01;
+
+    private static final double SMOOTHING = 0.2;
+
+    private final int min;
+
+    private final int max;
+
+    private double limit;
+
+    private double shortRtt;
+
+    private double longRtt;
+
+    public GradientLimiter(String name, int initialLimit, int min, int max, long maxWaitMillis, int retryAfter) {
+        super(name, initialLimit, maxWaitMillis, retryAfter);
+        this.min = min;
+        this.max = max;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    protected synchronized void onSample(long rttNanos, int inFlight, boolean failed) {
+        if (shortRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt += (rttNanos - longRtt) * LONG_WEIGHT;
+        //长期的平均比最近的慢很多时往回拉，避免负载下降后长期平均一直偏高
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        //上限没有被用到一半时不增加
+        if (!failed && inFlight * 2 < limit) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        if (failed) {
+            newLimit = limit * 0.5;
+        }
+        limit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(min, Math.min(max, limit));
+        setLimit((int) limit);
+    }
+}
@@ -0,0 +1,119 @@
+package com.webmvc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个处理器的请求数、出错数、正在处理的请求数和各阶段的延迟
+ * 出错指处理器抛出了异常或者状态码是5xx
+ * Created by sgz
+ * 2026/10/20 19:40
+ */
+public final class HandlerMetrics {
+
+    /**
+     * 请求处理的阶段
+     */
+    public enum Phase {
+        /*查找处理器*/
+        LOOKUP,
+        /*解析参数*/
+        ARGUMENTS,
+        /*调用处理器方法*/
+        INVOCATION,
+        /*渲染结果*/
+        RENDERING
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /*路由，如/user/{id}*/
+    private final String route;
+
+    /*支持的请求方法，逗号分隔*/
+    private final String methods;
+
+    /*处理器方法，类名.方法名*/
+    private final String handler;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder inFlight = new LongAdder();
+
+    /*从找到处理器之前到响应结束，包括异步处理的时间*/
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+
+    public HandlerMetrics(String route, String methods, String handler) {
+        this.route = route;
+        this.methods = methods;
+        this.handler = handler;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 请求开始
+     */
+    public void begin() {
+        requests.increment();
+        inFlight.increment();
+    }
+
+    /**
+     * 请求结束，每个begin对应一次
+     * @param startNanos 开始查找处理器时的System.nanoTime()
+     */
+    public void end(long startNanos, boolean failed) {
+        inFlight.decrement();
+        if (failed) {
+            errors.increment();
+        }
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     */
+    public void record(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public String getMethods() {
+        return methods;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * @return 整个请求的延迟
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public LatencyHistogram getLatency(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+}
@@ -0,0 +1,151 @@
+package com.webmvc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按对数分桶的延迟直方图，记录纳秒，和HdrHistogram一样每个2的幂区间再等分成16个子桶，
+ * 相对误差不超过1/16，最大记录到2^37纳秒(约137秒)，更大的值算在最后一个桶里
+ * 桶的个数是固定的，只占4K多内存，记录时只对一个桶做原子加，多线程记录不需要加锁
+ * 读取时不会暂停记录，所以百分位数是近似的快照
+ * Created by sgz
+ * 2026/10/20 19:10
+ */
+public final class LatencyHistogram {
+
+    /*每个2的幂区间的子桶数是2^SUB_BITS*/
+    private static final int SUB_BITS = 4;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private static final long MAX_VALUE = (1L << 37) - 1;
+
+    /*桶的个数，最大值所在的桶是最后一个*/
+    public static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder total = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值
+     * @param nanos 延迟的纳秒数，负数当作0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        } else if (nanos > MAX_VALUE) {
+            nanos = MAX_VALUE;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        total.add(nanos);
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            //其它线程同时更新了最大值，重新比较
+        }
+    }
+
+    /**
+     * 小于16的值每个值一个桶，之后每个2的幂区间16个桶
+     */
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) - SUB_COUNT);
+    }
+
+    /**
+     * @return 第index个桶中最大的值
+     */
+    public static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long lower = (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * @return 每个桶中的记录数的副本，和upperBound一起用来导出
+     */
+    public long[] getCounts() {
+        long[] result = new long[BUCKET_COUNT];
+        getCounts(result);
+        return result;
+    }
+
+    /**
+     * 把每个桶中的记录数复制到预先分配好的数组中
+     * @param into 长度至少为BUCKET_COUNT
+     */
+    public void getCounts(long[] into) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            into[i] = counts.get(i);
+        }
+    }
+
+    /**
+     * @param percentile 0到100之间的百分位，如99.9
+     * @return 至少percentile%的记录不超过的值(纳秒)，没有记录时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = getCounts();
+        long count = 0;
+        for (long c : snapshot) {
+            count += c;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                //桶的上界可能超过实际的最大值
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return 记录的个数
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return 所有记录的和(纳秒)
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return 平均值(纳秒)
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotal() / count;
+    }
+
+    /**
+     * @return 最大值(纳秒)
+     */
+    public long getMax() {
+        return max.get();
+    }
+}
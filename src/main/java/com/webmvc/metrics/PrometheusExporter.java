@@ -0,0 +1,384 @@
+package com.webmvc.metrics;
+
+import com.webmvc.asset.AssetHandler;
+import com.webmvc.async.VirtualThreads;
+import com.webmvc.cache.ResponseCache;
+import com.webmvc.compress.DeflaterPool;
+import com.webmvc.helper.AssetHelper;
+import com.webmvc.helper.AsyncHelper;
+import com.webmvc.helper.BulkheadHelper;
+import com.webmvc.helper.CompressionHelper;
+import com.webmvc.helper.ConfigHelper;
+import com.webmvc.helper.ControllerHelper;
+import com.webmvc.helper.MetricsHelper;
+import com.webmvc.helper.ResponseCacheHelper;
+import com.webmvc.limit.ConcurrencyLimiter;
+import com.webmvc.limit.ConcurrencyLimiters;
+import com.webmvc.render.BufferedResponseOutputStream;
+import com.webmvc.router.NotFoundCache;
+import com.webmvc.util.locks.AbstractQueuedSynchronizer;
+import com.webmvc.util.locks.ReentrantLock;
+import com.webmvc.util.map.WeightedLruCache;
+import com.webmvc.util.threadpool.ArrayBlockingQueue;
+import com.webmvc.util.threadpool.ThreadPoolExecutor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按Prometheus文本格式导出框架的所有统计：
+ * 每个处理器的请求数、出错数、正在处理的请求数和延迟直方图，线程池，并发限制，锁竞争，
+ * 响应缓存和静态资源缓存，Deflater池，jvm的内存、gc和线程
+ * 导出时写到同一个PrometheusWriter中，同时只有一个请求在导出，
+ * 用ReentrantLock而不是synchronized，在虚拟线程中写响应阻塞时不会固定平台线程
+ * Created by sgz
+ * 2026/10/21 11:00
+ */
+public final class PrometheusExporter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /*导出的直方图的桶的上界(秒)*/
+    private static final String[] BOUNDS = {
+            "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+
+    private static final int BUFFER_SIZE = ConfigHelper.getResponseBufferSize();
+
+    private static final HandlerMetrics.Phase[] PHASES = HandlerMetrics.Phase.values();
+
+    private static final String[] PHASE_NAMES = new String[PHASES.length];
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) {
+            PHASE_NAMES[i] = PHASES[i].name().toLowerCase();
+        }
+    }
+
+    /*每个上界对应的最后一个LatencyHistogram桶，桶的上界不超过这个值*/
+    private final int[] boundIndexes = new int[BOUNDS.length];
+
+    private final PrometheusWriter writer = new PrometheusWriter(64 * 1024);
+
+    /*导出直方图时复制桶的临时空间*/
+    private final long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+
+    private final List<HandlerMetrics> handlers;
+
+    private final String[] poolNames;
+
+    private final ThreadPoolExecutor[] pools;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private final MemoryPoolMXBean[] memoryPools;
+
+    private final GarbageCollectorMXBean[] collectors;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 在所有处理器注册完成后创建
+     */
+    public PrometheusExporter() {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            long nanos = (long) (Double.parseDouble(BOUNDS[i]) * TimeUnit.SECONDS.toNanos(1));
+            int index = -1;
+            while (index + 1 < LatencyHistogram.BUCKET_COUNT && LatencyHistogram.upperBound(index + 1) <= nanos) {
+                index++;
+            }
+            boundIndexes[i] = index;
+        }
+        handlers = MetricsHelper.getAll();
+        Map<String, ThreadPoolExecutor> bulkheads = BulkheadHelper.getExecutors();
+        //虚拟线程的线程池没有线程数和队列，不导出
+        int offset = AsyncHelper.getExecutor() instanceof ThreadPoolExecutor ? 1 : 0;
+        poolNames = new String[bulkheads.size() + offset];
+        pools = new ThreadPoolExecutor[bulkheads.size() + offset];
+        if (offset == 1) {
+            poolNames[0] = "webmvc-async";
+            pools[0] = (ThreadPoolExecutor) AsyncHelper.getExecutor();
+        }
+        int i = offset;
+        for (Map.Entry<String, ThreadPoolExecutor> entry : bulkheads.entrySet()) {
+            poolNames[i] = "webmvc-bulkhead-" + entry.getKey();
+            pools[i++] = entry.getValue();
+        }
+        memoryPools = ManagementFactory.getMemoryPoolMXBeans().toArray(new MemoryPoolMXBean[0]);
+        collectors = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+    }
+
+    /**
+     * 处理导出请求，只支持GET和HEAD
+     */
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String method = req.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            resp.setHeader("Allow", "GET, HEAD");
+            resp.sendError(405);
+            return;
+        }
+        resp.setContentType(CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "no-store");
+        String encoding = CompressionHelper.negotiate(req, resp, CONTENT_TYPE);
+        lock.lock();
+        try {
+            writer.reset();
+            write(writer);
+            BufferedResponseOutputStream output = new BufferedResponseOutputStream(resp, BUFFER_SIZE, encoding);
+            output.write(writer.getBuffer(), 0, writer.size());
+            output.finish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把所有统计写到writer中
+     */
+    public void write(PrometheusWriter w) {
+        lock.lock();
+        try {
+            writeHandlers(w);
+            writePools(w);
+            writeLimiters(w);
+            writeCaches(w);
+            writeJvm(w);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeHandlers(PrometheusWriter w) {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        w.header("webmvc_http_requests_total", "counter", "Requests handled by each handler.");
+        for (HandlerMetrics m : handlers) {
+            w.sample("webmvc_http_requests_total").label("route", m.getRoute()).label("method", m.getMethods())
+                    .value(m.getRequests());
+        }
+        w.header("webmvc_http_errors_total", "counter", "Requests that threw an exception or returned 5xx.");
+        for (HandlerMetrics m : handlers) {
+            w.sample("webmvc_http_errors_total").label("route", m.getRoute()).label("method", m.getMethods())
+                    .value(m.getErrors());
+        }
+        w.header("webmvc_http_in_flight", "gauge", "Requests currently being handled.");
+        for (HandlerMetrics m : handlers) {
+            w.sample("webmvc_http_in_flight").label("route", m.getRoute()).label("method", m.getMethods())
+                    .value(m.getInFlight());
+        }
+        String name = "webmvc_http_request_duration_seconds";
+        w.header(name, "histogram", "Time from handler lookup to the end of the response.");
+        for (HandlerMetrics m : handlers) {
+            writeHistogram(w, name, m, null, m.getLatency());
+        }
+        name = "webmvc_http_phase_duration_seconds";
+        w.header(name, "histogram", "Time spent in each phase of request handling.");
+        for (HandlerMetrics m : handlers) {
+            for (int i = 0; i < PHASES.length; i++) {
+                writeHistogram(w, name, m, PHASE_NAMES[i], m.getLatency(PHASES[i]));
+            }
+        }
+    }
+
+    private void writeHistogram(PrometheusWriter w, String name, HandlerMetrics m, String phase,
+                                LatencyHistogram histogram) {
+        histogram.getCounts(counts);
+        long cumulative = 0;
+        int bucket = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            for (; bucket <= boundIndexes[i]; bucket++) {
+                cumulative += counts[bucket];
+            }
+            labels(w.sample(name, "_bucket"), m, phase).label("le", BOUNDS[i]).value(cumulative);
+        }
+        for (; bucket < counts.length; bucket++) {
+            cumulative += counts[bucket];
+        }
+        labels(w.sample(name, "_bucket"), m, phase).label("le", "+Inf").value(cumulative);
+        labels(w.sample(name, "_sum"), m, phase).nanosAsSeconds(histogram.getTotal());
+        labels(w.sample(name, "_count"), m, phase).value(cumulative);
+    }
+
+    private static PrometheusWriter labels(PrometheusWriter w, HandlerMetrics m, String phase) {
+        w.label("route", m.getRoute()).label("method", m.getMethods());
+        if (phase != null) {
+            w.label("phase", phase);
+        }
+        return w;
+    }
+
+    private void writePools(PrometheusWriter w) {
+        if (VirtualThreads.isSupported()) {
+            w.header("webmvc_virtual_thread_pinned_total", "counter",
+                    "Virtual threads pinned to their carrier longer than the threshold.");
+            w.sample("webmvc_virtual_thread_pinned_total").value(VirtualThreads.getPinnedCount());
+        }
+        if (pools.length == 0) {
+            return;
+        }
+        w.header("webmvc_executor_active_threads", "gauge", "Threads executing tasks.");
+        for (int i = 0; i < pools.length; i++) {
+            w.sample("webmvc_executor_active_threads").label("pool", poolNames[i]).value(pools[i].getActiveCount());
+        }
+        w.header("webmvc_executor_pool_threads", "gauge", "Threads in the pool.");
+        for (int i = 0; i < pools.length; i++) {
+            w.sample("webmvc_executor_pool_threads").label("pool", poolNames[i]).value(pools[i].getPoolSize());
+        }
+        w.header("webmvc_executor_max_threads", "gauge", "Maximum threads in the pool.");
+        for (int i = 0; i < pools.length; i++) {
+            w.sample("webmvc_executor_max_threads").label("pool", poolNames[i]).value(pools[i].getMaximumPoolSize());
+        }
+        w.header("webmvc_executor_queued_tasks", "gauge", "Tasks waiting in the queue.");
+        for (int i = 0; i < pools.length; i++) {
+            w.sample("webmvc_executor_queued_tasks").label("pool", poolNames[i]).value(pools[i].getQueue().size());
+        }
+        w.header("webmvc_executor_queue_remaining", "gauge", "Free slots in the queue.");
+        for (int i = 0; i < pools.length; i++) {
+            w.sample("webmvc_executor_queue_remaining").label("pool", poolNames[i])
+                    .value(pools[i].getQueue().remainingCapacity());
+        }
+        w.header("webmvc_executor_completed_tasks_total", "counter", "Tasks completed by the pool.");
+        for (int i = 0; i < pools.length; i++) {
+            w.sample("webmvc_executor_completed_tasks_total").label("pool", poolNames[i])
+                    .value(pools[i].getCompletedTaskCount());
+        }
+        w.header("webmvc_executor_queue_lock_waiters", "gauge", "Threads waiting for the queue lock.");
+        for (int i = 0; i < pools.length; i++) {
+            BlockingQueue<Runnable> queue = pools[i].getQueue();
+            w.sample("webmvc_executor_queue_lock_waiters").label("pool", poolNames[i])
+                    .value(queue instanceof ArrayBlockingQueue ? ((ArrayBlockingQueue<Runnable>) queue).getLockQueueLength() : 0);
+        }
+    }
+
+    private void writeLimiters(PrometheusWriter w) {
+        w.header("webmvc_lock_queued_acquires_total", "counter",
+                "Acquisitions of webmvc synchronizers that had to wait in the queue.");
+        w.sample("webmvc_lock_queued_acquires_total").value(AbstractQueuedSynchronizer.getQueuedAcquireCount());
+        Collection<ConcurrencyLimiter> limiters = ConcurrencyLimiters.getAll();
+        if (limiters.isEmpty()) {
+            return;
+        }
+        w.header("webmvc_limiter_limit", "gauge", "Current concurrency limit.");
+        for (ConcurrencyLimiter limiter : limiters) {
+            w.sample("webmvc_limiter_limit").label("limiter", limiter.getName()).value(limiter.getLimit());
+        }
+        w.header("webmvc_limiter_in_flight", "gauge", "Permits in use.");
+        for (ConcurrencyLimiter limiter : limiters) {
+            w.sample("webmvc_limiter_in_flight").label("limiter", limiter.getName()).value(limiter.getInFlight());
+        }
+        w.header("webmvc_limiter_queued_threads", "gauge", "Threads waiting for a permit.");
+        for (ConcurrencyLimiter limiter : limiters) {
+            w.sample("webmvc_limiter_queued_threads").label("limiter", limiter.getName()).value(limiter.getQueueLength());
+        }
+        w.header("webmvc_limiter_rejected_total", "counter", "Requests rejected with 503.");
+        for (ConcurrencyLimiter limiter : limiters) {
+            w.sample("webmvc_limiter_rejected_total").label("limiter", limiter.getName()).value(limiter.getRejected());
+        }
+    }
+
+    private void writeCaches(PrometheusWriter w) {
+        ResponseCache response = ResponseCacheHelper.getCache();
+        AssetHandler assetHandler = AssetHelper.getHandler();
+        WeightedLruCache<String, byte[]> asset = assetHandler == null ? null : assetHandler.getCache();
+        NotFoundCache notFound = ControllerHelper.getNotFoundCache();
+        w.header("webmvc_cache_hits_total", "counter", "Cache hits.");
+        w.sample("webmvc_cache_hits_total").label("cache", "response").value(response.getHits());
+        if (asset != null) {
+            w.sample("webmvc_cache_hits_total").label("cache", "asset").value(asset.getHits());
+        }
+        if (notFound != null) {
+            w.sample("webmvc_cache_hits_total").label("cache", "not_found").value(notFound.getHits());
+        }
+        w.header("webmvc_cache_misses_total", "counter", "Cache misses.");
+        w.sample("webmvc_cache_misses_total").label("cache", "response").value(response.getMisses());
+        if (asset != null) {
+            w.sample("webmvc_cache_misses_total").label("cache", "asset").value(asset.getMisses());
+        }
+        if (notFound != null) {
+            w.sample("webmvc_cache_misses_total").label("cache", "not_found").value(notFound.getMisses());
+        }
+        w.header("webmvc_cache_evictions_total", "counter", "Entries evicted to stay under the size limit.");
+        w.sample("webmvc_cache_evictions_total").label("cache", "response").value(response.getEvictions());
+        if (asset != null) {
+            w.sample("webmvc_cache_evictions_total").label("cache", "asset").value(asset.getEvictions());
+        }
+        w.header("webmvc_cache_entries", "gauge", "Entries in the cache.");
+        w.sample("webmvc_cache_entries").label("cache", "response").value(response.getSize());
+        if (asset != null) {
+            w.sample("webmvc_cache_entries").label("cache", "asset").value(asset.size());
+        }
+        w.header("webmvc_cache_bytes", "gauge", "Bytes held by the cache.");
+        w.sample("webmvc_cache_bytes").label("cache", "response").value(response.getBytes());
+        if (asset != null) {
+            w.sample("webmvc_cache_bytes").label("cache", "asset").value(asset.getWeight());
+        }
+        w.header("webmvc_cache_max_bytes", "gauge", "Size limit of the cache.");
+        w.sample("webmvc_cache_max_bytes").label("cache", "response").value(response.getMaxBytes());
+        if (asset != null) {
+            w.sample("webmvc_cache_max_bytes").label("cache", "asset").value(asset.getMaxWeight());
+        }
+        w.header("webmvc_response_cache_stale_hits_total", "counter", "Stale responses served while revalidating.");
+        w.sample("webmvc_response_cache_stale_hits_total").value(response.getStaleHits());
+        w.header("webmvc_response_cache_refreshes_total", "counter", "Background refreshes of stale responses.");
+        w.sample("webmvc_response_cache_refreshes_total").value(response.getRefreshes());
+        w.header("webmvc_response_cache_refresh_failures_total", "counter", "Refreshes that failed.");
+        w.sample("webmvc_response_cache_refresh_failures_total").value(response.getRefreshFailures());
+        if (CompressionHelper.isEnabled()) {
+            DeflaterPool gzip = CompressionHelper.getPool(CompressionHelper.GZIP);
+            DeflaterPool deflate = CompressionHelper.getPool(CompressionHelper.DEFLATE);
+            w.header("webmvc_deflater_pool_idle", "gauge", "Idle Deflaters kept for reuse.");
+            w.sample("webmvc_deflater_pool_idle").label("encoding", CompressionHelper.GZIP).value(gzip.getIdle());
+            w.sample("webmvc_deflater_pool_idle").label("encoding", CompressionHelper.DEFLATE).value(deflate.getIdle());
+        }
+    }
+
+    private void writeJvm(PrometheusWriter w) {
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        w.header("jvm_memory_bytes_used", "gauge", "Used bytes of a memory area.");
+        w.sample("jvm_memory_bytes_used").label("area", "heap").value(heap.getUsed());
+        w.sample("jvm_memory_bytes_used").label("area", "nonheap").value(nonHeap.getUsed());
+        w.header("jvm_memory_bytes_committed", "gauge", "Committed bytes of a memory area.");
+        w.sample("jvm_memory_bytes_committed").label("area", "heap").value(heap.getCommitted());
+        w.sample("jvm_memory_bytes_committed").label("area", "nonheap").value(nonHeap.getCommitted());
+        w.header("jvm_memory_bytes_max", "gauge", "Max bytes of a memory area, -1 when undefined.");
+        w.sample("jvm_memory_bytes_max").label("area", "heap").value(heap.getMax());
+        w.sample("jvm_memory_bytes_max").label("area", "nonheap").value(nonHeap.getMax());
+        w.header("jvm_memory_pool_bytes_used", "gauge", "Used bytes of a memory pool.");
+        for (MemoryPoolMXBean pool : memoryPools) {
+            MemoryUsage usage = pool.getUsage();
+            if (usage != null) {
+                w.sample("jvm_memory_pool_bytes_used").label("pool", pool.getName()).value(usage.getUsed());
+            }
+        }
+        w.header("jvm_gc_collection_seconds", "summary", "Time spent in a garbage collector.");
+        for (GarbageCollectorMXBean collector : collectors) {
+            w.sample("jvm_gc_collection_seconds", "_count").label("gc", collector.getName())
+                    .value(collector.getCollectionCount());
+            w.sample("jvm_gc_collection_seconds", "_sum").label("gc", collector.getName())
+                    .nanosAsSeconds(TimeUnit.MILLISECONDS.toNanos(collector.getCollectionTime()));
+        }
+        w.header("jvm_threads_current", "gauge", "Live threads.");
+        w.sample("jvm_threads_current").value(threads.getThreadCount());
+        w.header("jvm_threads_daemon", "gauge", "Live daemon threads.");
+        w.sample("jvm_threads_daemon").value(threads.getDaemonThreadCount());
+        w.header("jvm_threads_peak", "gauge", "Peak live threads.");
+        w.sample("jvm_threads_peak").value(threads.getPeakThreadCount());
+    }
+}
@@ -0,0 +1,216 @@
+package com.webmvc.metrics;
+
+import java.util.Arrays;
+
+/**
+ * 按Prometheus文本格式写到一个复用的字节数组中
+ * 数字直接按位写入，不创建字符串，缓冲区不够时扩大并一直保留，
+ * 所以导出的内容大小稳定后每次导出不再分配内存
+ * 不是线程安全的
+ * Created by sgz
+ * 2026/10/21 10:20
+ */
+public final class PrometheusWriter {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private byte[] buffer;
+
+    private int count;
+
+    /*当前样本已经写了几个标签*/
+    private int labels;
+
+    /*写long时的临时空间*/
+    private final byte[] digits = new byte[20];
+
+    public PrometheusWriter(int initialSize) {
+        this.buffer = new byte[initialSize];
+    }
+
+    /**
+     * 清空已经写入的内容，保留缓冲区
+     */
+    public void reset() {
+        count = 0;
+        labels = 0;
+    }
+
+    /**
+     * 写出一个指标的HELP和TYPE
+     * @param type counter、gauge或histogram
+     */
+    public void header(String name, String type, String help) {
+        ascii("# HELP ");
+        ascii(name);
+        write(' ');
+        ascii(help);
+        ascii("\n# TYPE ");
+        ascii(name);
+        write(' ');
+        ascii(type);
+        write('\n');
+    }
+
+    /**
+     * 开始一个样本，之后可以写标签，最后写值
+     */
+    public PrometheusWriter sample(String name) {
+        ascii(name);
+        labels = 0;
+        return this;
+    }
+
+    /**
+     * 开始一个带后缀的样本，如histogram的_bucket
+     */
+    public PrometheusWriter sample(String name, String suffix) {
+        ascii(name);
+        ascii(suffix);
+        labels = 0;
+        return this;
+    }
+
+    public PrometheusWriter label(String name, String value) {
+        write(labels++ == 0 ? '{' : ',');
+        ascii(name);
+        write('=');
+        write('"');
+        escape(value);
+        write('"');
+        return this;
+    }
+
+    public void value(long value) {
+        endLabels();
+        writeLong(value);
+        write('\n');
+    }
+
+    /**
+     * 写出以秒为单位的值
+     */
+    public void nanosAsSeconds(long nanos) {
+        endLabels();
+        if (nanos < 0) {
+            write('-');
+            nanos = -nanos;
+        }
+        writeLong(nanos / NANOS_PER_SECOND);
+        long fraction = nanos % NANOS_PER_SECOND;
+        if (fraction != 0) {
+            write('.');
+            //小数固定9位，去掉末尾的0
+            int width = 9;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                width--;
+            }
+            for (long scale = pow10(width - 1); scale > 0; scale /= 10) {
+                write((int) ('0' + fraction / scale % 10));
+            }
+        }
+        write('\n');
+    }
+
+    private static long pow10(int n) {
+        long result = 1;
+        for (int i = 0; i < n; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private void endLabels() {
+        if (labels > 0) {
+            write('}');
+            labels = 0;
+        }
+        write(' ');
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            ascii("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        ensureCapacity(length);
+        while (length > 0) {
+            buffer[count++] = digits[--length];
+        }
+    }
+
+    /**
+     * 指标名、标签名和固定的文本都是ascii
+     */
+    private void ascii(String s) {
+        int length = s.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    /**
+     * 标签值按utf-8写入，转义\、"和换行
+     */
+    private void escape(String s) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '\\' || c == '"') {
+                write('\\');
+                write(c);
+            } else if (c == '\n') {
+                write('\\');
+                write('n');
+            } else if (c < 0x80) {
+                write(c);
+            } else if (c < 0x800) {
+                write(0xC0 | (c >> 6));
+                write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            } else {
+                write(0xE0 | (c >> 12));
+                write(0x80 | ((c >> 6) & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void write(int b) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) {
+        if (count + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+        }
+    }
+
+    /**
+     * @return 缓冲区，只有前size()个字节有效
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return count;
+    }
+}
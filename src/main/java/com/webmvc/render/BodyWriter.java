@@ -0,0 +1,52 @@
+package com.webmvc.render;
+
+import com.webmvc.helper.CompressionHelper;
+import com.webmvc.helper.ConfigHelper;
+import com.webmvc.helper.ETagHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 写出已经完整在内存中的响应体，如缓冲的jsp和缓存的响应
+ * 状态码为200的GET请求按给定的hash设置ETag，客户端支持时压缩
+ * Created by sgz
+ * 2026/10/19 21:40
+ */
+public final class BodyWriter {
+
+    private static final int BUFFER_SIZE = ConfigHelper.getResponseBufferSize();
+
+    /**
+     * @param body 响应体，只有前length个字节有效
+     * @param hash 响应体的xxHash64
+     */
+    public static void write(HttpServletRequest req, HttpServletResponse resp, byte[] body, int length, long hash)
+            throws IOException {
+        String encoding = CompressionHelper.negotiate(req, resp, resp.getContentType());
+        if (resp.getStatus() == 200 && ETagHelper.isEnabled(req) && !resp.containsHeader("ETag")) {
+            String etag = ETagHelper.etag(hash, length >= CompressionHelper.getMinSize() ? encoding : null);
+            if (ETagHelper.notModified(req, resp, etag)) {
+                return;
+            }
+        }
+        writeBody(resp, body, length, encoding);
+    }
+
+    /**
+     * 不设置ETag，客户端支持时压缩
+     * @param body 响应体，只有前length个字节有效
+     */
+    public static void write(HttpServletRequest req, HttpServletResponse resp, byte[] body, int length)
+            throws IOException {
+        writeBody(resp, body, length, CompressionHelper.negotiate(req, resp, resp.getContentType()));
+    }
+
+    private static void writeBody(HttpServletResponse resp, byte[] body, int length, String encoding)
+            throws IOException {
+        BufferedResponseOutputStream output = new BufferedResponseOutputStream(resp, BUFFER_SIZE, encoding);
+        output.write(body, 0, length);
+        output.finish();
+    }
+}
@@ -0,0 +1,175 @@
+package com.webmvc.render;
+
+import com.webmvc.compress.CompressingOutputStream;
+import com.webmvc.helper.CompressionHelper;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 写响应体时先写到线程复用的缓冲区中
+ * 响应体没有超过缓冲区时，结束时设置Content-Length后一次写出；
+ * 超过时把已缓冲的内容写出，之后直接写到响应的输出流中，不再设置Content-Length
+ * 指定了压缩格式时，全部在缓冲区中的响应体达到压缩阈值后一次压缩到另一个线程复用的缓冲区，仍然可以设置Content-Length；
+ * 超过缓冲区时改为边写边压缩
+ * 一个线程同一时间只能使用一个，用完必须调用finish()
+ * Created by sgz
+ * 2026/10/19 9:10
+ */
+public class BufferedResponseOutputStream extends OutputStream {
+
+    private static final ThreadLocal<byte[]> BUFFER_POOL = new ThreadLocal<>();
+
+    /*一次压缩整个缓冲区时的输出*/
+    private static final ThreadLocal<byte[]> COMPRESS_BUFFER_POOL = new ThreadLocal<>();
+
+    private final HttpServletResponse resp;
+
+    private final byte[] buffer;
+
+    /*压缩格式，不压缩时为null*/
+    private final String encoding;
+
+    private int count;
+
+    /*超过缓冲区后直接写到这里*/
+    private OutputStream target;
+
+    /*边写边压缩时不为null，和target是同一个对象*/
+    private CompressingOutputStream compressor;
+
+    /**
+     * @param resp 响应
+     * @param bufferSize 缓冲区大小，为0时直接写到响应的输出流中
+     */
+    public BufferedResponseOutputStream(HttpServletResponse resp, int bufferSize) throws IOException {
+        this(resp, bufferSize, null);
+    }
+
+    /**
+     * @param resp 响应
+     * @param bufferSize 缓冲区大小，为0时直接写到响应的输出流中
+     * @param encoding CompressionHelper.negotiate选择的压缩格式，不压缩时为null
+     */
+    public BufferedResponseOutputStream(HttpServletResponse resp, int bufferSize, String encoding) throws IOException {
+        this.resp = resp;
+        this.encoding = encoding;
+        this.buffer = borrow(BUFFER_POOL, bufferSize);
+        if (bufferSize <= 0) {
+            overflow();
+        }
+    }
+
+    private static byte[] borrow(ThreadLocal<byte[]> pool, int bufferSize) {
+        if (bufferSize <= 0) {
+            return null;
+        }
+        byte[] buffer = pool.get();
+        if (buffer == null || buffer.length != bufferSize) {
+            buffer = new byte[bufferSize];
+            pool.set(buffer);
+        }
+        return buffer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (target == null && count < buffer.length) {
+            buffer[count++] = (byte) b;
+            return;
+        }
+        overflow().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (target == null && count + len <= buffer.length) {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            return;
+        }
+        overflow().write(b, off, len);
+    }
+
+    /**
+     * 缓冲区放不下时把已缓冲的内容写出，之后不再缓冲
+     */
+    private OutputStream overflow() throws IOException {
+        if (target == null) {
+            target = resp.getOutputStream();
+            if (encoding != null) {
+                resp.setHeader("Content-Encoding", encoding);
+                compressor = new CompressingOutputStream(target, CompressionHelper.getPool(encoding));
+                target = compressor;
+            }
+            if (count > 0) {
+                target.write(buffer, 0, count);
+            }
+            count = 0;
+        }
+        return target;
+    }
+
+    /**
+     * @return 响应体是否全部在缓冲区中
+     */
+    public boolean isBuffered() {
+        return target == null;
+    }
+
+    /**
+     * @return 缓冲区，只有前getCount()个字节有效，isBuffered()为false时没有意义
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 写出剩下的内容，全部在缓冲区中时先设置Content-Length
+     */
+    public void finish() throws IOException {
+        if (target == null && encoding != null && count >= CompressionHelper.getMinSize()) {
+            byte[] compressed = borrow(COMPRESS_BUFFER_POOL, buffer.length);
+            int length = CompressingOutputStream.compress(CompressionHelper.getPool(encoding), buffer, 0, count, compressed);
+            //压缩后没有变小的不压缩
+            if (length > 0 && length < count) {
+                resp.setHeader("Content-Encoding", encoding);
+                resp.setContentLength(length);
+                OutputStream output = resp.getOutputStream();
+                output.write(compressed, 0, length);
+                output.flush();
+                count = 0;
+                return;
+            }
+        }
+        if (target == null) {
+            resp.setContentLength(count);
+            OutputStream output = resp.getOutputStream();
+            output.write(buffer, 0, count);
+            output.flush();
+            count = 0;
+        } else {
+            if (compressor != null) {
+                compressor.finish();
+            }
+            target.flush();
+        }
+    }
+
+    /**
+     * 丢弃缓冲的内容，只能在isBuffered()为true时调用，如返回304时
+     */
+    public void discard() {
+        count = 0;
+    }
+
+    @Override
+    public void flush() {
+        //缓冲的内容在finish()时才写出
+    }
+}
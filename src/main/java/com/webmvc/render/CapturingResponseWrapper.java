@@ -0,0 +1,130 @@
+package com.webmvc.render;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * forward到jsp时把整个响应体留在内存中，不写到原响应
+ * 渲染完成后可以计算ETag、缓存或压缩，再自己写出
+ * Created by sgz
+ * 2026/10/19 19:50
+ */
+public class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final Capture capture = new Capture();
+
+    private ServletOutputStream stream;
+
+    private PrintWriter writer;
+
+    public CapturingResponseWrapper(HttpServletResponse resp) {
+        super(resp);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("已经调用了getWriter()");
+        }
+        if (stream == null) {
+            stream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    capture.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    capture.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException("缓冲的响应不支持非阻塞写出");
+                }
+            };
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (stream != null) {
+                throw new IllegalStateException("已经调用了getOutputStream()");
+            }
+            writer = new PrintWriter(new OutputStreamWriter(capture, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        //写出时按实际的长度设置
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void flushBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+        capture.reset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+    }
+
+    /**
+     * @return 缓冲区，只有前getLength()个字节有效
+     */
+    public byte[] getBody() {
+        flushBuffer();
+        return capture.buffer();
+    }
+
+    public int getLength() {
+        flushBuffer();
+        return capture.size();
+    }
+
+    private static final class Capture extends ByteArrayOutputStream {
+
+        Capture() {
+            super(8192);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
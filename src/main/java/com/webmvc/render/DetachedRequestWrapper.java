@@ -0,0 +1,505 @@
+package com.webmvc.render;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpSession;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.security.Principal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * 和原请求完全分开的请求，创建时把请求行、请求头、参数、属性和请求体复制下来
+ * 过期的缓存先返回给客户端并结束请求，再在后台重新渲染时使用，原请求结束后可能被容器回收，
+ * 之后不能再访问它，也不能开始异步请求或者forward
+ * Created by sgz
+ * 2026/10/25 16:10
+ */
+public class DetachedRequestWrapper extends HttpServletRequestWrapper {
+
+    private final String method;
+
+    private final String requestURI;
+
+    private final String requestURL;
+
+    private final String queryString;
+
+    private final String contextPath;
+
+    private final String servletPath;
+
+    private final String pathInfo;
+
+    private final String protocol;
+
+    private final String scheme;
+
+    private final String serverName;
+
+    private final int serverPort;
+
+    private final boolean secure;
+
+    private final String remoteAddr;
+
+    private final String remoteHost;
+
+    private final int remotePort;
+
+    private final String localAddr;
+
+    private final String localName;
+
+    private final int localPort;
+
+    private final String contentType;
+
+    private final long contentLength;
+
+    private String characterEncoding;
+
+    private final List<Locale> locales;
+
+    private final Cookie[] cookies;
+
+    private final String authType;
+
+    private final String remoteUser;
+
+    private final Principal userPrincipal;
+
+    private final String requestedSessionId;
+
+    /*创建时已经存在的session，刷新时不能创建新的*/
+    private final HttpSession session;
+
+    private final ServletContext servletContext;
+
+    /*名字不区分大小写*/
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    private final Map<String, String[]> parameters;
+
+    private final Map<String, Object> attributes;
+
+    private final byte[] body;
+
+    private ServletInputStream inputStream;
+
+    /**
+     * @param request 原请求，只在构造时读取
+     * @param body 已经读好的请求体，没有时为null
+     */
+    public DetachedRequestWrapper(HttpServletRequest request, byte[] body) {
+        super(request);
+        method = request.getMethod();
+        requestURI = request.getRequestURI();
+        requestURL = String.valueOf(request.getRequestURL());
+        queryString = request.getQueryString();
+        contextPath = request.getContextPath();
+        servletPath = request.getServletPath();
+        pathInfo = request.getPathInfo();
+        protocol = request.getProtocol();
+        scheme = request.getScheme();
+        serverName = request.getServerName();
+        serverPort = request.getServerPort();
+        secure = request.isSecure();
+        remoteAddr = request.getRemoteAddr();
+        remoteHost = request.getRemoteHost();
+        remotePort = request.getRemotePort();
+        localAddr = request.getLocalAddr();
+        localName = request.getLocalName();
+        localPort = request.getLocalPort();
+        contentType = request.getContentType();
+        contentLength = body != null ? body.length : request.getContentLengthLong();
+        characterEncoding = request.getCharacterEncoding();
+        locales = Collections.list(request.getLocales());
+        Cookie[] requestCookies = request.getCookies();
+        cookies = requestCookies == null ? null : requestCookies.clone();
+        authType = request.getAuthType();
+        remoteUser = request.getRemoteUser();
+        userPrincipal = request.getUserPrincipal();
+        requestedSessionId = request.getRequestedSessionId();
+        session = request.getSession(false);
+        servletContext = request.getServletContext();
+        Enumeration<String> headerNames = request.getHeaderNames();
+        while (headerNames != null && headerNames.hasMoreElements()) {
+            String name = headerNames.nextElement();
+            headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+        parameters = new LinkedHashMap<>(request.getParameterMap());
+        attributes = new HashMap<>();
+        Enumeration<String> attributeNames = request.getAttributeNames();
+        while (attributeNames.hasMoreElements()) {
+            String name = attributeNames.nextElement();
+            attributes.put(name, request.getAttribute(name));
+        }
+        this.body = body == null ? new byte[0] : body;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer(requestURL);
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public String getServletPath() {
+        return servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return pathInfo;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return pathInfo == null ? null : servletContext.getRealPath(pathInfo);
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public String getScheme() {
+        return scheme;
+    }
+
+    @Override
+    public String getServerName() {
+        return serverName;
+    }
+
+    @Override
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return secure;
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return remoteAddr;
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return remoteHost;
+    }
+
+    @Override
+    public int getRemotePort() {
+        return remotePort;
+    }
+
+    @Override
+    public String getLocalAddr() {
+        return localAddr;
+    }
+
+    @Override
+    public String getLocalName() {
+        return localName;
+    }
+
+    @Override
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        return contentLength > Integer.MAX_VALUE ? -1 : (int) contentLength;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return contentLength;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+        characterEncoding = env;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locales.isEmpty() ? Locale.getDefault() : locales.get(0);
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(locales.isEmpty() ? Collections.singletonList(Locale.getDefault()) : locales);
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return cookies == null ? null : cookies.clone();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return Collections.enumeration(values == null ? Collections.<String>emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(new ArrayList<>(headers.keySet()));
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        if (value == null) {
+            return -1;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(value).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("请求头" + name + "不是日期, " + value);
+        }
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters.get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if (o == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, o);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        if (inputStream == null) {
+            final ByteArrayInputStream in = new ByteArrayInputStream(body);
+            inputStream = new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new IllegalStateException("刷新缓存时不能非阻塞读取请求体");
+                }
+            };
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws UnsupportedEncodingException {
+        String encoding = characterEncoding == null ? "ISO-8859-1" : characterEncoding;
+        return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+    }
+
+    @Override
+    public String getAuthType() {
+        return authType;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return remoteUser;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return userPrincipal;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        //角色要问容器，原请求已经结束
+        return false;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return requestedSessionId;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return session != null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (session == null && create) {
+            throw new IllegalStateException("刷新缓存时不能创建session");
+        }
+        return session;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        throw new IllegalStateException("刷新缓存时不能forward或include");
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("刷新缓存时不能开始异步请求");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        throw new IllegalStateException("刷新缓存时不能开始异步请求");
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        throw new IllegalStateException("刷新缓存时没有异步请求");
+    }
+}
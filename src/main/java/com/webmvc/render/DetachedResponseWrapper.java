@@ -0,0 +1,196 @@
+package com.webmvc.render;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 和原响应完全分开的响应，状态码、响应头和响应体都留在自己这里
+ * 原响应已经写出了(比如过期的缓存先返回给客户端)，还要再渲染一次时使用，
+ * 渲染的结果只用来判断能不能缓存，不会改变原响应的状态，也不会提交原响应
+ * Created by sgz
+ * 2026/10/24 10:20
+ */
+public class DetachedResponseWrapper extends CapturingResponseWrapper {
+
+    private int status = SC_OK;
+
+    private String contentType;
+
+    private String characterEncoding;
+
+    private Locale locale = Locale.getDefault();
+
+    private int bufferSize = 8192;
+
+    private final Map<String, List<String>> headers = new LinkedHashMap<>();
+
+    public DetachedResponseWrapper(HttpServletResponse resp) {
+        super(resp);
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        status = sc;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        resetBuffer();
+        status = sc;
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        resetBuffer();
+        status = SC_FOUND;
+        setHeader("Location", location);
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (type == null) {
+            contentType = null;
+            return;
+        }
+        int index = type.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+        if (index >= 0) {
+            characterEncoding = type.substring(index + "charset=".length()).trim();
+        }
+        contentType = type;
+    }
+
+    @Override
+    public String getContentType() {
+        if (contentType == null || characterEncoding == null || contentType.contains("charset=")) {
+            return contentType;
+        }
+        return contentType + ";charset=" + characterEncoding;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        characterEncoding = charset;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding == null ? "ISO-8859-1" : characterEncoding;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        locale = loc;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        bufferSize = size;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        //只用来判断能不能缓存，Cookie不会写出
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        List<String> values = new ArrayList<>(1);
+        values.add(value);
+        headers.put(name.toLowerCase(Locale.ENGLISH), values);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        String key = name.toLowerCase(Locale.ENGLISH);
+        List<String> values = headers.get(key);
+        if (values == null) {
+            values = new ArrayList<>(1);
+            headers.put(key, values);
+        }
+        values.add(value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, String.valueOf(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, String.valueOf(date));
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ENGLISH));
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ENGLISH));
+        return values == null ? Collections.<String>emptyList() : new ArrayList<>(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return new ArrayList<>(headers.keySet());
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        status = SC_OK;
+        contentType = null;
+        characterEncoding = null;
+        headers.clear();
+    }
+}
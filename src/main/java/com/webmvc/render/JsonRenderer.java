@@ -0,0 +1,82 @@
+package com.webmvc.render;
+
+import com.webmvc.compress.CompressingOutputStream;
+import com.webmvc.helper.CompressionHelper;
+import com.webmvc.helper.ConfigHelper;
+import com.webmvc.helper.ETagHelper;
+import com.webmvc.util.JsonUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * 把ResponseBody处理器的结果以json写到响应中
+ * 直接按UTF-8写到响应的字节流中，不生成中间的String，也不经过PrintWriter重新编码
+ * 客户端支持时压缩响应体，GET请求的响应体全部在缓冲区中时计算ETag，和If-None-Match一致时返回304
+ * Created by sgz
+ * 2026/10/19 9:32
+ */
+public final class JsonRenderer {
+
+    public static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private static final int BUFFER_SIZE = ConfigHelper.getResponseBufferSize();
+
+    /**
+     * @param model 处理器的结果
+     * @param req 请求，用于选择压缩格式和比较ETag
+     * @param resp 响应
+     */
+    public static void render(Object model, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType(CONTENT_TYPE);
+        String encoding = CompressionHelper.negotiate(req, resp, CONTENT_TYPE);
+        BufferedResponseOutputStream output = new BufferedResponseOutputStream(resp, BUFFER_SIZE, encoding);
+        JsonUtil.toJson(model, output);
+        if (output.isBuffered() && needETag(req, resp)) {
+            String etag = ETagHelper.etag(output.getBuffer(), 0, output.getCount(),
+                    output.getCount() >= CompressionHelper.getMinSize() ? encoding : null);
+            if (ETagHelper.notModified(req, resp, etag)) {
+                output.discard();
+                return;
+            }
+        }
+        output.finish();
+    }
+
+    /**
+     * 非阻塞写出时需要完整的响应体
+     * @param model 处理器的结果
+     * @param req 请求，用于选择压缩格式和比较ETag
+     * @param resp 响应
+     * @return UTF-8编码的json，压缩时是压缩后的内容，返回304时为null
+     */
+    public static byte[] renderToBytes(Object model, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType(CONTENT_TYPE);
+        byte[] json = JsonUtil.toJsonBytes(model);
+        String encoding = CompressionHelper.negotiate(req, resp, CONTENT_TYPE);
+        if (json.length < CompressionHelper.getMinSize()) {
+            encoding = null;
+        }
+        if (needETag(req, resp) && ETagHelper.notModified(req, resp, ETagHelper.etag(json, 0, json.length, encoding))) {
+            return null;
+        }
+        if (encoding == null) {
+            return json;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        CompressingOutputStream output = new CompressingOutputStream(compressed, CompressionHelper.getPool(encoding));
+        output.write(json, 0, json.length);
+        output.finish();
+        resp.setHeader("Content-Encoding", encoding);
+        return compressed.toByteArray();
+    }
+
+    /**
+     * ETagVersion已经设置了ETag时不再计算
+     */
+    private static boolean needETag(HttpServletRequest req, HttpServletResponse resp) {
+        return ETagHelper.isEnabled(req) && !resp.containsHeader("ETag");
+    }
+}
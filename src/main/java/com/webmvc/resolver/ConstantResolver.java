@@ -0,0 +1,26 @@
+package com.webmvc.resolver;
+
+import com.webmvc.bean.Param;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 无法解析的参数总是得到同一个值: null，基本类型为零值
+ * 这样没有注解的参数也会占住自己的位置，不会让后面的参数错位
+ * Created by sgz
+ * 2026/10/18 15:24
+ */
+public class ConstantResolver implements HandlerArgumentResolver {
+
+    private final Object value;
+
+    public ConstantResolver(Object value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param) {
+        return value;
+    }
+}
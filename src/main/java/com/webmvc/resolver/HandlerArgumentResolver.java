@@ -0,0 +1,23 @@
+package com.webmvc.resolver;
+
+import com.webmvc.bean.Param;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 解析处理器方法的一个参数
+ * 每个Handler在启动时为每个参数生成一个解析器，请求时按顺序调用即可得到参数数组
+ * Created by sgz
+ * 2026/10/18 15:02
+ */
+public interface HandlerArgumentResolver {
+
+    /**
+     * @param req 当前请求
+     * @param resp 当前响应
+     * @param param 请求参数
+     * @return 参数的值
+     */
+    Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param);
+}
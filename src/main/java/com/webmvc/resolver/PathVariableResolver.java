@@ -0,0 +1,41 @@
+package com.webmvc.resolver;
+
+import com.webmvc.bean.Param;
+import com.webmvc.excepetion.ResponseStatusException;
+import com.webmvc.helper.ConvertHelp;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 解析带PathVariable注解的参数
+ * Created by sgz
+ * 2026/10/18 15:16
+ */
+public class PathVariableResolver implements HandlerArgumentResolver {
+
+    private final String name;
+
+    private final ConvertHelp.Converter converter;
+
+    private final Object emptyValue;
+
+    public PathVariableResolver(String name, Class<?> type) {
+        this.name = name;
+        this.converter = ConvertHelp.getConverter(type);
+        this.emptyValue = ConvertHelp.defaultValue(type);
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param) {
+        String value = param.getPathVariable(name);
+        if (value == null) {
+            return emptyValue;
+        }
+        try {
+            return converter.convert(value);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(400, "路径变量 " + name + " 的格式不正确", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.webmvc.resolver;
+
+import com.webmvc.bean.Param;
+import com.webmvc.excepetion.ResponseStatusException;
+import com.webmvc.excepetion.WebMVCException;
+import com.webmvc.json.JsonReader;
+import com.webmvc.util.JsonUtil;
+import com.webmvc.util.LimitedInputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.lang.reflect.Type;
+
+/**
+ * 解析带RequestBody注解的参数
+ * 启动时为参数类型创建好JsonReader，请求时直接从请求体的输入流反序列化，不生成中间的String
+ * Created by sgz
+ * 2026/10/19 11:20
+ */
+public class RequestBodyResolver implements HandlerArgumentResolver {
+
+    private final JsonReader reader;
+
+    private final boolean required;
+
+    private final long maxBodySize;
+
+    public RequestBodyResolver(Type type, boolean required, long maxBodySize) {
+        this.reader = JsonUtil.getEngine().readerFor(type);
+        this.required = required;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param) {
+        if (req.getContentLengthLong() > maxBodySize) {
+            throw new ResponseStatusException(413, "请求体超过了" + maxBodySize + "字节");
+        }
+        try {
+            PushbackInputStream in = new PushbackInputStream(new LimitedInputStream(param.openBody(), maxBodySize), 1);
+            int first = in.read();
+            if (first == -1) {
+                if (required) {
+                    throw new ResponseStatusException(400, "缺少请求体");
+                }
+                return null;
+            }
+            in.unread(first);
+            return reader.read(in);
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (WebMVCException e) {
+            throw new ResponseStatusException(400, "请求体不是正确的json", e);
+        } catch (IOException e) {
+            throw new ResponseStatusException(400, "读取请求体时出错", e);
+        }
+    }
+}
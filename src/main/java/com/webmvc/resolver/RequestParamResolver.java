@@ -0,0 +1,61 @@
+package com.webmvc.resolver;
+
+import com.webmvc.annotation.RequestParam;
+import com.webmvc.bean.Param;
+import com.webmvc.excepetion.ResponseStatusException;
+import com.webmvc.helper.ConvertHelp;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 解析带RequestParam注解的参数
+ * Created by sgz
+ * 2026/10/18 15:10
+ */
+public class RequestParamResolver implements HandlerArgumentResolver {
+
+    /*参数名*/
+    private final String name;
+
+    /*请求中没有该参数时是否报错*/
+    private final boolean required;
+
+    /*请求中没有该参数时使用的值，已经转换好，没有默认值时为null*/
+    private final Object defaultValue;
+
+    private final boolean hasDefaultValue;
+
+    /*类型为基本类型时，没有值的情况下返回的零值*/
+    private final Object emptyValue;
+
+    private final ConvertHelp.Converter converter;
+
+    public RequestParamResolver(String name, RequestParam requestParam, Class<?> type) {
+        this.name = name;
+        this.required = requestParam.required();
+        this.converter = ConvertHelp.getConverter(type);
+        this.hasDefaultValue = !RequestParam.DEFAULT_NONE.equals(requestParam.defaultValue());
+        this.defaultValue = hasDefaultValue ? converter.convert(requestParam.defaultValue()) : null;
+        this.emptyValue = ConvertHelp.defaultValue(type);
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param) {
+        Object requestValue = param.get(name);
+        if (requestValue != null) {
+            try {
+                return converter.convert(requestValue.toString());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(400, "请求参数 " + name + " 的格式不正确", e);
+            }
+        }
+        if (hasDefaultValue) {
+            return defaultValue;
+        }
+        if (required) {
+            throw new ResponseStatusException(400, "缺少请求参数 " + name);
+        }
+        return emptyValue;
+    }
+}
@@ -0,0 +1,50 @@
+package com.webmvc.resolver;
+
+import com.webmvc.bean.Param;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 不需要注解就能解析的参数: HttpServletRequest、HttpServletResponse、Param
+ * Created by sgz
+ * 2026/10/18 15:20
+ */
+public enum ServletArgumentResolver implements HandlerArgumentResolver {
+
+    REQUEST {
+        @Override
+        public Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param) {
+            return req;
+        }
+    },
+    RESPONSE {
+        @Override
+        public Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param) {
+            return resp;
+        }
+    },
+    PARAM {
+        @Override
+        public Object resolve(HttpServletRequest req, HttpServletResponse resp, Param param) {
+            return param;
+        }
+    };
+
+    /**
+     * @param type 参数类型
+     * @return 该类型对应的解析器，没有时返回null
+     */
+    public static HandlerArgumentResolver of(Class<?> type) {
+        if (type == HttpServletRequest.class) {
+            return REQUEST;
+        }
+        if (type == HttpServletResponse.class) {
+            return RESPONSE;
+        }
+        if (Param.class.isAssignableFrom(type)) {
+            return PARAM;
+        }
+        return null;
+    }
+}
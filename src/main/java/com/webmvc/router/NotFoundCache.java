@@ -0,0 +1,88 @@
+package com.webmvc.router;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 最近没有匹配到路由的路径
+ * 直接映射的数组，每个路径只能放在hash对应的槽里，新的路径直接覆盖旧的，大小固定，不需要加锁，查找和放入都不创建对象
+ * 只放不超过MAX_PATH_LENGTH的路径，最多占用 槽数 * MAX_PATH_LENGTH 个字符
+ * 路由在启动后不会改变，所以缓存的路径不会过期；并发写同一个槽时丢掉一个只是少缓存一次
+ * Created by sgz
+ * 2026/10/23 15:10
+ */
+public final class NotFoundCache {
+
+    /*更长的路径大多是扫描器拼出来的，缓存命中的机会很小*/
+    private static final int MAX_PATH_LENGTH = 256;
+
+    /*长度为2的幂，空槽为null*/
+    private final String[] paths;
+
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param size 槽数，向上取2的幂
+     */
+    NotFoundCache(int size) {
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        paths = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return 这个路径最近是否没有匹配到
+     */
+    boolean contains(String path) {
+        if (path.length() > MAX_PATH_LENGTH) {
+            return false;
+        }
+        String cached = paths[spread(path.hashCode()) & mask];
+        if (cached != null && cached.equals(path)) {
+            hits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录没有匹配到的路径
+     */
+    void add(String path) {
+        misses.increment();
+        if (path.length() <= MAX_PATH_LENGTH) {
+            paths[spread(path.hashCode()) & mask] = path;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return 在缓存中找到的次数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 查找路由树后没有匹配到的次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 槽数
+     */
+    public int getCapacity() {
+        return paths.length;
+    }
+}
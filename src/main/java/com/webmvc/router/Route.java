@@ -0,0 +1,127 @@
+package com.webmvc.router;
+
+import com.webmvc.bean.Handler;
+import com.webmvc.enums.RequestMethod;
+import com.webmvc.excepetion.WebMVCException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 路由树上一个完整路径对应的路由
+ * 每种请求方法对应一个Handler，按枚举的ordinal存放在数组里，查找时只需一次数组读取
+ * Created by sgz
+ * 2026/10/18 14:05
+ */
+public final class Route {
+
+    /*没有匹配到路由时Router返回它，没有任何处理器*/
+    public static final Route NOT_FOUND = new Route("", new String[0], new int[0]);
+
+    /*注册时的路径，用于出错时提示*/
+    private final String pattern;
+
+    /*路径中{var}的名字，按出现顺序排列*/
+    private final String[] variableNames;
+
+    /*{var}在路径中是第几段(从0开始)*/
+    private final int[] variableSegments;
+
+    /*以RequestMethod.ordinal()为下标的处理器*/
+    private final Handler[] handlers = new Handler[RequestMethod.values().length];
+
+    /*支持的请求方法，405时作为Allow头返回*/
+    private String allowedMethods = "";
+
+    Route(String pattern, String[] variableNames, int[] variableSegments) {
+        this.pattern = pattern;
+        this.variableNames = variableNames;
+        this.variableSegments = variableSegments;
+    }
+
+    /**
+     * 为请求方法注册处理器，同一路径同一方法只能有一个处理器
+     */
+    void addHandler(RequestMethod[] requestMethods, Handler handler) {
+        for (RequestMethod requestMethod : requestMethods) {
+            Handler exist = handlers[requestMethod.ordinal()];
+            if (exist != null && exist != handler) {
+                throw new WebMVCException(requestMethod + " " + pattern + " 同时映射到了 "
+                        + exist.getMappingMethod() + " 和 " + handler.getMappingMethod());
+            }
+            handlers[requestMethod.ordinal()] = handler;
+        }
+        StringBuilder allow = new StringBuilder();
+        for (RequestMethod requestMethod : RequestMethod.values()) {
+            if (handlers[requestMethod.ordinal()] != null) {
+                if (allow.length() > 0) {
+                    allow.append(", ");
+                }
+                allow.append(requestMethod.name());
+            }
+        }
+        allowedMethods = allow.toString();
+    }
+
+    boolean sameVariables(String[] names) {
+        return Arrays.equals(variableNames, names);
+    }
+
+    /**
+     * @param requestMethod 请求方法
+     * @return 该方法对应的处理器，不支持时返回null
+     */
+    public Handler getHandler(RequestMethod requestMethod) {
+        return requestMethod == null ? null : handlers[requestMethod.ordinal()];
+    }
+
+    /**
+     * @return 逗号分隔的支持的请求方法
+     */
+    public String getAllowedMethods() {
+        return allowedMethods;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean hasPathVariables() {
+        return variableNames.length > 0;
+    }
+
+    /**
+     * 从匹配到这条路由的请求路径中取出变量
+     * 只有包含{var}的路由才会创建map
+     * @param path 请求路径
+     * @return 变量名和值
+     */
+    public Map<String, String> getPathVariables(String path) {
+        if (variableNames.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> pathVariables = new HashMap<>();
+        int length = path.length();
+        int segment = 0;
+        int next = 0;
+        int start = 0;
+        while (next < variableSegments.length) {
+            while (start < length && path.charAt(start) == '/') {
+                start++;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (segment == variableSegments[next]) {
+                pathVariables.put(variableNames[next], path.substring(start, end));
+                next++;
+            }
+            segment++;
+            start = end;
+        }
+        return pathVariables;
+    }
+}
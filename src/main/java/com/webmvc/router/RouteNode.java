@@ -0,0 +1,94 @@
+package com.webmvc.router;
+
+/**
+ * 路由树的节点，每个节点对应请求路径中的一段
+ * 字面量子节点放在开放寻址的散列表中，查找时直接对路径的区间计算hash，不需要截取子串
+ * {var}、* 和 ** 各只有一个子节点
+ * Created by sgz
+ * 2026/10/18 10:20
+ */
+final class RouteNode {
+
+    /*字面量子节点的键和值，长度为2的幂，空槽为null*/
+    private String[] literalKeys = new String[0];
+    private RouteNode[] literalNodes = new RouteNode[0];
+    private int literalCount;
+
+    /*{var}子节点，匹配任意一段*/
+    RouteNode variableChild;
+
+    /* * 子节点，匹配任意一段但不取值*/
+    RouteNode wildcardChild;
+
+    /* ** 子节点，匹配剩下的所有段，只能出现在最后*/
+    RouteNode catchAllChild;
+
+    /*路径在该节点结束时对应的路由*/
+    Route route;
+
+    /**
+     * 找到或创建字面量子节点，只在启动时调用
+     */
+    RouteNode getOrAddLiteral(String segment) {
+        RouteNode child = findLiteral(segment, 0, segment.length());
+        if (child != null) {
+            return child;
+        }
+        child = new RouteNode();
+        //保持装载因子不超过0.5
+        if ((literalCount + 1) * 2 > literalKeys.length) {
+            String[] oldKeys = literalKeys;
+            RouteNode[] oldNodes = literalNodes;
+            int capacity = Math.max(4, oldKeys.length * 2);
+            literalKeys = new String[capacity];
+            literalNodes = new RouteNode[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldNodes[i]);
+                }
+            }
+        }
+        insert(segment, child);
+        literalCount++;
+        return child;
+    }
+
+    private void insert(String key, RouteNode node) {
+        int mask = literalKeys.length - 1;
+        int index = spread(key.hashCode()) & mask;
+        while (literalKeys[index] != null) {
+            index = (index + 1) & mask;
+        }
+        literalKeys[index] = key;
+        literalNodes[index] = node;
+    }
+
+    /**
+     * 查找path中[start, end)这一段对应的字面量子节点
+     * hash的算法和String.hashCode()相同
+     */
+    RouteNode findLiteral(String path, int start, int end) {
+        if (literalCount == 0) {
+            return null;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+        int length = end - start;
+        int mask = literalKeys.length - 1;
+        int index = spread(hash) & mask;
+        String key;
+        while ((key = literalKeys[index]) != null) {
+            if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                return literalNodes[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,181 @@
+package com.webmvc.router;
+
+import com.webmvc.bean.Handler;
+import com.webmvc.enums.RequestMethod;
+import com.webmvc.excepetion.WebMVCException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按路径分段组织的路由树
+ * 启动时根据RequestMapping构建，查找的开销只和路径的段数有关，和路由的数量无关
+ * 支持三种段:
+ * 字面量 如 /orders
+ * 变量 如 /{id}，匹配任意一段，值可以通过PathVariable取到
+ * 通配符 * 匹配任意一段，** 匹配剩下的所有段(只能放在最后)
+ * 同一位置上优先级为 字面量 > 变量 > * > **
+ * 匹配过程只在路径字符串上移动下标，不截取子串，也不创建对象
+ * 没有匹配到时返回Route.NOT_FOUND，最近没有匹配到的路径放在NotFoundCache中，
+ * 扫描器反复请求的路径不用再回溯整棵树
+ * Created by sgz
+ * 2026/10/18 10:31
+ */
+public final class Router {
+
+    private static final String WILDCARD = "*";
+
+    private static final String CATCH_ALL = "**";
+
+    private final RouteNode root = new RouteNode();
+
+    /*为null时不缓存*/
+    private final NotFoundCache notFoundCache;
+
+    public Router() {
+        this(0);
+    }
+
+    /**
+     * @param notFoundCacheSize 缓存多少个没有匹配到的路径，为0时不缓存
+     */
+    public Router(int notFoundCacheSize) {
+        this.notFoundCache = notFoundCacheSize > 0 ? new NotFoundCache(notFoundCacheSize) : null;
+    }
+
+    /**
+     * 添加一条路由
+     * @param pattern 请求路径，可以包含{var}、*和**
+     * @param requestMethods 支持的请求方法
+     * @param handler 处理器
+     */
+    public void addRoute(String pattern, RequestMethod[] requestMethods, Handler handler) {
+        RouteNode node = root;
+        List<String> variableNames = new ArrayList<>();
+        List<Integer> variableSegments = new ArrayList<>();
+        String[] segments = pattern.split("/");
+        int segmentIndex = 0;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (CATCH_ALL.equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new WebMVCException("** 只能放在路径的最后, " + pattern);
+                }
+                if (node.catchAllChild == null) {
+                    node.catchAllChild = new RouteNode();
+                }
+                node = node.catchAllChild;
+            } else if (WILDCARD.equals(segment)) {
+                if (node.wildcardChild == null) {
+                    node.wildcardChild = new RouteNode();
+                }
+                node = node.wildcardChild;
+            } else if (segment.startsWith("{") && segment.endsWith("}")) {
+                String variableName = segment.substring(1, segment.length() - 1);
+                if (variableName.isEmpty()) {
+                    throw new WebMVCException("路径变量的名字不能为空, " + pattern);
+                }
+                variableNames.add(variableName);
+                variableSegments.add(segmentIndex);
+                if (node.variableChild == null) {
+                    node.variableChild = new RouteNode();
+                }
+                node = node.variableChild;
+            } else {
+                node = node.getOrAddLiteral(segment);
+            }
+            segmentIndex++;
+        }
+        String[] names = variableNames.toArray(new String[variableNames.size()]);
+        if (node.route == null) {
+            int[] positions = new int[variableSegments.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = variableSegments.get(i);
+            }
+            node.route = new Route(pattern, names, positions);
+        } else if (!node.route.sameVariables(names)) {
+            throw new WebMVCException("路径 " + pattern + " 和 " + node.route.getPattern() + " 冲突");
+        }
+        node.route.addHandler(requestMethods, handler);
+    }
+
+    /**
+     * 根据请求路径查找路由
+     * @param path 请求路径
+     * @return 匹配到的路由，没有匹配到时返回Route.NOT_FOUND
+     */
+    public Route match(String path) {
+        if (path == null) {
+            path = "/";
+        }
+        if (notFoundCache != null && notFoundCache.contains(path)) {
+            return Route.NOT_FOUND;
+        }
+        RouteNode node = match(root, path, 0);
+        if (node == null) {
+            if (notFoundCache != null) {
+                notFoundCache.add(path);
+            }
+            return Route.NOT_FOUND;
+        }
+        return node.route;
+    }
+
+    /**
+     * @return 没有匹配到的路径的缓存，不缓存时返回null
+     */
+    public NotFoundCache getNotFoundCache() {
+        return notFoundCache;
+    }
+
+    /**
+     * 从start开始匹配剩下的路径，失败时回溯到下一种段类型
+     */
+    private RouteNode match(RouteNode node, String path, int start) {
+        int length = path.length();
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= length) {
+            if (node.route != null) {
+                return node;
+            }
+            //** 可以匹配零段
+            if (node.catchAllChild != null && node.catchAllChild.route != null) {
+                return node.catchAllChild;
+            }
+            return null;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+
+        RouteNode child = node.findLiteral(path, start, end);
+        if (child != null) {
+            RouteNode result = match(child, path, end);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (node.variableChild != null) {
+            RouteNode result = match(node.variableChild, path, end);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (node.wildcardChild != null) {
+            RouteNode result = match(node.wildcardChild, path, end);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (node.catchAllChild != null && node.catchAllChild.route != null) {
+            return node.catchAllChild;
+        }
+        return null;
+    }
+}
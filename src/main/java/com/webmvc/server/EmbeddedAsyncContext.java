@@ -0,0 +1,371 @@
+package com.webmvc.server;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 内嵌服务器的异步请求
+ * service返回之前调用的complete和dispatch在service返回后才执行，
+ * 超时由选择器线程定时检查，在工作线程中通知监听器，监听器没有结束请求时返回500
+ * Created by sgz
+ * 2026/10/22 16:05
+ */
+final class EmbeddedAsyncContext implements AsyncContext {
+
+    /*和servlet规范的默认值一样*/
+    private static final long DEFAULT_TIMEOUT = 30000;
+
+    private final HttpConnection connection;
+
+    private final EmbeddedRequest request;
+
+    private final EmbeddedResponse response;
+
+    private ServletRequest servletRequest;
+
+    private ServletResponse servletResponse;
+
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private long timeout = DEFAULT_TIMEOUT;
+
+    private volatile long deadline = Long.MAX_VALUE;
+
+    /*以下字段由this保护*/
+
+    /*调用了startAsync，还没有complete或dispatch*/
+    private boolean started;
+
+    /*servlet的service方法还没有返回*/
+    private boolean inService = true;
+
+    private boolean completing;
+
+    private String dispatchPath;
+
+    private boolean timingOut;
+
+    private boolean finished;
+
+    EmbeddedAsyncContext(HttpConnection connection, EmbeddedRequest request, EmbeddedResponse response) {
+        this.connection = connection;
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * startAsync，异步dispatch之后可以再次开始
+     */
+    void start(ServletRequest servletRequest, ServletResponse servletResponse) {
+        List<Listener> previous;
+        synchronized (this) {
+            if (!inService || started || completing || finished) {
+                throw new IllegalStateException("不能在这个时候开始异步请求");
+            }
+            started = true;
+            this.servletRequest = servletRequest;
+            this.servletResponse = servletResponse;
+            previous = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        setTimeout(timeout);
+        connection.getServer().addAsyncContext(this);
+        for (Listener listener : previous) {
+            try {
+                listener.listener.onStartAsync(new AsyncEvent(this, listener.request, listener.response));
+            } catch (IOException | RuntimeException e) {
+                log("AsyncListener.onStartAsync出错", e);
+            }
+        }
+    }
+
+    synchronized boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * servlet的service方法返回了
+     * @return 是否由异步请求负责结束响应
+     */
+    boolean onServiceReturned() {
+        boolean complete = false;
+        boolean dispatch = false;
+        synchronized (this) {
+            inService = false;
+            if (!started && !completing && dispatchPath == null) {
+                return false;
+            }
+            if (completing) {
+                complete = true;
+            } else if (dispatchPath != null) {
+                dispatch = true;
+            }
+        }
+        if (complete) {
+            doComplete();
+        } else if (dispatch) {
+            scheduleDispatch();
+        }
+        return true;
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+        return servletRequest;
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+        return servletResponse;
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+        return servletRequest == request && servletResponse == response;
+    }
+
+    @Override
+    public void dispatch() {
+        ServletRequest req = servletRequest;
+        String path;
+        if (req instanceof HttpServletRequest) {
+            HttpServletRequest httpRequest = (HttpServletRequest) req;
+            path = httpRequest.getServletPath() + (httpRequest.getPathInfo() == null ? "" : httpRequest.getPathInfo());
+        } else {
+            path = request.getServletPath() + (request.getPathInfo() == null ? "" : request.getPathInfo());
+        }
+        dispatch(path);
+    }
+
+    @Override
+    public void dispatch(String path) {
+        boolean now;
+        synchronized (this) {
+            if (!started || completing || dispatchPath != null) {
+                throw new IllegalStateException("异步请求已经结束了");
+            }
+            dispatchPath = path;
+            now = !inService;
+        }
+        connection.getServer().removeAsyncContext(this);
+        if (now) {
+            scheduleDispatch();
+        }
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+        if (context != request.getServletContext()) {
+            throw new UnsupportedOperationException("内嵌服务器只有一个ServletContext");
+        }
+        dispatch(path);
+    }
+
+    private void scheduleDispatch() {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                runDispatch();
+            }
+        };
+        try {
+            connection.getServer().getWorkers().execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private void runDispatch() {
+        String path;
+        synchronized (this) {
+            path = dispatchPath;
+            dispatchPath = null;
+            started = false;
+            inService = true;
+        }
+        try {
+            request.dispatch(path);
+        } catch (RuntimeException e) {
+            log("异步dispatch的路径不正确, " + path, e);
+            response.onServiceError();
+            synchronized (this) {
+                inService = false;
+            }
+            connection.finish(response, this);
+            return;
+        }
+        connection.service(request, response);
+    }
+
+    @Override
+    public void complete() {
+        synchronized (this) {
+            if (completing || finished) {
+                return;
+            }
+            if (!started) {
+                throw new IllegalStateException("没有开始异步请求");
+            }
+            completing = true;
+            if (inService) {
+                //service返回后结束
+                return;
+            }
+        }
+        doComplete();
+    }
+
+    private void doComplete() {
+        synchronized (this) {
+            started = false;
+        }
+        connection.getServer().removeAsyncContext(this);
+        connection.finish(response, this);
+    }
+
+    /**
+     * 响应已经写完，通知监听器
+     */
+    void fireComplete() {
+        List<Listener> copy;
+        synchronized (this) {
+            finished = true;
+            copy = new ArrayList<>(listeners);
+        }
+        for (Listener listener : copy) {
+            try {
+                listener.listener.onComplete(new AsyncEvent(this, listener.request, listener.response));
+            } catch (IOException | RuntimeException e) {
+                log("AsyncListener.onComplete出错", e);
+            }
+        }
+    }
+
+    /**
+     * 选择器线程：检查是否超时，超时后在工作线程中处理
+     */
+    void checkTimeout(long now) {
+        if (now < deadline) {
+            return;
+        }
+        synchronized (this) {
+            if (!started || completing || dispatchPath != null || inService || timingOut) {
+                return;
+            }
+            timingOut = true;
+        }
+        try {
+            connection.getServer().getWorkers().execute(new Runnable() {
+                @Override
+                public void run() {
+                    onTimeout();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //下次检查时再试
+            synchronized (this) {
+                timingOut = false;
+            }
+        }
+    }
+
+    private void onTimeout() {
+        List<Listener> copy;
+        synchronized (this) {
+            copy = new ArrayList<>(listeners);
+        }
+        for (Listener listener : copy) {
+            try {
+                listener.listener.onTimeout(new AsyncEvent(this, listener.request, listener.response));
+            } catch (IOException | RuntimeException e) {
+                log("AsyncListener.onTimeout出错", e);
+            }
+        }
+        boolean unhandled;
+        synchronized (this) {
+            timingOut = false;
+            unhandled = started && !completing && dispatchPath == null;
+        }
+        if (unhandled) {
+            if (!response.isCommitted()) {
+                try {
+                    response.sendError(500, "异步请求超时");
+                } catch (IOException | IllegalStateException e) {
+                    //响应已经提交了
+                }
+            }
+            complete();
+        }
+    }
+
+    @Override
+    public void start(Runnable run) {
+        connection.getServer().getWorkers().execute(run);
+    }
+
+    @Override
+    public void addListener(AsyncListener listener) {
+        addListener(listener, servletRequest, servletResponse);
+    }
+
+    @Override
+    public synchronized void addListener(AsyncListener listener, ServletRequest servletRequest,
+                                         ServletResponse servletResponse) {
+        if (finished || !(started || completing || dispatchPath != null)) {
+            throw new IllegalStateException("异步请求已经结束了");
+        }
+        listeners.add(new Listener(listener, servletRequest, servletResponse));
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+        try {
+            return clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ServletException("不能创建AsyncListener, " + clazz.getName(), e);
+        }
+    }
+
+    /**
+     * @param timeout 超时时间(毫秒)，小于等于0时不会超时
+     */
+    @Override
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+        deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+    }
+
+    @Override
+    public long getTimeout() {
+        return timeout;
+    }
+
+    private void log(String msg, Throwable t) {
+        connection.getServer().getServletContext().log(msg, t);
+    }
+
+    private static final class Listener {
+
+        private final AsyncListener listener;
+
+        private final ServletRequest request;
+
+        private final ServletResponse response;
+
+        Listener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+            this.listener = listener;
+            this.request = request;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,742 @@
+package com.webmvc.server;
+
+import com.webmvc.excepetion.ResponseStatusException;
+import com.webmvc.helper.ConfigHelper;
+import com.webmvc.util.FormParser;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.Part;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 内嵌服务器的请求
+ * 请求头和请求体都已经在内存中，参数在第一次用到时才解析，
+ * application/x-www-form-urlencoded的请求体在调用getInputStream之前取参数时才会解析
+ * Created by sgz
+ * 2026/10/22 15:10
+ */
+final class EmbeddedRequest implements HttpServletRequest {
+
+    private static final long MAX_FORM_SIZE = ConfigHelper.getMaxFormSize();
+
+    private final HttpConnection connection;
+
+    private final EmbeddedServletContext servletContext;
+
+    private final String method;
+
+    private final String protocol;
+
+    /*请求头，按 名字,值,名字,值 的顺序保存*/
+    private final List<String> headers;
+
+    private final byte[] body;
+
+    private final int bodyLength;
+
+    private final boolean chunked;
+
+    private final EmbeddedResponse response;
+
+    /*没有解码的路径*/
+    private String requestURI;
+
+    private String queryString;
+
+    private String servletPath;
+
+    private String pathInfo;
+
+    private DispatcherType dispatcherType = DispatcherType.REQUEST;
+
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private String characterEncoding;
+
+    private Map<String, List<String>> parameters;
+
+    private RequestInputStream inputStream;
+
+    private BufferedReader reader;
+
+    private Cookie[] cookies;
+
+    private EmbeddedAsyncContext asyncContext;
+
+    EmbeddedRequest(HttpConnection connection, EmbeddedServletContext servletContext, String method, String target,
+                    String protocol, List<String> headers, byte[] body, int bodyLength, boolean chunked) {
+        this.connection = connection;
+        this.servletContext = servletContext;
+        this.method = method;
+        this.protocol = protocol;
+        this.headers = headers;
+        this.body = body;
+        this.bodyLength = bodyLength;
+        this.chunked = chunked;
+        setTarget(target);
+        this.response = new EmbeddedResponse(this, connection);
+    }
+
+    /**
+     * 解析请求目标，按servlet的映射计算servletPath和pathInfo
+     * @param target 请求行中的路径，也可以是异步dispatch的路径
+     */
+    private void setTarget(String target) {
+        if (target.regionMatches(true, 0, "http://", 0, 7) || target.regionMatches(true, 0, "https://", 0, 8)) {
+            //absolute-form，去掉协议和主机
+            int slash = target.indexOf('/', target.indexOf("//") + 2);
+            target = slash < 0 ? "/" : target.substring(slash);
+        }
+        if (!target.startsWith("/")) {
+            throw new ResponseStatusException(400, "不正确的请求路径, " + target);
+        }
+        int question = target.indexOf('?');
+        requestURI = question < 0 ? target : target.substring(0, question);
+        queryString = question < 0 ? null : target.substring(question + 1);
+        String[] mapped = servletContext.mapPath(normalize(decodePath(requestURI)));
+        servletPath = mapped[0];
+        pathInfo = mapped[1];
+    }
+
+    /**
+     * %解码路径，路径中的+不是空格，不允许编码后的/和\0
+     */
+    private static String decodePath(String path) {
+        if (path.indexOf('%') < 0) {
+            return path;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= path.length()) {
+                    throw new ResponseStatusException(400, "路径中有不正确的%编码");
+                }
+                int high = Character.digit(path.charAt(i + 1), 16);
+                int low = Character.digit(path.charAt(i + 2), 16);
+                if (high < 0 || low < 0) {
+                    throw new ResponseStatusException(400, "路径中有不正确的%编码");
+                }
+                int b = (high << 4) | low;
+                if (b == '/' || b == 0) {
+                    throw new ResponseStatusException(400, "路径中不允许编码后的/和\\0");
+                }
+                out.write(b);
+                i += 2;
+            } else {
+                out.write(c);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 去掉路径中的.和..，..超出根目录时返回400
+     */
+    private static String normalize(String path) {
+        if (!path.contains("/.")) {
+            return path;
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.substring(1).split("/", -1)) {
+            if (segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..")) {
+                if (segments.isEmpty()) {
+                    throw new ResponseStatusException(400, "不正确的请求路径, " + path);
+                }
+                segments.remove(segments.size() - 1);
+                continue;
+            }
+            segments.add(segment);
+        }
+        StringBuilder sb = new StringBuilder(path.length());
+        for (String segment : segments) {
+            sb.append('/').append(segment);
+        }
+        if (sb.length() == 0 || path.endsWith("/.") || path.endsWith("/..")) {
+            sb.append('/');
+        }
+        return sb.toString();
+    }
+
+    EmbeddedResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * 异步dispatch到另一个路径
+     */
+    void dispatch(String path) {
+        setTarget(path);
+        dispatcherType = DispatcherType.ASYNC;
+    }
+
+    EmbeddedAsyncContext getAsyncContextIfCreated() {
+        return asyncContext;
+    }
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        if (cookies == null) {
+            List<Cookie> list = new ArrayList<>();
+            Enumeration<String> values = getHeaders("Cookie");
+            while (values.hasMoreElements()) {
+                for (String pair : values.nextElement().split(";")) {
+                    int equals = pair.indexOf('=');
+                    if (equals <= 0) {
+                        continue;
+                    }
+                    String value = pair.substring(equals + 1).trim();
+                    if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    try {
+                        list.add(new Cookie(pair.substring(0, equals).trim(), value));
+                    } catch (IllegalArgumentException e) {
+                        //忽略名字不正确的cookie
+                    }
+                }
+            }
+            cookies = list.toArray(new Cookie[list.size()]);
+        }
+        //和容器一样，没有cookie时返回null
+        return cookies.length == 0 ? null : cookies;
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("不正确的日期, " + name + ": " + value, e);
+        }
+    }
+
+    @Override
+    public String getHeader(String name) {
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) {
+                return headers.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = new ArrayList<>(1);
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) {
+                values.add(headers.get(i + 1));
+            }
+        }
+        return Collections.enumeration(values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < headers.size(); i += 2) {
+            names.add(headers.get(i));
+        }
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return pathInfo;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return pathInfo == null ? null : servletContext.getRealPath(pathInfo);
+    }
+
+    @Override
+    public String getContextPath() {
+        return "";
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer(64);
+        url.append(getScheme()).append("://").append(getServerName());
+        if (getServerPort() != 80) {
+            url.append(':').append(getServerPort());
+        }
+        return url.append(requestURI);
+    }
+
+    @Override
+    public String getServletPath() {
+        return servletPath;
+    }
+
+    /**
+     * 内嵌服务器不支持session
+     */
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (create) {
+            throw new IllegalStateException("内嵌服务器不支持session");
+        }
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new IllegalStateException("内嵌服务器不支持session");
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    @Deprecated
+    public boolean isRequestedSessionIdFromUrl() {
+        return false;
+    }
+
+    @Override
+    public boolean authenticate(HttpServletResponse response) throws ServletException {
+        throw new ServletException("内嵌服务器不支持认证");
+    }
+
+    @Override
+    public void login(String username, String password) throws ServletException {
+        throw new ServletException("内嵌服务器不支持认证");
+    }
+
+    @Override
+    public void logout() throws ServletException {
+        throw new ServletException("内嵌服务器不支持认证");
+    }
+
+    @Override
+    public Collection<Part> getParts() throws ServletException {
+        throw new ServletException("内嵌服务器不支持multipart请求");
+    }
+
+    @Override
+    public Part getPart(String name) throws ServletException {
+        throw new ServletException("内嵌服务器不支持multipart请求");
+    }
+
+    @Override
+    public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) throws ServletException {
+        throw new ServletException("内嵌服务器不支持协议升级");
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        if (characterEncoding != null) {
+            return characterEncoding;
+        }
+        String contentType = getContentType();
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String trimmed = param.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                    return trimmed.substring(8).replace("\"", "").trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+        if (!Charset.isSupported(env)) {
+            throw new UnsupportedEncodingException(env);
+        }
+        if (parameters == null && reader == null) {
+            characterEncoding = env;
+        }
+    }
+
+    private Charset charset() {
+        String encoding = getCharacterEncoding();
+        return encoding != null && Charset.isSupported(encoding) ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public int getContentLength() {
+        long length = getContentLengthLong();
+        return length > Integer.MAX_VALUE ? -1 : (int) length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        if (chunked || getHeader("Content-Length") == null) {
+            return -1;
+        }
+        return bodyLength;
+    }
+
+    @Override
+    public String getContentType() {
+        return getHeader("Content-Type");
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        if (reader != null) {
+            throw new IllegalStateException("已经调用过getReader");
+        }
+        if (inputStream == null) {
+            inputStream = new RequestInputStream(body, bodyLength, connection.getServer().getWorkers());
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws UnsupportedEncodingException {
+        if (inputStream != null && reader == null) {
+            throw new IllegalStateException("已经调用过getInputStream");
+        }
+        if (reader == null) {
+            reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body, 0, bodyLength), charset()));
+        }
+        return reader;
+    }
+
+    /**
+     * 解析查询字符串和表单请求体中的参数，同名参数按出现顺序保存
+     * 已经读过请求体时不再解析请求体
+     */
+    private Map<String, List<String>> getParameters() {
+        if (parameters == null) {
+            Map<String, List<String>> params = new LinkedHashMap<>();
+            Charset charset = charset();
+            try {
+                if (queryString != null) {
+                    byte[] query = queryString.getBytes(StandardCharsets.ISO_8859_1);
+                    params.putAll(FormParser.parse(new ByteArrayInputStream(query), charset, Long.MAX_VALUE));
+                }
+                String contentType = getContentType();
+                if (inputStream == null && reader == null && "POST".equals(method) && contentType != null
+                        && contentType.regionMatches(true, 0, "application/x-www-form-urlencoded", 0, 33)) {
+                    Map<String, List<String>> form = FormParser.parse(
+                            new ByteArrayInputStream(body, 0, bodyLength), charset, MAX_FORM_SIZE);
+                    for (Map.Entry<String, List<String>> entry : form.entrySet()) {
+                        List<String> values = params.get(entry.getKey());
+                        if (values == null) {
+                            params.put(entry.getKey(), entry.getValue());
+                        } else {
+                            values.addAll(entry.getValue());
+                        }
+                    }
+                    //请求体已经作为参数读取了
+                    inputStream = new RequestInputStream(body, 0, connection.getServer().getWorkers());
+                }
+            } catch (IOException e) {
+                throw new ResponseStatusException(400, "不能解析请求参数", e);
+            }
+            parameters = params;
+        }
+        return parameters;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        List<String> values = getParameters().get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(getParameters().keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        List<String> values = getParameters().get(name);
+        return values == null ? null : values.toArray(new String[values.size()]);
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        Map<String, String[]> map = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : getParameters().entrySet()) {
+            map.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public String getScheme() {
+        return "http";
+    }
+
+    @Override
+    public String getServerName() {
+        String host = getHeader("Host");
+        if (host == null || host.isEmpty()) {
+            return getLocalName();
+        }
+        if (host.startsWith("[")) {
+            //IPv6地址
+            int end = host.indexOf(']');
+            return end < 0 ? host : host.substring(0, end + 1);
+        }
+        int colon = host.indexOf(':');
+        return colon < 0 ? host : host.substring(0, colon);
+    }
+
+    @Override
+    public int getServerPort() {
+        String host = getHeader("Host");
+        if (host == null || host.isEmpty()) {
+            return getLocalPort();
+        }
+        int colon = host.lastIndexOf(':');
+        if (colon < 0 || host.indexOf(']', colon) >= 0) {
+            return 80;
+        }
+        try {
+            return Integer.parseInt(host.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return getLocalPort();
+        }
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return connection.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return getRemoteAddr();
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if (o == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, o);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public Locale getLocale() {
+        String acceptLanguage = getHeader("Accept-Language");
+        if (acceptLanguage == null || acceptLanguage.isEmpty()) {
+            return Locale.getDefault();
+        }
+        String first = acceptLanguage.split(",")[0];
+        int semicolon = first.indexOf(';');
+        String tag = (semicolon < 0 ? first : first.substring(0, semicolon)).trim();
+        return tag.isEmpty() || tag.equals("*") ? Locale.getDefault() : Locale.forLanguageTag(tag);
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(Collections.singletonList(getLocale()));
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    /**
+     * 没有jsp引擎，不能转发
+     */
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public String getRealPath(String path) {
+        return servletContext.getRealPath(path);
+    }
+
+    @Override
+    public int getRemotePort() {
+        return connection.getRemoteAddress().getPort();
+    }
+
+    @Override
+    public String getLocalName() {
+        return connection.getLocalAddress().getHostString();
+    }
+
+    @Override
+    public String getLocalAddr() {
+        return connection.getLocalAddress().getAddress().getHostAddress();
+    }
+
+    @Override
+    public int getLocalPort() {
+        return connection.getLocalAddress().getPort();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        return startAsync(this, response);
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        if (asyncContext == null) {
+            asyncContext = new EmbeddedAsyncContext(connection, this, response);
+        }
+        asyncContext.start(servletRequest, servletResponse);
+        return asyncContext;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return asyncContext != null && asyncContext.isStarted();
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return true;
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        if (!isAsyncStarted()) {
+            throw new IllegalStateException("没有开始异步请求");
+        }
+        return asyncContext;
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return dispatcherType;
+    }
+}
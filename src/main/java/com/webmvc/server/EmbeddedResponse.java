@@ -0,0 +1,667 @@
+package com.webmvc.server;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 内嵌服务器的响应
+ * 响应头在第一次写出响应体时才生成，之前可以随意修改
+ * Created by sgz
+ * 2026/10/22 14:20
+ */
+final class EmbeddedResponse implements HttpServletResponse {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+            .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    /*Date头每秒只格式化一次*/
+    private static volatile long dateSecond;
+
+    private static volatile String date;
+
+    private final EmbeddedRequest request;
+
+    private final ResponseOutputStream output;
+
+    private final boolean http11;
+
+    private final boolean head;
+
+    private int status = SC_OK;
+
+    /*除了Content-Type和Content-Length以外的响应头，按 名字,值,名字,值 的顺序保存*/
+    private final List<String> headers = new ArrayList<>();
+
+    /*不包含charset*/
+    private String contentType;
+
+    private String characterEncoding;
+
+    private long contentLength = -1;
+
+    private Locale locale = Locale.getDefault();
+
+    private PrintWriter writer;
+
+    private boolean usingStream;
+
+    private boolean usingWriter;
+
+    private boolean chunked;
+
+    private boolean keepAlive;
+
+    /*提交响应之后出错，响应体可能不完整，只能关闭连接*/
+    private boolean broken;
+
+    EmbeddedResponse(EmbeddedRequest request, HttpConnection connection) {
+        this.request = request;
+        this.http11 = "HTTP/1.1".equals(request.getProtocol());
+        this.head = "HEAD".equals(request.getMethod());
+        String connectionHeader = request.getHeader("Connection");
+        this.keepAlive = http11 ? !containsToken(connectionHeader, "close") : containsToken(connectionHeader, "keep-alive");
+        this.output = new ResponseOutputStream(this, connection, connection.getServer().getWorkers(), head, DEFAULT_BUFFER_SIZE);
+    }
+
+    private static boolean containsToken(String value, String token) {
+        if (value == null) {
+            return false;
+        }
+        for (String part : value.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 生成响应头，决定响应体的长度怎么表示
+     * @param last 响应体是否已经全部写入了
+     * @param written 已经写入的响应体字节数
+     */
+    byte[] commit(boolean last, long written) {
+        if (hasBody()) {
+            if (contentLength < 0) {
+                if (last) {
+                    contentLength = written;
+                } else if (http11) {
+                    chunked = true;
+                } else {
+                    //HTTP/1.0只能用关闭连接表示响应体结束
+                    keepAlive = false;
+                }
+            }
+        } else if (head && contentLength < 0 && last && written > 0) {
+            contentLength = written;
+        }
+        if (containsToken(getHeader("Connection"), "close")) {
+            keepAlive = false;
+        }
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("HTTP/1.1 ").append(status).append(' ').append(reasonPhrase(status)).append("\r\n");
+        sb.append("Date: ").append(currentDate()).append("\r\n");
+        String type = getContentType();
+        if (type != null) {
+            sb.append("Content-Type: ").append(type).append("\r\n");
+        }
+        if (contentLength >= 0 && (hasBody() || head)) {
+            sb.append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        if (chunked) {
+            sb.append("Transfer-Encoding: chunked\r\n");
+        }
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (!headers.get(i).equalsIgnoreCase("Connection")) {
+                sb.append(headers.get(i)).append(": ").append(headers.get(i + 1)).append("\r\n");
+            }
+        }
+        if (http11 && !keepAlive) {
+            sb.append("Connection: close\r\n");
+        } else if (!http11 && keepAlive) {
+            sb.append("Connection: keep-alive\r\n");
+        }
+        sb.append("\r\n");
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String currentDate() {
+        long now = System.currentTimeMillis();
+        long second = now / 1000;
+        String value = date;
+        if (second != dateSecond || value == null) {
+            value = HTTP_DATE.format(Instant.ofEpochMilli(now));
+            date = value;
+            dateSecond = second;
+        }
+        return value;
+    }
+
+    /**
+     * @return 这个响应是否可以有响应体
+     */
+    boolean hasBody() {
+        return !head && status >= 200 && status != SC_NO_CONTENT && status != SC_NOT_MODIFIED;
+    }
+
+    boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * @return 响应结束后连接是否可以继续使用
+     */
+    boolean isKeepAlive() {
+        if (!keepAlive || broken) {
+            return false;
+        }
+        //响应体比Content-Length短，客户端会一直等下去
+        return !hasBody() || contentLength < 0 || output.getWritten() >= contentLength;
+    }
+
+    /**
+     * 结束响应，写出缓冲区中剩下的数据
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        output.finish();
+    }
+
+    /**
+     * servlet抛出了异常，还没有提交时改成500，否则只能关闭连接
+     */
+    void onServiceError() {
+        if (isCommitted()) {
+            broken = true;
+            return;
+        }
+        reset();
+        try {
+            sendError(SC_INTERNAL_SERVER_ERROR);
+        } catch (IOException e) {
+            broken = true;
+        }
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(cookie.getName()).append('=').append(cookie.getValue() == null ? "" : cookie.getValue());
+        if (cookie.getMaxAge() >= 0) {
+            sb.append("; Max-Age=").append(cookie.getMaxAge());
+            sb.append("; Expires=").append(HTTP_DATE.format(Instant.ofEpochMilli(
+                    System.currentTimeMillis() + cookie.getMaxAge() * 1000L)));
+        }
+        if (cookie.getDomain() != null) {
+            sb.append("; Domain=").append(cookie.getDomain());
+        }
+        if (cookie.getPath() != null) {
+            sb.append("; Path=").append(cookie.getPath());
+        }
+        if (cookie.getSecure()) {
+            sb.append("; Secure");
+        }
+        if (cookie.isHttpOnly()) {
+            sb.append("; HttpOnly");
+        }
+        addHeader("Set-Cookie", sb.toString());
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        if (name.equalsIgnoreCase("Content-Type")) {
+            return contentType != null;
+        }
+        if (name.equalsIgnoreCase("Content-Length")) {
+            return contentLength >= 0;
+        }
+        return indexOf(name) >= 0;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(String url) {
+        return url;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        if (isCommitted()) {
+            throw new IllegalStateException("响应已经提交了");
+        }
+        output.resetBuffer();
+        writer = null;
+        status = sc;
+        contentType = "text/html";
+        characterEncoding = "UTF-8";
+        contentLength = -1;
+        String title = sc + " " + reasonPhrase(sc);
+        StringBuilder page = new StringBuilder(256);
+        page.append("<html><head><title>").append(title).append("</title></head><body><h1>")
+                .append(title).append("</h1>");
+        if (msg != null) {
+            page.append("<p>").append(escapeHtml(msg)).append("</p>");
+        }
+        page.append("</body></html>");
+        output.write(page.toString().getBytes(StandardCharsets.UTF_8));
+        output.suspend();
+    }
+
+    private static String escapeHtml(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        if (isCommitted()) {
+            throw new IllegalStateException("响应已经提交了");
+        }
+        output.resetBuffer();
+        writer = null;
+        if (location.indexOf("://") < 0 && !location.startsWith("/")) {
+            //相对于当前请求的路径
+            String uri = request.getRequestURI();
+            location = uri.substring(0, uri.lastIndexOf('/') + 1) + location;
+        }
+        status = SC_FOUND;
+        contentLength = 0;
+        setHeader("Location", location);
+        output.suspend();
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (name == null || isCommitted()) {
+            return;
+        }
+        if (setSpecialHeader(name, value)) {
+            return;
+        }
+        int index;
+        while ((index = indexOf(name)) >= 0) {
+            headers.remove(index + 1);
+            headers.remove(index);
+        }
+        if (value != null) {
+            headers.add(name);
+            headers.add(value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (name == null || value == null || isCommitted()) {
+            return;
+        }
+        if (setSpecialHeader(name, value)) {
+            return;
+        }
+        headers.add(name);
+        headers.add(value);
+    }
+
+    /**
+     * Content-Type和Content-Length不保存在响应头列表中
+     */
+    private boolean setSpecialHeader(String name, String value) {
+        if (name.equalsIgnoreCase("Content-Type")) {
+            setContentType(value);
+            return true;
+        }
+        if (name.equalsIgnoreCase("Content-Length")) {
+            setContentLengthLong(value == null ? -1 : Long.parseLong(value.trim()));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        if (!isCommitted()) {
+            status = sc;
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+        setStatus(sc);
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (name.equalsIgnoreCase("Content-Type")) {
+            return getContentType();
+        }
+        if (name.equalsIgnoreCase("Content-Length")) {
+            return contentLength < 0 ? null : String.valueOf(contentLength);
+        }
+        int index = indexOf(name);
+        return index < 0 ? null : headers.get(index + 1);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) {
+                values.add(headers.get(i + 1));
+            }
+        }
+        if (values.isEmpty() && getHeader(name) != null) {
+            values.add(getHeader(name));
+        }
+        return values;
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        Set<String> names = new LinkedHashSet<>();
+        if (contentType != null) {
+            names.add("Content-Type");
+        }
+        if (contentLength >= 0) {
+            names.add("Content-Length");
+        }
+        for (int i = 0; i < headers.size(); i += 2) {
+            names.add(headers.get(i));
+        }
+        return names;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding == null ? "ISO-8859-1" : characterEncoding;
+    }
+
+    @Override
+    public String getContentType() {
+        if (contentType == null) {
+            return null;
+        }
+        return characterEncoding == null ? contentType : contentType + ";charset=" + characterEncoding;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (usingWriter) {
+            throw new IllegalStateException("已经调用过getWriter");
+        }
+        usingStream = true;
+        return output;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws UnsupportedEncodingException {
+        if (usingStream) {
+            throw new IllegalStateException("已经调用过getOutputStream");
+        }
+        if (writer == null) {
+            if (characterEncoding == null) {
+                characterEncoding = "ISO-8859-1";
+            }
+            Charset charset;
+            try {
+                charset = Charset.forName(characterEncoding);
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedEncodingException(characterEncoding);
+            }
+            writer = new PrintWriter(new OutputStreamWriter(output, charset), false);
+            usingWriter = true;
+        }
+        return writer;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (isCommitted() || usingWriter) {
+            return;
+        }
+        characterEncoding = charset;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (!isCommitted()) {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (isCommitted()) {
+            return;
+        }
+        if (type == null) {
+            contentType = null;
+            return;
+        }
+        int semicolon = type.indexOf(';');
+        if (semicolon < 0) {
+            contentType = type.trim();
+            return;
+        }
+        //charset单独保存，其它参数留在contentType中
+        StringBuilder sb = new StringBuilder(type.substring(0, semicolon).trim());
+        for (String param : type.substring(semicolon + 1).split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                if (!usingWriter) {
+                    String charset = trimmed.substring(8).trim();
+                    if (charset.length() > 1 && charset.startsWith("\"") && charset.endsWith("\"")) {
+                        charset = charset.substring(1, charset.length() - 1);
+                    }
+                    characterEncoding = charset;
+                }
+            } else if (!trimmed.isEmpty()) {
+                sb.append(';').append(trimmed);
+            }
+        }
+        contentType = sb.toString();
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        output.setBufferSize(size);
+    }
+
+    @Override
+    public int getBufferSize() {
+        return output.getBufferSize();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        output.flush();
+    }
+
+    @Override
+    public void resetBuffer() {
+        output.resetBuffer();
+        if (writer != null) {
+            writer = null;
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return output.isCommitted() || output.isSuspended();
+    }
+
+    @Override
+    public void reset() {
+        if (isCommitted()) {
+            throw new IllegalStateException("响应已经提交了");
+        }
+        output.resetBuffer();
+        headers.clear();
+        status = SC_OK;
+        contentType = null;
+        characterEncoding = null;
+        contentLength = -1;
+        writer = null;
+        usingStream = false;
+        usingWriter = false;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        if (loc == null || isCommitted()) {
+            return;
+        }
+        locale = loc;
+        setHeader("Content-Language", loc.toLanguageTag());
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    static String reasonPhrase(int status) {
+        switch (status) {
+            case 100: return "Continue";
+            case 101: return "Switching Protocols";
+            case 200: return "OK";
+            case 201: return "Created";
+            case 202: return "Accepted";
+            case 204: return "No Content";
+            case 206: return "Partial Content";
+            case 301: return "Moved Permanently";
+            case 302: return "Found";
+            case 303: return "See Other";
+            case 304: return "Not Modified";
+            case 307: return "Temporary Redirect";
+            case 308: return "Permanent Redirect";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 406: return "Not Acceptable";
+            case 408: return "Request Timeout";
+            case 409: return "Conflict";
+            case 410: return "Gone";
+            case 411: return "Length Required";
+            case 412: return "Precondition Failed";
+            case 413: return "Payload Too Large";
+            case 414: return "URI Too Long";
+            case 415: return "Unsupported Media Type";
+            case 416: return "Range Not Satisfiable";
+            case 417: return "Expectation Failed";
+            case 422: return "Unprocessable Entity";
+            case 429: return "Too Many Requests";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            case 505: return "HTTP Version Not Supported";
+            default: return "Unknown";
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.webmvc.server;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterRegistration;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.Servlet;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+import javax.servlet.SessionCookieConfig;
+import javax.servlet.SessionTrackingMode;
+import javax.servlet.descriptor.JspConfigDescriptor;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.EventListener;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内嵌服务器的ServletContext，只部署一个servlet，context path为空
+ * 资源从web根目录读取，没有jsp引擎和默认servlet，getServletRegistration("jsp")和("default")返回null，
+ * 不支持session、filter和动态注册servlet
+ * Created by sgz
+ * 2026/10/22 10:45
+ */
+final class EmbeddedServletContext implements ServletContext {
+
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    static {
+        MIME_TYPES.put("html", "text/html");
+        MIME_TYPES.put("htm", "text/html");
+        MIME_TYPES.put("tpl", "text/html");
+        MIME_TYPES.put("css", "text/css");
+        MIME_TYPES.put("js", "application/javascript");
+        MIME_TYPES.put("mjs", "application/javascript");
+        MIME_TYPES.put("json", "application/json");
+        MIME_TYPES.put("map", "application/json");
+        MIME_TYPES.put("xml", "application/xml");
+        MIME_TYPES.put("txt", "text/plain");
+        MIME_TYPES.put("csv", "text/csv");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("webp", "image/webp");
+        MIME_TYPES.put("svg", "image/svg+xml");
+        MIME_TYPES.put("ico", "image/x-icon");
+        MIME_TYPES.put("woff", "font/woff");
+        MIME_TYPES.put("woff2", "font/woff2");
+        MIME_TYPES.put("ttf", "font/ttf");
+        MIME_TYPES.put("otf", "font/otf");
+        MIME_TYPES.put("wasm", "application/wasm");
+        MIME_TYPES.put("pdf", "application/pdf");
+        MIME_TYPES.put("zip", "application/zip");
+        MIME_TYPES.put("gz", "application/gzip");
+        MIME_TYPES.put("mp3", "audio/mpeg");
+        MIME_TYPES.put("mp4", "video/mp4");
+        MIME_TYPES.put("webm", "video/webm");
+    }
+
+    private final File documentRoot;
+
+    private final String serverInfo;
+
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    private final Map<String, String> initParameters = new ConcurrentHashMap<>();
+
+    private final Registration registration;
+
+    EmbeddedServletContext(File documentRoot, String servletName, Servlet servlet, String serverInfo) {
+        this.documentRoot = documentRoot;
+        this.serverInfo = serverInfo;
+        this.registration = new Registration(servletName, servlet.getClass().getName());
+        registration.addMapping("/*");
+    }
+
+    /**
+     * 按servlet的映射把请求路径分成servletPath和pathInfo
+     * 精确映射优先，然后是最长的/xxx/*前缀，/*匹配所有路径
+     * @return [servletPath, pathInfo]，pathInfo可能为null
+     */
+    String[] mapPath(String path) {
+        String bestPrefix = null;
+        for (String mapping : registration.mappings) {
+            if (mapping.equals(path)) {
+                return new String[]{path, null};
+            }
+            if (mapping.endsWith("/*")) {
+                String prefix = mapping.substring(0, mapping.length() - 2);
+                if ((path.equals(prefix) || path.startsWith(prefix + "/"))
+                        && (bestPrefix == null || prefix.length() > bestPrefix.length())) {
+                    bestPrefix = prefix;
+                }
+            }
+        }
+        if (bestPrefix == null) {
+            return new String[]{path, null};
+        }
+        return new String[]{bestPrefix, path.length() == bestPrefix.length() ? null : path.substring(bestPrefix.length())};
+    }
+
+    private File toFile(String path) {
+        if (path == null || !path.startsWith("/")) {
+            return null;
+        }
+        return new File(documentRoot, path.substring(1));
+    }
+
+    @Override
+    public String getContextPath() {
+        return "";
+    }
+
+    @Override
+    public ServletContext getContext(String uripath) {
+        return uripath != null && uripath.startsWith("/") ? this : null;
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 3;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getEffectiveMajorVersion() {
+        return 3;
+    }
+
+    @Override
+    public int getEffectiveMinorVersion() {
+        return 1;
+    }
+
+    @Override
+    public String getMimeType(String file) {
+        int dot = file.lastIndexOf('.');
+        if (dot >= 0) {
+            String type = MIME_TYPES.get(file.substring(dot + 1).toLowerCase());
+            if (type != null) {
+                return type;
+            }
+        }
+        return URLConnection.getFileNameMap().getContentTypeFor(file);
+    }
+
+    @Override
+    public Set<String> getResourcePaths(String path) {
+        File dir = toFile(path);
+        File[] files = dir == null ? null : dir.listFiles();
+        if (files == null) {
+            return null;
+        }
+        String base = path.endsWith("/") ? path : path + "/";
+        Set<String> paths = new LinkedHashSet<>();
+        for (File file : files) {
+            paths.add(base + file.getName() + (file.isDirectory() ? "/" : ""));
+        }
+        return paths;
+    }
+
+    @Override
+    public URL getResource(String path) throws MalformedURLException {
+        if (path == null || !path.startsWith("/")) {
+            throw new MalformedURLException("资源路径必须以/开头, " + path);
+        }
+        File file = toFile(path);
+        return file.exists() ? file.toURI().toURL() : null;
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String path) {
+        File file = toFile(path);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try {
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 没有jsp引擎，不能转发
+     */
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        return null;
+    }
+
+    @Override
+    public RequestDispatcher getNamedDispatcher(String name) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public Servlet getServlet(String name) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public Enumeration<Servlet> getServlets() {
+        return Collections.emptyEnumeration();
+    }
+
+    @Override
+    @Deprecated
+    public Enumeration<String> getServletNames() {
+        return Collections.emptyEnumeration();
+    }
+
+    @Override
+    public void log(String msg) {
+        System.err.println(new Date() + " " + msg);
+    }
+
+    @Override
+    @Deprecated
+    public void log(Exception exception, String msg) {
+        log(msg, exception);
+    }
+
+    @Override
+    public void log(String message, Throwable throwable) {
+        log(message);
+        if (throwable != null) {
+            throwable.printStackTrace();
+        }
+    }
+
+    @Override
+    public String getRealPath(String path) {
+        File file = toFile(path);
+        return file == null ? null : file.getAbsolutePath();
+    }
+
+    @Override
+    public String getServerInfo() {
+        return serverInfo;
+    }
+
+    @Override
+    public String getInitParameter(String name) {
+        return initParameters.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(initParameters.keySet());
+    }
+
+    @Override
+    public boolean setInitParameter(String name, String value) {
+        return initParameters.putIfAbsent(name, value) == null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object object) {
+        if (object == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, object);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public String getServletContextName() {
+        return null;
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, String className) {
+        throw new UnsupportedOperationException("内嵌服务器不支持动态注册servlet");
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, Servlet servlet) {
+        throw new UnsupportedOperationException("内嵌服务器不支持动态注册servlet");
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, Class<? extends Servlet> servletClass) {
+        throw new UnsupportedOperationException("内嵌服务器不支持动态注册servlet");
+    }
+
+    @Override
+    public <T extends Servlet> T createServlet(Class<T> clazz) {
+        throw new UnsupportedOperationException("内嵌服务器不支持动态注册servlet");
+    }
+
+    @Override
+    public ServletRegistration getServletRegistration(String servletName) {
+        return registration.name.equals(servletName) ? registration : null;
+    }
+
+    @Override
+    public Map<String, ? extends ServletRegistration> getServletRegistrations() {
+        return Collections.singletonMap(registration.name, registration);
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, String className) {
+        throw new UnsupportedOperationException("内嵌服务器不支持filter");
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, Filter filter) {
+        throw new UnsupportedOperationException("内嵌服务器不支持filter");
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, Class<? extends Filter> filterClass) {
+        throw new UnsupportedOperationException("内嵌服务器不支持filter");
+    }
+
+    @Override
+    public <T extends Filter> T createFilter(Class<T> clazz) {
+        throw new UnsupportedOperationException("内嵌服务器不支持filter");
+    }
+
+    @Override
+    public FilterRegistration getFilterRegistration(String filterName) {
+        return null;
+    }
+
+    @Override
+    public Map<String, ? extends FilterRegistration> getFilterRegistrations() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public SessionCookieConfig getSessionCookieConfig() {
+        return null;
+    }
+
+    @Override
+    public void setSessionTrackingModes(Set<SessionTrackingMode> sessionTrackingModes) {
+        throw new UnsupportedOperationException("内嵌服务器不支持session");
+    }
+
+    @Override
+    public Set<SessionTrackingMode> getDefaultSessionTrackingModes() {
+        return EnumSet.noneOf(SessionTrackingMode.class);
+    }
+
+    @Override
+    public Set<SessionTrackingMode> getEffectiveSessionTrackingModes() {
+        return EnumSet.noneOf(SessionTrackingMode.class);
+    }
+
+    @Override
+    public void addListener(String className) {
+        throw new UnsupportedOperationException("内嵌服务器不支持监听器");
+    }
+
+    @Override
+    public <T extends EventListener> void addListener(T t) {
+        throw new UnsupportedOperationException("内嵌服务器不支持监听器");
+    }
+
+    @Override
+    public void addListener(Class<? extends EventListener> listenerClass) {
+        throw new UnsupportedOperationException("内嵌服务器不支持监听器");
+    }
+
+    @Override
+    public <T extends EventListener> T createListener(Class<T> clazz) {
+        throw new UnsupportedOperationException("内嵌服务器不支持监听器");
+    }
+
+    @Override
+    public JspConfigDescriptor getJspConfigDescriptor() {
+        return null;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return Thread.currentThread().getContextClassLoader();
+    }
+
+    @Override
+    public void declareRoles(String... roleNames) {
+    }
+
+    @Override
+    public String getVirtualServerName() {
+        return "localhost";
+    }
+
+    /**
+     * 唯一的servlet的注册信息，只支持精确映射和/xxx/*形式的前缀映射
+     */
+    private static final class Registration implements ServletRegistration {
+
+        private final String name;
+
+        private final String className;
+
+        /*启动时添加，之后只读*/
+        private final List<String> mappings = new ArrayList<>();
+
+        private final Map<String, String> initParameters = new HashMap<>();
+
+        Registration(String name, String className) {
+            this.name = name;
+            this.className = className;
+        }
+
+        @Override
+        public Set<String> addMapping(String... urlPatterns) {
+            Set<String> conflicts = new LinkedHashSet<>();
+            for (String pattern : urlPatterns) {
+                if (!pattern.startsWith("/")) {
+                    throw new IllegalArgumentException("内嵌服务器只支持以/开头的映射, " + pattern);
+                }
+                if (mappings.contains(pattern)) {
+                    conflicts.add(pattern);
+                } else {
+                    mappings.add(pattern);
+                }
+            }
+            return conflicts;
+        }
+
+        @Override
+        public Set<String> getMappings() {
+            return new LinkedHashSet<>(mappings);
+        }
+
+        @Override
+        public String getRunAsRole() {
+            return null;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getClassName() {
+            return className;
+        }
+
+        @Override
+        public boolean setInitParameter(String name, String value) {
+            return initParameters.putIfAbsent(name, value) == null;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return initParameters.get(name);
+        }
+
+        @Override
+        public Set<String> setInitParameters(Map<String, String> initParameters) {
+            Set<String> conflicts = new LinkedHashSet<>();
+            for (Map.Entry<String, String> entry : initParameters.entrySet()) {
+                if (!setInitParameter(entry.getKey(), entry.getValue())) {
+                    conflicts.add(entry.getKey());
+                }
+            }
+            return conflicts;
+        }
+
+        @Override
+        public Map<String, String> getInitParameters() {
+            return Collections.unmodifiableMap(initParameters);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.webmvc.server;
+
+import com.webmvc.excepetion.ResponseStatusException;
+import com.webmvc.util.locks.ReentrantLock;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+/**
+ * 一个客户端连接
+ * 读取和解析请求在选择器线程中进行，一个请求读完后停止读取，交给工作线程执行servlet，
+ * 响应结束后再回到选择器线程解析下一个请求，所以同一个连接上的请求按顺序处理
+ * Created by sgz
+ * 2026/10/22 11:05
+ */
+final class HttpConnection implements Runnable {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final HttpServer server;
+
+    private final SocketChannel channel;
+
+    private final InetSocketAddress localAddress;
+
+    private final InetSocketAddress remoteAddress;
+
+    /*处于写模式，上一个请求读完后剩下的数据留在里面*/
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    private final RequestParser parser;
+
+    private SelectionKey key;
+
+    /*最后一次读到或写出数据的时间*/
+    private volatile long lastActive = System.currentTimeMillis();
+
+    /*有请求在工作线程中处理，只在选择器线程中访问*/
+    private boolean processing;
+
+    /*交给工作线程处理的请求*/
+    private EmbeddedRequest request;
+
+    /*等待可写用ReentrantLock而不是synchronized和wait，虚拟线程等待时不会固定平台线程*/
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition writableCondition = lock.newCondition();
+
+    /*选择器通知socket可写了，由lock保护*/
+    private boolean writable;
+
+    /*由lock保护*/
+    private boolean closed;
+
+    HttpConnection(HttpServer server, SocketChannel channel, int maxHeaderSize, long maxBodySize) throws IOException {
+        this.server = server;
+        this.channel = channel;
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+        this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+        this.parser = new RequestParser(maxHeaderSize, maxBodySize);
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * 选择器线程：有数据可读
+     */
+    void onReadable() {
+        int read;
+        try {
+            read = channel.read(readBuffer);
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        if (read < 0) {
+            close();
+            return;
+        }
+        lastActive = System.currentTimeMillis();
+        parseBuffered();
+    }
+
+    /**
+     * 选择器线程：解析缓冲区中的数据，读到一个完整的请求就交给工作线程
+     */
+    private void parseBuffered() {
+        readBuffer.flip();
+        try {
+            if (!parser.parse(readBuffer)) {
+                if (parser.isExpectingContinue()) {
+                    writeQuietly(CONTINUE);
+                    parser.continueSent();
+                }
+                return;
+            }
+            request = new EmbeddedRequest(this, server.getServletContext(), parser.getMethod(), parser.getTarget(),
+                    parser.getProtocol(), parser.getHeaders(), parser.getBody(), parser.getBodyLength(), parser.isChunked());
+        } catch (ResponseStatusException e) {
+            rejectAndClose(e.getStatus());
+            return;
+        } finally {
+            readBuffer.compact();
+        }
+        parser.reset();
+        processing = true;
+        key.interestOps(0);
+        try {
+            server.getWorkers().execute(this);
+        } catch (RejectedExecutionException e) {
+            rejectAndClose(503);
+        }
+    }
+
+    /**
+     * 工作线程：执行servlet
+     */
+    @Override
+    public void run() {
+        EmbeddedRequest req = request;
+        service(req, req.getResponse());
+    }
+
+    /**
+     * 执行servlet，请求没有转成异步时结束响应
+     * 异步请求的dispatch也通过这里执行
+     */
+    void service(EmbeddedRequest req, EmbeddedResponse resp) {
+        try {
+            server.getServlet().service(req, resp);
+        } catch (Throwable e) {
+            server.getServletContext().log("处理请求时出错, " + req.getMethod() + " " + req.getRequestURI(), e);
+            resp.onServiceError();
+        }
+        EmbeddedAsyncContext asyncContext = req.getAsyncContextIfCreated();
+        if (asyncContext != null && asyncContext.onServiceReturned()) {
+            //由异步请求负责结束响应
+            return;
+        }
+        finish(resp, asyncContext);
+    }
+
+    /**
+     * 写完响应，然后处理连接上的下一个请求或者关闭连接
+     * @param asyncContext 请求转成过异步时不为null，通知它的监听器请求结束了
+     */
+    void finish(EmbeddedResponse resp, EmbeddedAsyncContext asyncContext) {
+        boolean keepAlive;
+        try {
+            resp.finish();
+            keepAlive = resp.isKeepAlive();
+        } catch (IOException e) {
+            keepAlive = false;
+        }
+        if (asyncContext != null) {
+            asyncContext.fireComplete();
+        }
+        if (keepAlive && server.isRunning()) {
+            server.execute(new Runnable() {
+                @Override
+                public void run() {
+                    resume();
+                }
+            });
+        } else {
+            close();
+        }
+    }
+
+    /**
+     * 选择器线程：上一个请求结束了，先解析已经读到的数据，不够一个请求时继续读
+     */
+    private void resume() {
+        if (isClosed()) {
+            return;
+        }
+        processing = false;
+        request = null;
+        lastActive = System.currentTimeMillis();
+        parseBuffered();
+        if (!processing && !isClosed()) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * 选择器线程：关闭空闲或者读请求太慢的连接
+     */
+    void checkTimeout(long now) {
+        if (!processing && now - lastActive > server.getKeepAliveTimeout()) {
+            if (!parser.isIdle()) {
+                rejectAndClose(408);
+            } else {
+                close();
+            }
+        }
+    }
+
+    /**
+     * 工作线程：把缓冲区的数据全部写出，发送缓冲区满时等待选择器通知可写
+     */
+    void write(ByteBuffer... buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            long written = channel.write(buffers);
+            remaining -= written;
+            if (written == 0) {
+                awaitWritable();
+            }
+        }
+        lastActive = System.currentTimeMillis();
+    }
+
+    private void awaitWritable() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("连接已经关闭");
+            }
+            writable = false;
+        } finally {
+            lock.unlock();
+        }
+        server.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (key.isValid()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                }
+            }
+        });
+        long deadline = System.currentTimeMillis() + server.getKeepAliveTimeout();
+        lock.lock();
+        try {
+            while (!writable && !closed) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    break;
+                }
+                try {
+                    writableCondition.await(wait, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待写响应时被中断");
+                }
+            }
+            if (closed) {
+                throw new IOException("连接已经关闭");
+            }
+            if (writable) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        close();
+        throw new IOException("写响应超时");
+    }
+
+    /**
+     * 选择器线程：socket可写了，唤醒等待的工作线程
+     */
+    void onWritable() {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        lock.lock();
+        try {
+            writable = true;
+            writableCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 选择器线程：不能交给servlet的请求直接返回状态码并关闭连接
+     */
+    private void rejectAndClose(int status) {
+        writeQuietly(("HTTP/1.1 " + status + " " + EmbeddedResponse.reasonPhrase(status)
+                + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        close();
+    }
+
+    /**
+     * 选择器线程：不等待地写出少量数据，写不完就放弃
+     */
+    private void writeQuietly(byte[] data) {
+        try {
+            channel.write(ByteBuffer.wrap(data));
+        } catch (IOException e) {
+            //客户端已经断开了
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writableCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //忽略
+        }
+        server.removeConnection(this);
+    }
+
+    boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    HttpServer getServer() {
+        return server;
+    }
+
+    InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+}
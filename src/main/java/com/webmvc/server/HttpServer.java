@@ -0,0 +1,353 @@
+package com.webmvc.server;
+
+import com.webmvc.DispatcherServlet;
+import com.webmvc.async.VirtualThreads;
+import com.webmvc.helper.ConfigHelper;
+import com.webmvc.util.threadpool.ArrayBlockingQueue;
+import com.webmvc.util.threadpool.NamedThreadFactory;
+import com.webmvc.util.threadpool.ThreadPoolExecutor;
+
+import javax.servlet.Servlet;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内嵌的HTTP/1.1服务器，不需要servlet容器就能运行DispatcherServlet
+ * 一个选择器线程负责接受连接和读取请求，请求完整读到内存后交给工作线程池执行servlet，
+ * 工作线程直接写socket，发送缓冲区满时等待选择器通知可写
+ * 支持keep-alive、管道化请求、chunked编码的请求体和响应体、Expect: 100-continue和异步请求
+ * 没有jsp引擎，视图只能用模板；不支持session、filter和multipart
+ * 配置(webmvc.server.)：host、port、document_root、worker_threads、queue_size、
+ * keep_alive_timeout、max_header_size，请求体大小受webmvc.max_body_size限制
+ * Created by sgz
+ * 2026/10/22 11:30
+ */
+public class HttpServer {
+
+    static final String SERVER_INFO = "webmvc-embedded/0.0.1";
+
+    private static final String SERVLET_NAME = "dispatcher";
+
+    /*检查空闲连接和异步请求超时的间隔(毫秒)*/
+    private static final long SWEEP_INTERVAL = 1000;
+
+    private final Servlet servlet;
+
+    private final String host;
+
+    private final int port;
+
+    private final File documentRoot;
+
+    private final long keepAliveTimeout;
+
+    private final int maxHeaderSize;
+
+    private final long maxBodySize;
+
+    /*固定大小的平台线程池，JDK 21以上开启webmvc.server.virtual_threads时每个请求一个虚拟线程*/
+    private final ExecutorService workers;
+
+    /*选择器线程要执行的任务，其它线程修改SelectionKey时通过它交给选择器线程*/
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final Set<HttpConnection> connections = Collections.newSetFromMap(new ConcurrentHashMap<HttpConnection, Boolean>());
+
+    private final Set<EmbeddedAsyncContext> asyncContexts = Collections.newSetFromMap(new ConcurrentHashMap<EmbeddedAsyncContext, Boolean>());
+
+    private EmbeddedServletContext servletContext;
+
+    private ServerSocketChannel serverChannel;
+
+    private Selector selector;
+
+    private Thread selectorThread;
+
+    private volatile boolean running;
+
+    /**
+     * 端口和其它配置从webmvc.properties读取
+     */
+    public HttpServer(Servlet servlet) {
+        this(servlet, ConfigHelper.getServerPort());
+    }
+
+    /**
+     * @param port 监听的端口，为0时随机选择，启动后通过getPort获取
+     */
+    public HttpServer(Servlet servlet, int port) {
+        this.servlet = servlet;
+        this.host = ConfigHelper.getServerHost();
+        this.port = port;
+        this.documentRoot = new File(ConfigHelper.getServerDocumentRoot());
+        this.keepAliveTimeout = ConfigHelper.getServerKeepAliveTimeout();
+        this.maxHeaderSize = ConfigHelper.getServerMaxHeaderSize();
+        this.maxBodySize = ConfigHelper.getMaxBodySize();
+        if (ConfigHelper.isServerVirtualThreads() && VirtualThreads.isSupported()) {
+            this.workers = VirtualThreads.newExecutor("webmvc-http");
+            long threshold = ConfigHelper.getAsyncPinnedThreshold();
+            if (threshold >= 0) {
+                VirtualThreads.startPinnedMonitor(threshold);
+            }
+        } else {
+            int threads = ConfigHelper.getServerWorkerThreads();
+            this.workers = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(ConfigHelper.getServerQueueSize()),
+                    new NamedThreadFactory("webmvc-http"),
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    /**
+     * 初始化servlet，开始监听端口
+     */
+    public synchronized void start() throws IOException, ServletException {
+        if (running) {
+            throw new IllegalStateException("服务器已经启动了");
+        }
+        servletContext = new EmbeddedServletContext(documentRoot, SERVLET_NAME, servlet, SERVER_INFO);
+        servlet.init(new EmbeddedServletConfig());
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(host, port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        selectorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "webmvc-http-selector");
+        selectorThread.start();
+        servletContext.log("内嵌服务器已经启动, 端口" + getPort() + ", 工作线程"
+                + (workers instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) workers).getMaximumPoolSize() : "每个请求一个虚拟线程")
+                + ", web根目录" + documentRoot.getAbsolutePath());
+    }
+
+    /**
+     * @return 实际监听的端口
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * 停止接受连接，关闭所有连接，等待正在执行的请求结束后销毁servlet
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(keepAliveTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        servlet.destroy();
+    }
+
+    /**
+     * 等待服务器停止
+     */
+    public void join() throws InterruptedException {
+        Thread thread = selectorThread;
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    private void loop() {
+        long lastSweep = System.currentTimeMillis();
+        while (running) {
+            try {
+                selector.select(SWEEP_INTERVAL);
+                runTasks();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        HttpConnection connection = (HttpConnection) key.attachment();
+                        if (key.isWritable()) {
+                            connection.onWritable();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.onReadable();
+                        }
+                    } catch (CancelledKeyException e) {
+                        //连接已经被其它线程关闭了
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastSweep >= SWEEP_INTERVAL) {
+                    sweep(now);
+                    lastSweep = now;
+                }
+            } catch (IOException e) {
+                servletContext.log("选择器出错", e);
+            } catch (RuntimeException e) {
+                servletContext.log("选择器线程出错", e);
+            }
+        }
+        for (HttpConnection connection : connections) {
+            connection.close();
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            servletContext.log("关闭服务器时出错", e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                HttpConnection connection = new HttpConnection(this, channel, maxHeaderSize, maxBodySize);
+                connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+                connections.add(connection);
+            } catch (IOException e) {
+                channel.close();
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (CancelledKeyException e) {
+                //连接已经关闭了
+            }
+        }
+    }
+
+    /**
+     * 关闭空闲太久的连接，触发超时的异步请求
+     */
+    private void sweep(long now) {
+        for (HttpConnection connection : connections) {
+            connection.checkTimeout(now);
+        }
+        for (EmbeddedAsyncContext asyncContext : asyncContexts) {
+            asyncContext.checkTimeout(now);
+        }
+    }
+
+    /**
+     * 在选择器线程中执行任务
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    Servlet getServlet() {
+        return servlet;
+    }
+
+    EmbeddedServletContext getServletContext() {
+        return servletContext;
+    }
+
+    ExecutorService getWorkers() {
+        return workers;
+    }
+
+    long getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    void removeConnection(HttpConnection connection) {
+        connections.remove(connection);
+    }
+
+    void addAsyncContext(EmbeddedAsyncContext asyncContext) {
+        asyncContexts.add(asyncContext);
+    }
+
+    void removeAsyncContext(EmbeddedAsyncContext asyncContext) {
+        asyncContexts.remove(asyncContext);
+    }
+
+    /**
+     * 用内嵌服务器运行DispatcherServlet
+     * @param args 可以指定端口，否则使用配置的端口
+     */
+    public static void main(String[] args) throws Exception {
+        final HttpServer server = args.length > 0
+                ? new HttpServer(new DispatcherServlet(), Integer.parseInt(args[0]))
+                : new HttpServer(new DispatcherServlet());
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.stop();
+            }
+        }, "webmvc-http-shutdown"));
+        server.join();
+    }
+
+    private class EmbeddedServletConfig implements ServletConfig {
+
+        @Override
+        public String getServletName() {
+            return SERVLET_NAME;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return null;
+        }
+
+        @Override
+        public Enumeration<String> getInitParameterNames() {
+            return Collections.emptyEnumeration();
+        }
+    }
+}
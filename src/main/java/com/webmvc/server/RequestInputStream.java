@@ -0,0 +1,102 @@
+package com.webmvc.server;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * 请求体的输入流
+ * 请求体在交给servlet之前已经全部读到内存中，所以总是可以不阻塞地读取，
+ * 设置ReadListener后在工作线程中依次回调onDataAvailable和onAllDataRead
+ * Created by sgz
+ * 2026/10/22 13:10
+ */
+final class RequestInputStream extends ServletInputStream {
+
+    private final byte[] body;
+
+    private final int length;
+
+    private final Executor executor;
+
+    private int position;
+
+    private boolean listenerSet;
+
+    RequestInputStream(byte[] body, int length, Executor executor) {
+        this.body = body;
+        this.length = length;
+        this.executor = executor;
+    }
+
+    @Override
+    public int read() {
+        return position < length ? body[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+        int count = Math.min(len, length - position);
+        System.arraycopy(body, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long count = Math.max(0, Math.min(n, length - position));
+        position += (int) count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return length - position;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return position >= length;
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public void setReadListener(final ReadListener readListener) {
+        if (readListener == null) {
+            throw new NullPointerException("readListener");
+        }
+        if (listenerSet) {
+            throw new IllegalStateException("已经设置了ReadListener");
+        }
+        listenerSet = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!isFinished()) {
+                        readListener.onDataAvailable();
+                    }
+                    readListener.onAllDataRead();
+                } catch (Throwable t) {
+                    readListener.onError(t);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        position = length;
+    }
+}
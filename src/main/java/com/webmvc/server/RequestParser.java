@@ -0,0 +1,418 @@
+package com.webmvc.server;
+
+import com.webmvc.excepetion.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量地解析HTTP/1.1请求
+ * 每次读到数据后调用parse，数据不完整时保存当前状态，下次从中断的地方继续，
+ * 请求体按Content-Length或chunked编码读到内存中，一个请求解析完后剩下的数据属于下一个请求
+ * 只在选择器线程中使用
+ * Created by sgz
+ * 2026/10/22 10:20
+ */
+final class RequestParser {
+
+    private static final int REQUEST_LINE = 0;
+    private static final int HEADER = 1;
+    private static final int BODY = 2;
+    private static final int CHUNK_SIZE = 3;
+    private static final int CHUNK_DATA = 4;
+    private static final int CHUNK_END = 5;
+    private static final int TRAILER = 6;
+    private static final int DONE = 7;
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    /*请求体放在一个数组里，不能超过数组的最大长度*/
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /*chunk的长度行(包括扩展)和chunk结尾的一行最多的字节数*/
+    private static final int MAX_CHUNK_LINE = 1024;
+
+    /*Content-Length的请求体先分配这么多，之后随着数据到达增长*/
+    private static final int INITIAL_BODY_SIZE = 8192;
+
+    private final int maxHeaderSize;
+
+    private final long maxBodySize;
+
+    private int state = REQUEST_LINE;
+
+    /*当前正在读的一行，不包括\r\n*/
+    private byte[] line = new byte[256];
+
+    private int lineLength;
+
+    /*请求行和请求头已经读了的字节数，请求头结束后重新开始计算trailer的字节数*/
+    private int headerSize;
+
+    private String method;
+
+    private String target;
+
+    private String protocol;
+
+    /*请求头，按 名字,值,名字,值 的顺序保存*/
+    private List<String> headers = new ArrayList<>();
+
+    private long contentLength = -1;
+
+    private boolean chunked;
+
+    private boolean expectContinue;
+
+    private byte[] body;
+
+    private int bodyLength;
+
+    /*当前chunk还没有读的字节数*/
+    private long chunkRemaining;
+
+    RequestParser(int maxHeaderSize, long maxBodySize) {
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxBodySize = Math.min(maxBodySize, MAX_ARRAY_SIZE);
+    }
+
+    /**
+     * 从缓冲区中读取数据，直到请求结束或者数据用完
+     * @param buffer 处于读模式的缓冲区，请求结束后剩下的数据不会被读取
+     * @return 是否已经读完了整个请求
+     * @throws ResponseStatusException 请求格式不正确或者超过了大小限制
+     */
+    boolean parse(ByteBuffer buffer) {
+        while (state != DONE && buffer.hasRemaining()) {
+            switch (state) {
+                case REQUEST_LINE:
+                case HEADER:
+                case CHUNK_SIZE:
+                case CHUNK_END:
+                case TRAILER:
+                    if (readLine(buffer)) {
+                        onLine();
+                    }
+                    break;
+                case BODY:
+                    readBody(buffer, contentLength - bodyLength);
+                    if (bodyLength == contentLength) {
+                        state = DONE;
+                    }
+                    break;
+                case CHUNK_DATA:
+                    chunkRemaining -= readBody(buffer, chunkRemaining);
+                    if (chunkRemaining == 0) {
+                        state = CHUNK_END;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+        return state == DONE;
+    }
+
+    /**
+     * @return 是否读到了一整行
+     */
+    private boolean readLine(ByteBuffer buffer) {
+        //请求头和trailer的总大小不能超过maxHeaderSize，chunk的每一行单独限制长度，防止客户端发送无穷长的行
+        boolean chunkLine = state == CHUNK_SIZE || state == CHUNK_END;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (chunkLine) {
+                if (lineLength >= MAX_CHUNK_LINE) {
+                    throw new ResponseStatusException(400, "chunk的长度行太长");
+                }
+            } else if (++headerSize > maxHeaderSize) {
+                if (state == REQUEST_LINE) {
+                    throw new ResponseStatusException(414, "请求行太长");
+                }
+                if (state == TRAILER) {
+                    throw new ResponseStatusException(431, "trailer超过了" + maxHeaderSize + "字节");
+                }
+                throw new ResponseStatusException(431, "请求头超过了" + maxHeaderSize + "字节");
+            }
+            if (b == '\n') {
+                if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                    lineLength--;
+                }
+                return true;
+            }
+            if (lineLength == line.length) {
+                byte[] larger = new byte[line.length * 2];
+                System.arraycopy(line, 0, larger, 0, lineLength);
+                line = larger;
+            }
+            line[lineLength++] = b;
+        }
+        return false;
+    }
+
+    private void onLine() {
+        int length = lineLength;
+        lineLength = 0;
+        switch (state) {
+            case REQUEST_LINE:
+                //请求之间允许有空行
+                if (length > 0) {
+                    parseRequestLine(length);
+                    state = HEADER;
+                } else {
+                    headerSize = 0;
+                }
+                break;
+            case HEADER:
+                if (length > 0) {
+                    parseHeader(length);
+                } else {
+                    onHeadersEnd();
+                }
+                break;
+            case CHUNK_SIZE:
+                chunkRemaining = parseChunkSize(length);
+                if (chunkRemaining == 0) {
+                    state = TRAILER;
+                } else {
+                    if (bodyLength + chunkRemaining > maxBodySize) {
+                        throw new ResponseStatusException(413, "请求体超过了" + maxBodySize + "字节");
+                    }
+                    state = CHUNK_DATA;
+                }
+                break;
+            case CHUNK_END:
+                if (length != 0) {
+                    throw new ResponseStatusException(400, "chunk的结尾不正确");
+                }
+                state = CHUNK_SIZE;
+                break;
+            case TRAILER:
+                //忽略trailer
+                if (length == 0) {
+                    state = DONE;
+                }
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    private void parseRequestLine(int length) {
+        String requestLine = new String(line, 0, length, StandardCharsets.ISO_8859_1);
+        int first = requestLine.indexOf(' ');
+        int last = requestLine.lastIndexOf(' ');
+        if (first <= 0 || last == first) {
+            throw new ResponseStatusException(400, "不正确的请求行");
+        }
+        method = requestLine.substring(0, first);
+        target = requestLine.substring(first + 1, last);
+        protocol = requestLine.substring(last + 1);
+        if (target.isEmpty() || target.indexOf(' ') >= 0) {
+            throw new ResponseStatusException(400, "不正确的请求行");
+        }
+        if (!protocol.equals("HTTP/1.1") && !protocol.equals("HTTP/1.0")) {
+            throw new ResponseStatusException(505, "不支持的协议版本" + protocol);
+        }
+    }
+
+    private void parseHeader(int length) {
+        if (line[0] == ' ' || line[0] == '\t') {
+            throw new ResponseStatusException(400, "不支持折行的请求头");
+        }
+        int colon = -1;
+        for (int i = 0; i < length; i++) {
+            if (line[i] == ':') {
+                colon = i;
+                break;
+            }
+        }
+        if (colon <= 0 || line[colon - 1] == ' ') {
+            throw new ResponseStatusException(400, "不正确的请求头");
+        }
+        int start = colon + 1;
+        int end = length;
+        while (start < end && (line[start] == ' ' || line[start] == '\t')) {
+            start++;
+        }
+        while (end > start && (line[end - 1] == ' ' || line[end - 1] == '\t')) {
+            end--;
+        }
+        headers.add(new String(line, 0, colon, StandardCharsets.ISO_8859_1));
+        headers.add(new String(line, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 请求头读完后根据Transfer-Encoding和Content-Length决定怎么读请求体
+     * 两个头同时存在时拒绝请求，防止请求走私
+     */
+    private void onHeadersEnd() {
+        headerSize = 0;
+        String transferEncoding = null;
+        String length = null;
+        for (int i = 0; i < headers.size(); i += 2) {
+            String name = headers.get(i);
+            String value = headers.get(i + 1);
+            if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                transferEncoding = transferEncoding == null ? value : transferEncoding + "," + value;
+            } else if (name.equalsIgnoreCase("Content-Length")) {
+                if (length != null && !length.equals(value)) {
+                    throw new ResponseStatusException(400, "有多个Content-Length");
+                }
+                length = value;
+            } else if (name.equalsIgnoreCase("Expect")) {
+                expectContinue = value.equalsIgnoreCase("100-continue");
+            }
+        }
+        if (transferEncoding != null) {
+            if (length != null) {
+                throw new ResponseStatusException(400, "不能同时有Transfer-Encoding和Content-Length");
+            }
+            int comma = transferEncoding.lastIndexOf(',');
+            if (!transferEncoding.substring(comma + 1).trim().equalsIgnoreCase("chunked")) {
+                throw new ResponseStatusException(501, "不支持的Transfer-Encoding, " + transferEncoding);
+            }
+            chunked = true;
+            body = new byte[1024];
+            state = CHUNK_SIZE;
+            return;
+        }
+        if (length != null) {
+            try {
+                contentLength = Long.parseLong(length);
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(400, "不正确的Content-Length, " + length, e);
+            }
+            if (contentLength < 0) {
+                throw new ResponseStatusException(400, "不正确的Content-Length, " + length);
+            }
+            if (contentLength > maxBodySize) {
+                throw new ResponseStatusException(413, "请求体超过了" + maxBodySize + "字节");
+            }
+        }
+        if (contentLength > 0) {
+            //只发送请求头的客户端不能让服务器按Content-Length分配内存
+            body = new byte[(int) Math.min(contentLength, INITIAL_BODY_SIZE)];
+            state = BODY;
+        } else {
+            body = EMPTY_BODY;
+            expectContinue = false;
+            state = DONE;
+        }
+    }
+
+    private long parseChunkSize(int length) {
+        long size = 0;
+        int digits = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = line[i];
+            if (b == ';' || b == ' ' || b == '\t') {
+                //忽略chunk扩展
+                break;
+            }
+            int digit = Character.digit(b, 16);
+            if (digit < 0 || ++digits > 15) {
+                throw new ResponseStatusException(400, "不正确的chunk长度");
+            }
+            size = (size << 4) | digit;
+        }
+        if (digits == 0) {
+            throw new ResponseStatusException(400, "不正确的chunk长度");
+        }
+        return size;
+    }
+
+    /**
+     * 把缓冲区中最多max个字节复制到请求体中，请求体的数组随着数据到达增长
+     * @return 复制的字节数
+     */
+    private int readBody(ByteBuffer buffer, long max) {
+        int count = (int) Math.min(buffer.remaining(), max);
+        ensureBodyCapacity(bodyLength + count);
+        buffer.get(body, bodyLength, count);
+        bodyLength += count;
+        return count;
+    }
+
+    /**
+     * 容量翻倍，不超过Content-Length或者最大的请求体
+     */
+    private void ensureBodyCapacity(int capacity) {
+        if (capacity > body.length) {
+            long limit = chunked ? maxBodySize : contentLength;
+            byte[] larger = new byte[(int) Math.min(limit, Math.max(body.length * 2L, capacity))];
+            System.arraycopy(body, 0, larger, 0, bodyLength);
+            body = larger;
+        }
+    }
+
+    /**
+     * @return 请求头已经读完，客户端在等待100 Continue之后才发送请求体
+     */
+    boolean isExpectingContinue() {
+        return expectContinue && (state == BODY || state == CHUNK_SIZE) && bodyLength == 0;
+    }
+
+    /**
+     * 已经回复了100 Continue
+     */
+    void continueSent() {
+        expectContinue = false;
+    }
+
+    /**
+     * @return 是否还没有读到当前请求的任何数据
+     */
+    boolean isIdle() {
+        return state == REQUEST_LINE && lineLength == 0;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    String getTarget() {
+        return target;
+    }
+
+    String getProtocol() {
+        return protocol;
+    }
+
+    List<String> getHeaders() {
+        return headers;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    int getBodyLength() {
+        return bodyLength;
+    }
+
+    boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * 开始解析下一个请求，请求头列表交给了上一个请求，重新创建
+     */
+    void reset() {
+        state = REQUEST_LINE;
+        lineLength = 0;
+        headerSize = 0;
+        method = null;
+        target = null;
+        protocol = null;
+        headers = new ArrayList<>();
+        contentLength = -1;
+        chunked = false;
+        expectContinue = false;
+        body = null;
+        bodyLength = 0;
+        chunkRemaining = 0;
+    }
+}
@@ -0,0 +1,239 @@
+package com.webmvc.server;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * 响应体的输出流
+ * 先写到缓冲区，缓冲区满或flush时提交响应头：
+ * 响应结束前缓冲区一直没满时设置Content-Length一次写出，否则HTTP/1.1用chunked编码，HTTP/1.0写完后关闭连接
+ * 响应头、chunk头和数据用一次gathering write写出，大块数据不经过缓冲区
+ * HEAD请求只计算长度，不写出数据
+ * Created by sgz
+ * 2026/10/22 13:40
+ */
+final class ResponseOutputStream extends ServletOutputStream {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final EmbeddedResponse response;
+
+    private final HttpConnection connection;
+
+    private final Executor executor;
+
+    private final boolean head;
+
+    private int bufferSize;
+
+    /*第一次写入时才分配*/
+    private byte[] buffer;
+
+    private int count;
+
+    /*servlet写入的总字节数*/
+    private long written;
+
+    private boolean committed;
+
+    private boolean chunked;
+
+    private boolean finished;
+
+    /*sendError或sendRedirect之后忽略servlet的写入*/
+    private boolean suspended;
+
+    private boolean listenerSet;
+
+    ResponseOutputStream(EmbeddedResponse response, HttpConnection connection, Executor executor,
+                         boolean head, int bufferSize) {
+        this.response = response;
+        this.connection = connection;
+        this.executor = executor;
+        this.head = head;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (finished || suspended) {
+            return;
+        }
+        written++;
+        if (head) {
+            return;
+        }
+        if (buffer == null) {
+            buffer = new byte[bufferSize];
+        } else if (count == buffer.length) {
+            send(false, null, 0, 0);
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (finished || suspended || len == 0) {
+            return;
+        }
+        written += len;
+        if (head) {
+            return;
+        }
+        if (buffer == null) {
+            buffer = new byte[bufferSize];
+        }
+        if (count + len <= buffer.length) {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            return;
+        }
+        //缓冲区放不下，和缓冲区中的数据一起写出
+        send(false, b, off, len);
+    }
+
+    /**
+     * 提交响应头并写出缓冲区中的数据
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            send(false, null, 0, 0);
+        }
+    }
+
+    /**
+     * 结束响应体，之后的写入被忽略
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        send(true, null, 0, 0);
+    }
+
+    private void send(boolean last, byte[] data, int off, int len) throws IOException {
+        ByteBuffer header = null;
+        if (!committed) {
+            committed = true;
+            header = ByteBuffer.wrap(response.commit(last, written));
+            chunked = response.isChunked();
+        }
+        if (!response.hasBody()) {
+            count = 0;
+            len = 0;
+        }
+        int bodyLength = count + len;
+        ByteBuffer[] buffers = new ByteBuffer[6];
+        int n = 0;
+        if (header != null) {
+            buffers[n++] = header;
+        }
+        if (chunked && bodyLength > 0) {
+            buffers[n++] = ByteBuffer.wrap((Integer.toHexString(bodyLength) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        }
+        if (count > 0) {
+            buffers[n++] = ByteBuffer.wrap(buffer, 0, count);
+        }
+        if (len > 0) {
+            buffers[n++] = ByteBuffer.wrap(data, off, len);
+        }
+        if (chunked && bodyLength > 0) {
+            buffers[n++] = ByteBuffer.wrap(CRLF);
+        }
+        if (chunked && last) {
+            buffers[n++] = ByteBuffer.wrap(LAST_CHUNK);
+        }
+        count = 0;
+        if (n == 0) {
+            return;
+        }
+        ByteBuffer[] toWrite = new ByteBuffer[n];
+        System.arraycopy(buffers, 0, toWrite, 0, n);
+        connection.write(toWrite);
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    /**
+     * 写操作会阻塞到数据进入发送缓冲区，所以总是可以写，在工作线程中回调onWritePossible
+     */
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+        if (writeListener == null) {
+            throw new NullPointerException("writeListener");
+        }
+        if (listenerSet) {
+            throw new IllegalStateException("已经设置了WriteListener");
+        }
+        listenerSet = true;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    writeListener.onWritePossible();
+                } catch (Throwable t) {
+                    writeListener.onError(t);
+                }
+            }
+        });
+    }
+
+    boolean isCommitted() {
+        return committed;
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    void setBufferSize(int size) {
+        if (written > 0 || committed) {
+            throw new IllegalStateException("已经写入了响应体，不能修改缓冲区大小");
+        }
+        bufferSize = Math.max(size, 512);
+        buffer = null;
+    }
+
+    /**
+     * 清空还没有写出的数据
+     */
+    void resetBuffer() {
+        if (committed) {
+            throw new IllegalStateException("响应已经提交了");
+        }
+        count = 0;
+        written = 0;
+        suspended = false;
+    }
+
+    void suspend() {
+        suspended = true;
+    }
+
+    boolean isSuspended() {
+        return suspended;
+    }
+}
@@ -7,6 +7,12 @@ package com.webmvc.util;
 public class CastUtil {
 
     public static Long castLong(Object o) {
-        return castLong(o);
+        if (o == null) {
+            return null;
+        }
+        if (o instanceof Number) {
+            return ((Number) o).longValue();
+        }
+        return Long.valueOf(o.toString().trim());
     }
 }
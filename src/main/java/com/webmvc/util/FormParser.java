@@ -0,0 +1,116 @@
+package com.webmvc.util;
+
+import com.webmvc.excepetion.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析application/x-www-form-urlencoded格式的请求体
+ * 从输入流中按块读取，边读边解码，每个字段单独按字符集转换成字符串，
+ * 不需要把整个请求体先读成字符串再split，值中包含=也能正确解析
+ * Created by sgz
+ * 2026/10/18 18:10
+ */
+public final class FormParser {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * 解析请求体
+     * @param is 请求体输入流
+     * @param charset 字段的字符集
+     * @param maxBodySize 请求体最多允许的字节数，超过时返回413
+     * @return 参数名和值，同名参数按出现顺序保存
+     */
+    public static Map<String, List<String>> parse(InputStream is, Charset charset, long maxBodySize) throws IOException {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        //当前正在解码的字段
+        byte[] field = new byte[64];
+        int fieldLength = 0;
+        String name = null;
+        //0 普通字符 1 %之后的第一个十六进制字符 2 %之后的第二个十六进制字符
+        int escape = 0;
+        int high = 0;
+        long total = 0;
+        int read;
+        while ((read = is.read(chunk)) != -1) {
+            total += read;
+            if (total > maxBodySize) {
+                throw new ResponseStatusException(413, "请求体超过了" + maxBodySize + "字节");
+            }
+            for (int i = 0; i < read; i++) {
+                int b = chunk[i] & 0xFF;
+                if (escape != 0) {
+                    int digit = Character.digit(b, 16);
+                    if (digit < 0) {
+                        throw new ResponseStatusException(400, "请求体中有不正确的%编码");
+                    }
+                    if (escape == 1) {
+                        high = digit;
+                        escape = 2;
+                        continue;
+                    }
+                    b = (high << 4) | digit;
+                    escape = 0;
+                } else if (b == '%') {
+                    escape = 1;
+                    continue;
+                } else if (b == '+') {
+                    b = ' ';
+                } else if (b == '=' && name == null) {
+                    name = new String(field, 0, fieldLength, charset);
+                    fieldLength = 0;
+                    continue;
+                } else if (b == '&') {
+                    addField(params, name, field, fieldLength, charset);
+                    name = null;
+                    fieldLength = 0;
+                    continue;
+                }
+                if (fieldLength == field.length) {
+                    byte[] larger = new byte[field.length * 2];
+                    System.arraycopy(field, 0, larger, 0, fieldLength);
+                    field = larger;
+                }
+                field[fieldLength++] = (byte) b;
+            }
+        }
+        if (escape != 0) {
+            throw new ResponseStatusException(400, "请求体中有不正确的%编码");
+        }
+        addField(params, name, field, fieldLength, charset);
+        return params;
+    }
+
+    /**
+     * 保存一个字段，没有=时整个字段作为参数名，值为空字符串
+     */
+    private static void addField(Map<String, List<String>> params, String name, byte[] field, int fieldLength, Charset charset) {
+        String value;
+        if (name == null) {
+            if (fieldLength == 0) {
+                return;
+            }
+            name = new String(field, 0, fieldLength, charset);
+            value = "";
+        } else {
+            value = new String(field, 0, fieldLength, charset);
+        }
+        if (name.isEmpty()) {
+            return;
+        }
+        List<String> values = params.get(name);
+        if (values == null) {
+            values = new ArrayList<>(1);
+            params.put(name, values);
+        }
+        values.add(value);
+    }
+}
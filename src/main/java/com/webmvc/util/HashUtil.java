@@ -0,0 +1,110 @@
+package com.webmvc.util;
+
+/**
+ * 非加密的快速hash
+ * Created by sgz
+ * 2026/10/19 19:02
+ */
+public final class HashUtil {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * xxHash64，种子为0
+     */
+    public static long xxHash64(byte[] b, int off, int len) {
+        int i = off;
+        int end = off + len;
+        long h;
+        if (len >= 32) {
+            long v1 = PRIME1 + PRIME2;
+            long v2 = PRIME2;
+            long v3 = 0;
+            long v4 = -PRIME1;
+            int limit = end - 32;
+            do {
+                v1 = round(v1, getLong(b, i));
+                v2 = round(v2, getLong(b, i + 8));
+                v3 = round(v3, getLong(b, i + 16));
+                v4 = round(v4, getLong(b, i + 24));
+                i += 32;
+            } while (i <= limit);
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = PRIME5;
+        }
+        h += len;
+        while (i + 8 <= end) {
+            h ^= round(0, getLong(b, i));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+            i += 8;
+        }
+        if (i + 4 <= end) {
+            h ^= (getInt(b, i) & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        while (i < end) {
+            h ^= (b[i] & 0xFF) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+            i++;
+        }
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * @return 16位的十六进制，不足时前面补0
+     */
+    public static String toHex(long value) {
+        char[] chars = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long merge(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    private static long getLong(byte[] b, int i) {
+        return (b[i] & 0xFFL)
+                | (b[i + 1] & 0xFFL) << 8
+                | (b[i + 2] & 0xFFL) << 16
+                | (b[i + 3] & 0xFFL) << 24
+                | (b[i + 4] & 0xFFL) << 32
+                | (b[i + 5] & 0xFFL) << 40
+                | (b[i + 6] & 0xFFL) << 48
+                | (b[i + 7] & 0xFFL) << 56;
+    }
+
+    private static int getInt(byte[] b, int i) {
+        return (b[i] & 0xFF)
+                | (b[i + 1] & 0xFF) << 8
+                | (b[i + 2] & 0xFF) << 16
+                | (b[i + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,52 @@
+package com.webmvc.util;
+
+/**
+ * http头的解析
+ * Created by sgz
+ * 2026/10/19 16:05
+ */
+public final class HttpUtil {
+
+    /**
+     * 判断Accept-Encoding中是否包含某种编码，q=0表示不接受
+     * @param acceptEncoding 请求头的值，可以为null
+     * @param encoding 如gzip
+     */
+    public static boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        int start = 0;
+        int length = acceptEncoding.length();
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            String token = acceptEncoding.substring(start, end).trim();
+            int semicolon = token.indexOf(';');
+            String name = semicolon < 0 ? token : token.substring(0, semicolon).trim();
+            if (name.equalsIgnoreCase(encoding) || name.equals("*")) {
+                if (semicolon < 0) {
+                    return true;
+                }
+                String q = token.substring(semicolon + 1).trim();
+                return !(q.startsWith("q=") && q.substring(2).trim().matches("0(\\.0*)?"));
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * @return 去掉参数并转成小写的媒体类型，如text/html;charset=UTF-8返回text/html
+     */
+    public static String mediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        String type = semicolon < 0 ? contentType : contentType.substring(0, semicolon);
+        return type.trim().toLowerCase();
+    }
+}
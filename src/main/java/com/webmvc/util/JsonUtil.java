@@ -1,44 +1,87 @@
 package com.webmvc.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.webmvc.excepetion.WebMVCException;
+import com.webmvc.helper.ConfigHelper;
+import com.webmvc.json.JsonEngine;
 
-import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Type;
+import java.util.Map;
 
 /**
  * Created by A550V
  * 2018/2/26 22:25
+ * 具体的转换由webmvc.json.engine配置的JsonEngine完成，默认为jackson
  */
 public final class JsonUtil {
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonEngine JSON_ENGINE = createEngine();
 
+    /**
+     * 根据配置创建json引擎，优先使用参数为配置map的构造方法
+     */
+    private static JsonEngine createEngine() {
+        String engineClassName = ConfigHelper.getJsonEngine();
+        Map<String, String> settings = ConfigHelper.getJsonSettings();
+        try {
+            Class<?> engineClass = ClassUtil.loadClass(engineClassName, true);
+            try {
+                Constructor<?> constructor = engineClass.getConstructor(Map.class);
+                return (JsonEngine) constructor.newInstance(settings);
+            } catch (NoSuchMethodException e) {
+                return (JsonEngine) engineClass.getDeclaredConstructor().newInstance();
+            }
+        } catch (WebMVCException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WebMVCException("创建json引擎" + engineClassName + "时出错", e);
+        }
+    }
+
+    public static JsonEngine getEngine() {
+        return JSON_ENGINE;
+    }
 
     /**
      * pojo转换为json
      */
     public static <T> String toJson(T obj){
-        String json;
-        try {
-            json = OBJECT_MAPPER.writeValueAsString(obj);
-        } catch (JsonProcessingException e) {
-            throw new WebMVCException("pojo转换为json失败", e);
-        }
-        return json;
+        return JSON_ENGINE.toJson(obj);
     }
 
+    /**
+     * pojo按UTF-8转换为json字节
+     */
+    public static <T> byte[] toJsonBytes(T obj) {
+        return JSON_ENGINE.toJsonBytes(obj);
+    }
 
+    /**
+     * pojo按UTF-8转换为json直接写到输出流中，不会关闭输出流
+     */
+    public static <T> void toJson(T obj, OutputStream out) {
+        JSON_ENGINE.write(obj, out);
+    }
 
     /**
      *json转换为pojo
      */
     public static <T> T fromJson(String json, Class<T> type) {
-        T pojo;
-        try {
-            pojo = OBJECT_MAPPER.readValue(json, type);
-        } catch (IOException e) {
-            throw new WebMVCException("json转换为pojo出错", e);
-        }
-        return pojo;
+        return JSON_ENGINE.fromJson(json, type);
+    }
+
+    /**
+     * 从字节中读取json，type可以是带泛型的类型
+     */
+    public static Object fromJson(byte[] data, int offset, int length, Type type) {
+        return JSON_ENGINE.read(data, offset, length, type);
+    }
+
+    /**
+     * 从输入流中读取json，type可以是带泛型的类型，不会关闭输入流
+     */
+    public static Object fromJson(InputStream in, Type type) {
+        return JSON_ENGINE.read(in, type);
     }
 }
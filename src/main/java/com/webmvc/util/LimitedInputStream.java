@@ -0,0 +1,61 @@
+package com.webmvc.util;
+
+import com.webmvc.excepetion.ResponseStatusException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取超过指定字节数时抛出413的输入流
+ * Created by sgz
+ * 2026/10/19 11:10
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+
+    private long count;
+
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    private void count(long read) {
+        count += read;
+        if (count > limit) {
+            throw new ResponseStatusException(413, "请求体超过了" + limit + "字节");
+        }
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
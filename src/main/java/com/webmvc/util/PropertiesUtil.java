@@ -64,9 +64,7 @@ public class PropertiesUtil {
 	 * @return valueString
 	 */
 	public static String getPropertiesValue(Properties properties, String keyString, String defaultValue) {
-		if(null == properties.getProperty(keyString)) {
-			return defaultValue;
-		}
-		return properties.getProperty(keyString);
+		String value = properties.getProperty(keyString);
+		return null == value ? defaultValue : value;
 	}
 }
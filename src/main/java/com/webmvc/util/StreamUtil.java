@@ -3,6 +3,7 @@ package com.webmvc.util;
 import com.webmvc.excepetion.WebMVCException;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -30,5 +31,17 @@ public final class StreamUtil {
         return sb.toString();
     }
 
+    /**
+     * 读取输入流中剩下的全部字节，不关闭输入流
+     */
+    public static byte[] toBytes(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
 
 }
@@ -84,7 +84,7 @@ public class LinkedList<E> implements List<E>, Deque<E>, Serializable {
 		final Node<E> newNode = new Node<>(prev, e, succ);
 		succ.prev = newNode;
 		if (prev == null) {
-			first = prev;
+			first = newNode;
 		} else {
 			prev.next = newNode;
 		}
@@ -99,6 +99,7 @@ public class LinkedList<E> implements List<E>, Deque<E>, Serializable {
 		final Node<E> next = f.next;
 		f.item = null;
 		f.next = null; //有利于gc
+		first = next;
 		if (next == null) {
 			last = null;
 		} else {
@@ -115,6 +116,7 @@ public class LinkedList<E> implements List<E>, Deque<E>, Serializable {
 		final E element = l.item;
 		l.prev = null;
 		l.item = null;
+		last = prev;
 		if (prev == null) {
 			first = null;
 		} else {
@@ -303,7 +305,7 @@ public class LinkedList<E> implements List<E>, Deque<E>, Serializable {
 			pred = succ.prev;
 		}
 		/*创建新链表*/
-		for (Object o : c) {
+		for (Object o : a) {
 			E e = (E) o;
 			Node<E> newNode = new Node<>(pred, e, null);
 			if (pred == null) {
@@ -318,7 +320,7 @@ public class LinkedList<E> implements List<E>, Deque<E>, Serializable {
 			last = pred;
 		} else {
 			/*拼接两个链表*/
-			succ.prev = last;
+			succ.prev = pred;
 			pred.next = succ;
 		}
 		
@@ -924,6 +926,14 @@ public class LinkedList<E> implements List<E>, Deque<E>, Serializable {
 		return new DescendingIterator();
 	}
 	
+	/**
+	 * 反过来的视图，和原来的链表共用节点，两边的修改互相可见
+	 * JDK 21的List和Deque都有reversed()，返回类型不同，必须在这里声明一个同时是两者的返回类型
+	 */
+	public LinkedList<E> reversed() {
+		return new ReverseOrderView<>(this);
+	}
+
 	private class DescendingIterator implements Iterator<E>{
 
 		private final ListIterator<E> listItr = new ListItr(size);
@@ -945,6 +955,382 @@ public class LinkedList<E> implements List<E>, Deque<E>, Serializable {
 		
 	}
 	
+	/*
+	 * reversed()返回的视图，继承LinkedList只是为了同时是List和Deque，
+	 * 自己的size、first、last不使用，所有public方法都反过来交给原来的链表
+	 */
+	private static final class ReverseOrderView<E> extends LinkedList<E> {
+
+		private static final long serialVersionUID = -3370566498223562415L;
+
+		private final LinkedList<E> base;
+
+		ReverseOrderView(LinkedList<E> base) {
+			this.base = base;
+		}
+
+		/*视图中的第index个在原来链表中的位置*/
+		private int baseIndex(int index) {
+			return base.size - 1 - index;
+		}
+
+		private static void reverse(Object[] a, int length) {
+			for (int i = 0, j = length - 1; i < j; i++, j--) {
+				Object tmp = a[i];
+				a[i] = a[j];
+				a[j] = tmp;
+			}
+		}
+
+		@Override
+		public int size() {
+			return base.size;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return base.size == 0;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return base.contains(o);
+		}
+
+		@Override
+		public boolean containsAll(Collection<?> c) {
+			return base.containsAll(c);
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return base.descendingIterator();
+		}
+
+		@Override
+		public Iterator<E> descendingIterator() {
+			return base.iterator();
+		}
+
+		@Override
+		public Object[] toArray() {
+			Object[] r = base.toArray();
+			reverse(r, r.length);
+			return r;
+		}
+
+		@Override
+		public <T> T[] toArray(T[] a) {
+			T[] r = base.toArray(a);
+			reverse(r, base.size);
+			return r;
+		}
+
+		@Override
+		public boolean add(E e) {
+			base.addFirst(e);
+			return true;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return base.removeLastOccurrence(o);
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends E> c) {
+			return addAll(base.size, c);
+		}
+
+		/**
+		 * 插在原来链表的对应位置，集合的顺序也要反过来
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean addAll(int index, Collection<? extends E> c) {
+			base.checkPositionIndex(index);
+			Object[] a = c.toArray();
+			reverse(a, a.length);
+			return base.addAll(base.size - index, (List<E>) Arrays.asList(a));
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			return base.removeAll(c);
+		}
+
+		@Override
+		public boolean retainAll(Collection<?> c) {
+			return base.retainAll(c);
+		}
+
+		@Override
+		public void clear() {
+			base.clear();
+		}
+
+		@Override
+		public E get(int index) {
+			base.checkElementIndex(index);
+			return base.get(baseIndex(index));
+		}
+
+		@Override
+		public E set(int index, E element) {
+			base.checkElementIndex(index);
+			return base.set(baseIndex(index), element);
+		}
+
+		@Override
+		public void add(int index, E element) {
+			base.checkPositionIndex(index);
+			base.add(base.size - index, element);
+		}
+
+		@Override
+		public E remove(int index) {
+			base.checkElementIndex(index);
+			return base.remove(baseIndex(index));
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			int i = base.lastIndexOf(o);
+			return i == -1 ? -1 : baseIndex(i);
+		}
+
+		@Override
+		public int lastIndexOf(Object o) {
+			int i = base.indexOf(o);
+			return i == -1 ? -1 : baseIndex(i);
+		}
+
+		@Override
+		public ListIterator<E> listIterator() {
+			return listIterator(0);
+		}
+
+		@Override
+		public ListIterator<E> listIterator(int index) {
+			base.checkPositionIndex(index);
+			return new ReverseListItr<>(base, base.listIterator(base.size - index));
+		}
+
+		/**
+		 * 和LinkedList.subList一样返回新的链表
+		 */
+		@Override
+		public List<E> subList(int fromIndex, int toIndex) {
+			base.checkPositionIndex(fromIndex);
+			base.checkPositionIndex(toIndex);
+			if (fromIndex > toIndex) {
+				throw new IllegalArgumentException("开始的位置比结束位置大");
+			}
+			List<E> list = new LinkedList<>();
+			ListIterator<E> it = listIterator(fromIndex);
+			for (int i = fromIndex; i < toIndex; i++) {
+				list.add(it.next());
+			}
+			return list;
+		}
+
+		@Override
+		public void addFirst(E e) {
+			base.addLast(e);
+		}
+
+		@Override
+		public void addLast(E e) {
+			base.addFirst(e);
+		}
+
+		@Override
+		public boolean offerFirst(E e) {
+			return base.offerLast(e);
+		}
+
+		@Override
+		public boolean offerLast(E e) {
+			return base.offerFirst(e);
+		}
+
+		@Override
+		public E removeFirst() {
+			return base.removeLast();
+		}
+
+		@Override
+		public E removeLast() {
+			return base.removeFirst();
+		}
+
+		@Override
+		public E pollFirst() {
+			return base.pollLast();
+		}
+
+		@Override
+		public E pollLast() {
+			return base.pollFirst();
+		}
+
+		@Override
+		public E getFirst() {
+			return base.getLast();
+		}
+
+		@Override
+		public E getLast() {
+			return base.getFirst();
+		}
+
+		@Override
+		public E peekFirst() {
+			return base.peekLast();
+		}
+
+		@Override
+		public E peekLast() {
+			return base.peekFirst();
+		}
+
+		@Override
+		public boolean removeFirstOccurrence(Object o) {
+			return base.removeLastOccurrence(o);
+		}
+
+		@Override
+		public boolean removeLastOccurrence(Object o) {
+			return base.removeFirstOccurrence(o);
+		}
+
+		@Override
+		public boolean offer(E e) {
+			return base.offerFirst(e);
+		}
+
+		@Override
+		public E remove() {
+			return base.removeLast();
+		}
+
+		@Override
+		public E poll() {
+			return base.pollLast();
+		}
+
+		@Override
+		public E element() {
+			return base.getLast();
+		}
+
+		@Override
+		public E peek() {
+			return base.peekLast();
+		}
+
+		@Override
+		public void push(E e) {
+			base.addLast(e);
+		}
+
+		@Override
+		public E pop() {
+			return base.removeLast();
+		}
+
+		@Override
+		public LinkedList<E> reversed() {
+			return base;
+		}
+
+		/*
+		 * 视图自己的节点字段是空的，序列化时换成一个按视图顺序复制的链表
+		 */
+		private Object writeReplace() {
+			return new LinkedList<>(this);
+		}
+	}
+
+	/*
+	 * 反过来的ListIterator，next和previous互换
+	 */
+	private static final class ReverseListItr<E> implements ListIterator<E> {
+
+		private final LinkedList<E> base;
+
+		private final ListIterator<E> it;
+
+		/*add和remove之后不能再remove或set*/
+		private boolean canModify;
+
+		ReverseListItr(LinkedList<E> base, ListIterator<E> it) {
+			this.base = base;
+			this.it = it;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return it.hasPrevious();
+		}
+
+		@Override
+		public E next() {
+			E e = it.previous();
+			canModify = true;
+			return e;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return it.hasNext();
+		}
+
+		@Override
+		public E previous() {
+			E e = it.next();
+			canModify = true;
+			return e;
+		}
+
+		@Override
+		public int nextIndex() {
+			return base.size - it.nextIndex();
+		}
+
+		@Override
+		public int previousIndex() {
+			return nextIndex() - 1;
+		}
+
+		@Override
+		public void remove() {
+			if (!canModify) {
+				throw new IllegalStateException("还没有开始迭代");
+			}
+			it.remove();
+			canModify = false;
+		}
+
+		@Override
+		public void set(E e) {
+			if (!canModify) {
+				throw new IllegalStateException("还没有开始迭代");
+			}
+			it.set(e);
+		}
+
+		/**
+		 * 插在原来链表的迭代位置，再退回一步，之后的previous()才会返回e
+		 */
+		@Override
+		public void add(E e) {
+			it.add(e);
+			it.previous();
+			canModify = false;
+		}
+	}
+
 	/*
 	 * 在序列化过程中，虚拟机会试图调用对象类里的writeObject() 和readObject()，
 	 * 进行用户自定义的序列化和反序列化，如果没有则调用ObjectOutputStream.defaultWriteObject()
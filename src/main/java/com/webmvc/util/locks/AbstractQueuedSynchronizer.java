@@ -2,6 +2,7 @@ package com.webmvc.util.locks;
 
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -160,6 +161,16 @@ public abstract class AbstractQueuedSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /*所有同步器中没有直接拿到而进入同步队列的次数，用来观察锁竞争*/
+    private static final LongAdder QUEUED_ACQUIRES = new LongAdder();
+
+    /**
+     * @return 所有同步器中线程进入同步队列等待的次数
+     */
+    public static long getQueuedAcquireCount() {
+        return QUEUED_ACQUIRES.sum();
+    }
+
     /**
      * 将节点插入队列
      * @param node 要被插入的node
@@ -190,6 +201,7 @@ public abstract class AbstractQueuedSynchronizer
      * @return 新的节点
      */
     private Node addWaiter(Node mode) {
+        QUEUED_ACQUIRES.increment();
         Node node = new Node(Thread.currentThread(), mode);
         // 尝试一次快速入列，直接试一次原子设置tail
         Node pred = tail;
@@ -1449,7 +1461,7 @@ public abstract class AbstractQueuedSynchronizer
     }
 
 
-    private static final Unsafe unsafe = Unsafe.getUnsafe();
+    private static final Unsafe unsafe = UnsafeAccess.UNSAFE;
     private static final long stateOffset;
     private static final long headOffset;
     private static final long tailOffset;
@@ -0,0 +1,114 @@
+package com.webmvc.util.locks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 许可数可以在运行时调整的信号量
+ * AQS的state表示已经发出的许可数，上限放在单独的volatile域中，
+ * 调小上限时已经发出的许可不受影响，归还后新的请求按新的上限获取
+ * Created by sgz
+ * 2026/10/20 9:10
+ */
+public class AdjustableSemaphore implements java.io.Serializable {
+
+    private static final long serialVersionUID = -3222578661600680211L;
+
+    private final Sync sync;
+
+    static final class Sync extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 1192457210091910933L;
+
+        volatile int limit;
+
+        Sync(int limit) {
+            this.limit = limit;
+        }
+
+        /*
+         * 已发出的许可没有达到上限时加1，返回剩余的许可数，达到上限时返回-1
+         */
+        protected int tryAcquireShared(int acquires) {
+            for (;;) {
+                int used = getState();
+                int remaining = limit - used - acquires;
+                if (remaining < 0) {
+                    return -1;
+                }
+                if (compareAndSetState(used, used + acquires)) {
+                    return remaining;
+                }
+            }
+        }
+
+        /*
+         * releases为0时只是唤醒等待的线程，用于调大上限
+         */
+        protected boolean tryReleaseShared(int releases) {
+            for (;;) {
+                int used = getState();
+                int next = used - releases;
+                if (next < 0) {
+                    throw new Error("归还的许可比发出的多");
+                }
+                if (compareAndSetState(used, next)) {
+                    return true;
+                }
+            }
+        }
+
+        int getUsed() {
+            return getState();
+        }
+    }
+
+    public AdjustableSemaphore(int limit) {
+        sync = new Sync(limit);
+    }
+
+    /**
+     * 不等待，没有许可时直接返回false
+     */
+    public boolean tryAcquire() {
+        return sync.tryAcquireShared(1) >= 0;
+    }
+
+    /**
+     * 最多等待timeout
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return sync.tryAcquireSharedNanos(1, unit.toNanos(timeout));
+    }
+
+    public void release() {
+        sync.releaseShared(1);
+    }
+
+    /**
+     * 调整许可的上限，调大时唤醒等待的线程
+     */
+    public void setLimit(int limit) {
+        int old = sync.limit;
+        sync.limit = limit;
+        if (limit > old) {
+            sync.releaseShared(0);
+        }
+    }
+
+    public int getLimit() {
+        return sync.limit;
+    }
+
+    /**
+     * @return 已经发出还没有归还的许可数
+     */
+    public int getUsed() {
+        return sync.getUsed();
+    }
+
+    /**
+     * @return 等待许可的线程数的估计值
+     */
+    public int getQueueLength() {
+        return sync.getQueueLength();
+    }
+}
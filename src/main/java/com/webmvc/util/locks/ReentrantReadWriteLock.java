@@ -787,7 +787,7 @@ public class ReentrantReadWriteLock
     private static final long TID_OFFSET;
     static {
         try {
-            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            UNSAFE = UnsafeAccess.UNSAFE;
             Class<?> tk = Thread.class;
             TID_OFFSET = UNSAFE.objectFieldOffset
                 (tk.getDeclaredField("tid"));
@@ -0,0 +1,25 @@
+package com.webmvc.util.locks;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * Unsafe.getUnsafe()只允许启动类加载器加载的类调用，应用中的类要通过反射取theUnsafe
+ * Created by sgz
+ * 2026/10/20 10:50
+ */
+final class UnsafeAccess {
+
+    static final Unsafe UNSAFE;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -2004,9 +2004,13 @@ public class ConcurrentHashMap<K, V> extends AbstractMap<K, V> implements Concur
     /**
      * A padded cell for distributing counts.  Adapted from LongAdder
      * and Striped64.  See their internal docs for explanation.
+     * sun.misc.Contended在JDK 9以后没有了，而且对非JDK的类只有加了-XX:-RestrictContended才生效，
+     * 这里用前后各7个long手动填充，避免和相邻的对象共享缓存行
      */
-    @sun.misc.Contended static final class CounterCell {
+    static final class CounterCell {
+        long p0, p1, p2, p3, p4, p5, p6;
         volatile long value;
+        long q0, q1, q2, q3, q4, q5, q6;
         CounterCell(long x) { value = x; }
     }
 
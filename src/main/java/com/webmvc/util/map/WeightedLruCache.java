@@ -0,0 +1,121 @@
+package com.webmvc.util.map;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 按权重(一般是字节数)限制大小的LRU缓存
+ * 基于accessOrder为true的LinkedHashMap，总权重超过上限时从最久没有访问的元素开始淘汰
+ * removeEldestEntry每次只能淘汰一个，放入一个大元素时可能要淘汰多个，所以在put中自己淘汰
+ * 所有操作用同一把锁，适合读写都很快的场景
+ * Created by sgz
+ * 2026/10/19 14:10
+ */
+public class WeightedLruCache<K, V> {
+
+    /**
+     * 计算元素的权重
+     */
+    public interface Weigher<V> {
+        long weigh(V value);
+    }
+
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxWeight;
+
+    private final Weigher<? super V> weigher;
+
+    private long weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    public WeightedLruCache(long maxWeight, Weigher<? super V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * @return 缓存的值，没有时返回null
+     */
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * 放入缓存，权重超过上限的元素不会放入
+     * @return 是否放入了缓存
+     */
+    public synchronized boolean put(K key, V value) {
+        long valueWeight = weigher.weigh(value);
+        if (valueWeight > maxWeight) {
+            return false;
+        }
+        V old = map.put(key, value);
+        if (old != null) {
+            weight -= weigher.weigh(old);
+        }
+        weight += valueWeight;
+        Iterator<Map.Entry<K, V>> it = map.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            weight -= weigher.weigh(eldest.getValue());
+            it.remove();
+            evictions++;
+        }
+        return true;
+    }
+
+    public synchronized V remove(K key) {
+        V old = map.remove(key);
+        if (old != null) {
+            weight -= weigher.weigh(old);
+        }
+        return old;
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * @return 当前的总权重
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
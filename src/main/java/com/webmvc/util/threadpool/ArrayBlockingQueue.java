@@ -365,6 +365,13 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * 正在等待队列的锁的线程数(近似值)，不包括等待元素的线程，用来观察锁竞争
+     */
+    public int getLockQueueLength() {
+        return lock.getQueueLength();
+    }
+
     /**
      * 删除队列中的一个o对象
      *
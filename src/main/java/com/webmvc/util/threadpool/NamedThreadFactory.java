@@ -0,0 +1,25 @@
+package com.webmvc.util.threadpool;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按 前缀-序号 给线程命名的线程工厂，创建的是守护线程，不会阻止JVM退出
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    public NamedThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, prefix + "-" + threadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,55 @@
+package com.webmvc.view;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * forward到jsp时把ModelAndView的model作为请求属性暴露给jsp
+ * 不再把每个值复制到请求中，jsp读取属性时才到model中查找，
+ * 请求中有同名属性时(如jsp中用c:set设置的)请求中的优先
+ * Created by sgz
+ * 2026/10/21 15:40
+ */
+public class ModelRequestWrapper extends HttpServletRequestWrapper {
+
+    private final Map<String, Object> model;
+
+    /**
+     * @param model 可以为null
+     */
+    public ModelRequestWrapper(HttpServletRequest request, Map<String, Object> model) {
+        super(request);
+        this.model = model == null ? Collections.<String, Object>emptyMap() : model;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        Object value = super.getAttribute(name);
+        return value != null ? value : model.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        if (model.isEmpty()) {
+            return super.getAttributeNames();
+        }
+        Set<String> names = new LinkedHashSet<>(model.keySet());
+        Enumeration<String> attributeNames = super.getAttributeNames();
+        while (attributeNames.hasMoreElements()) {
+            names.add(attributeNames.nextElement());
+        }
+        return Collections.enumeration(names);
+    }
+
+    /**
+     * @return 处理器返回的model
+     */
+    public Map<String, Object> getModel() {
+        return model;
+    }
+}
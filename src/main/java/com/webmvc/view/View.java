@@ -0,0 +1,49 @@
+package com.webmvc.view;
+
+import com.webmvc.view.template.Template;
+
+import javax.servlet.RequestDispatcher;
+
+/**
+ * 解析好的视图，第一次用到时创建，之后一直复用
+ * jsp视图通过dispatcher渲染，模板视图由框架直接渲染
+ * Created by sgz
+ * 2026/10/21 15:10
+ */
+public final class View {
+
+    /*处理器返回的视图名*/
+    private final String name;
+
+    /*jsp的完整路径*/
+    private final String path;
+
+    /*ServletContext的RequestDispatcher不和请求绑定，可以在请求之间复用，模板视图为null*/
+    private final RequestDispatcher dispatcher;
+
+    /*编译好的模板，jsp视图为null*/
+    private final Template template;
+
+    View(String name, String path, RequestDispatcher dispatcher, Template template) {
+        this.name = name;
+        this.path = path;
+        this.dispatcher = dispatcher;
+        this.template = template;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public RequestDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public Template getTemplate() {
+        return template;
+    }
+}
@@ -0,0 +1,141 @@
+package com.webmvc.view;
+
+import com.webmvc.excepetion.WebMVCException;
+import com.webmvc.view.template.Template;
+import com.webmvc.view.template.TemplateCompiler;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把处理器返回的视图名解析成jsp路径和RequestDispatcher并缓存
+ * 以模板后缀(默认.tpl)结尾的视图名是模板视图，编译成Template，不经过jsp引擎
+ * 启动时扫描视图目录下的所有jsp和模板预先解析，模板有语法错误时启动失败，
+ * 不在其中的视图第一次用到时检查文件是否存在，不存在时抛出异常而不是交给容器返回404，存在时也放入缓存
+ * Created by sgz
+ * 2026/10/21 15:20
+ */
+public class ViewResolver {
+
+    private final ServletContext servletContext;
+
+    /*jsp目录，以/结尾*/
+    private final String prefix;
+
+    /*模板视图名的后缀*/
+    private final String templateSuffix;
+
+    private final ConcurrentHashMap<String, View> views = new ConcurrentHashMap<>();
+
+    /*从视图目录中读取模板，包含的模板也相对于视图目录*/
+    private final TemplateCompiler.Loader loader = new TemplateCompiler.Loader() {
+        @Override
+        public String load(String name) {
+            return read(prefix + name);
+        }
+    };
+
+    public ViewResolver(ServletContext servletContext, String prefix, String templateSuffix) {
+        this.servletContext = servletContext;
+        this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        this.templateSuffix = templateSuffix;
+    }
+
+    /**
+     * 扫描jsp目录，解析其中所有的jsp
+     * @return 解析的视图个数
+     */
+    public int preload() {
+        return preload(prefix);
+    }
+
+    private int preload(String directory) {
+        Set<String> paths = servletContext.getResourcePaths(directory);
+        if (paths == null) {
+            return 0;
+        }
+        int count = 0;
+        for (String path : paths) {
+            if (path.endsWith("/")) {
+                count += preload(path);
+            } else if (path.endsWith(".jsp") || path.endsWith(".jspx") || path.endsWith(templateSuffix)) {
+                String name = path.substring(prefix.length());
+                views.put(name, create(name, path));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param name 处理器返回的视图名，相对于jsp目录
+     * @throws WebMVCException 视图不存在
+     */
+    public View resolve(String name) {
+        View view = views.get(name);
+        if (view != null) {
+            return view;
+        }
+        String path = prefix + name;
+        try {
+            if (servletContext.getResource(path) == null) {
+                throw new WebMVCException("视图不存在, " + path);
+            }
+        } catch (MalformedURLException e) {
+            throw new WebMVCException("视图名不正确, " + name, e);
+        }
+        view = create(name, path);
+        View existing = views.putIfAbsent(name, view);
+        return existing == null ? view : existing;
+    }
+
+    private View create(String name, String path) {
+        if (name.endsWith(templateSuffix)) {
+            Template template = TemplateCompiler.compile(name, loader);
+            return new View(name, path, null, template);
+        }
+        RequestDispatcher dispatcher = servletContext.getRequestDispatcher(path);
+        if (dispatcher == null) {
+            throw new WebMVCException("不能获取视图的RequestDispatcher, " + path);
+        }
+        return new View(name, path, dispatcher, null);
+    }
+
+    private String read(String path) {
+        InputStream in = servletContext.getResourceAsStream(path);
+        if (in == null) {
+            throw new WebMVCException("模板不存在, " + path);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new WebMVCException("读取模板失败, " + path, e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                //忽略
+            }
+        }
+    }
+
+    /**
+     * @return 已经解析的视图个数
+     */
+    public int size() {
+        return views.size();
+    }
+}
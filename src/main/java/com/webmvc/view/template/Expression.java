@@ -0,0 +1,24 @@
+package com.webmvc.view.template;
+
+/**
+ * 模板中的表达式，如user.name，编译时拆分成属性路径
+ * 第一段是循环变量、model中的key或请求属性，@index、@first、@last取最内层循环的状态
+ * Created by sgz
+ * 2026/10/21 21:10
+ */
+final class Expression {
+
+    final String source;
+
+    final String[] path;
+
+    Expression(String source, String[] path) {
+        this.source = source;
+        this.path = path;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,93 @@
+package com.webmvc.view.template;
+
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * each的一层循环，List和数组按下标遍历，其它的用Iterator
+ * Created by sgz
+ * 2026/10/21 20:30
+ */
+final class Loop {
+
+    /*循环变量名*/
+    String name;
+
+    Object value;
+
+    int index;
+
+    private List<?> list;
+
+    private Object array;
+
+    private Iterator<?> iterator;
+
+    private int length;
+
+    /**
+     * @return 有第一个元素时返回true
+     */
+    boolean start(String name, Object source) {
+        this.name = name;
+        this.index = -1;
+        this.list = null;
+        this.array = null;
+        this.iterator = null;
+        if (source instanceof List && source instanceof RandomAccess) {
+            list = (List<?>) source;
+            length = list.size();
+        } else if (source instanceof Iterable) {
+            iterator = ((Iterable<?>) source).iterator();
+        } else if (source instanceof Map) {
+            iterator = ((Map<?, ?>) source).entrySet().iterator();
+        } else if (source != null && source.getClass().isArray()) {
+            array = source;
+            length = Array.getLength(source);
+        } else {
+            return false;
+        }
+        return next();
+    }
+
+    /**
+     * 移到下一个元素
+     * @return 没有更多元素时返回false
+     */
+    boolean next() {
+        if (iterator != null) {
+            if (!iterator.hasNext()) {
+                iterator = null;
+                return false;
+            }
+            value = iterator.next();
+            index++;
+            return true;
+        }
+        if (index + 1 >= length) {
+            list = null;
+            array = null;
+            return false;
+        }
+        index++;
+        value = list != null ? list.get(index) : Array.get(array, index);
+        return true;
+    }
+
+    boolean isLast() {
+        return iterator != null ? !iterator.hasNext() : index == length - 1;
+    }
+
+    /**
+     * 循环结束后清除引用，避免线程复用时持有model
+     */
+    void clear() {
+        value = null;
+        list = null;
+        array = null;
+        iterator = null;
+    }
+}
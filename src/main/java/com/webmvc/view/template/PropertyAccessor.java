@@ -0,0 +1,149 @@
+package com.webmvc.view.template;
+
+import com.webmvc.excepetion.WebMVCException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 取对象的属性，Map按key取，其它对象依次找getXxx()、isXxx()、xxx()方法和public的域
+ * 每个类的每个属性只查找一次，结果缓存起来
+ * Created by sgz
+ * 2026/10/21 20:50
+ */
+final class PropertyAccessor {
+
+    /*没有这个属性*/
+    private static final Object MISSING = new Object();
+
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Object>> ACCESSORS = new ConcurrentHashMap<>();
+
+    /**
+     * @return 属性值，对象为null或没有这个属性时返回null
+     */
+    static Object get(Object target, String name) {
+        if (target == null) {
+            return null;
+        }
+        if (target instanceof Map) {
+            return ((Map<?, ?>) target).get(name);
+        }
+        if (target.getClass().isArray()) {
+            return "length".equals(name) ? Array.getLength(target) : null;
+        }
+        Object accessor = accessor(target.getClass(), name);
+        try {
+            if (accessor instanceof Method) {
+                return ((Method) accessor).invoke(target);
+            }
+            if (accessor instanceof Field) {
+                return ((Field) accessor).get(target);
+            }
+            return null;
+        } catch (IllegalAccessException e) {
+            throw new WebMVCException("不能访问属性" + name + ", " + target.getClass(), e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getTargetException();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new WebMVCException("获取属性" + name + "时出错, " + target.getClass(), e);
+        }
+    }
+
+    private static Object accessor(Class<?> clazz, String name) {
+        ConcurrentHashMap<String, Object> accessors = ACCESSORS.get(clazz);
+        if (accessors == null) {
+            accessors = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Object> existing = ACCESSORS.putIfAbsent(clazz, accessors);
+            if (existing != null) {
+                accessors = existing;
+            }
+        }
+        Object accessor = accessors.get(name);
+        if (accessor == null) {
+            accessor = find(clazz, name);
+            accessors.put(name, accessor);
+        }
+        return accessor;
+    }
+
+    private static Object find(Class<?> clazz, String name) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String methodName : new String[]{"get" + capitalized, "is" + capitalized, name}) {
+            Method method = publicMethod(clazz, methodName);
+            if (method != null && method.getReturnType() != void.class) {
+                return method;
+            }
+        }
+        try {
+            Field field = clazz.getField(name);
+            if (Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+                return field;
+            }
+        } catch (NoSuchFieldException e) {
+            //没有这个域
+        }
+        return MISSING;
+    }
+
+    /**
+     * 找到可以调用的无参方法
+     * 方法声明在非public的类中时(如HashMap的Entry)不能直接调用，到public的父类和接口中找同名方法
+     */
+    private static Method publicMethod(Class<?> clazz, String name) {
+        Method method;
+        try {
+            method = clazz.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return method;
+        }
+        Method inherited = fromPublicType(clazz, name);
+        if (inherited != null) {
+            return inherited;
+        }
+        try {
+            method.setAccessible(true);
+            return method;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Method fromPublicType(Class<?> clazz, String name) {
+        for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                Method method = fromPublicType(candidate, name);
+                if (method != null) {
+                    return method;
+                }
+            }
+            if (type != clazz && Modifier.isPublic(type.getModifiers())) {
+                try {
+                    Method method = type.getMethod(name);
+                    if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                        return method;
+                    }
+                } catch (NoSuchMethodException e) {
+                    //父类中没有
+                }
+            }
+        }
+        if (clazz.isInterface() && Modifier.isPublic(clazz.getModifiers())) {
+            try {
+                return clazz.getMethod(name);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
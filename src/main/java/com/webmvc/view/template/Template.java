@@ -0,0 +1,201 @@
+package com.webmvc.view.template;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 编译好的模板，是一个指令数组，渲染时按顺序执行
+ * 静态文本在编译时已经转成utf-8字节，渲染时直接复制
+ * 编译后不可变，可以被多个线程同时渲染
+ * Created by sgz
+ * 2026/10/21 21:20
+ */
+public final class Template {
+
+    /*输出静态文本，operand是byte[]*/
+    static final int TEXT = 0;
+    /*输出转义后的值，operand是Expression*/
+    static final int VALUE = 1;
+    /*输出不转义的值*/
+    static final int RAW = 2;
+    /*值为假时跳到jump*/
+    static final int IF = 3;
+    /*值为真时跳到jump*/
+    static final int UNLESS = 4;
+    /*跳到jump*/
+    static final int JUMP = 5;
+    /*开始循环，没有元素时跳到jump(循环结束之后)，name是循环变量名*/
+    static final int EACH = 6;
+    /*还有元素时跳到jump(循环体的开始)，否则结束循环*/
+    static final int NEXT = 7;
+
+    private final String name;
+
+    private final int[] ops;
+
+    private final int[] jumps;
+
+    private final Object[] operands;
+
+    private final String[] names;
+
+    Template(String name, int[] ops, int[] jumps, Object[] operands, String[] names) {
+        this.name = name;
+        this.ops = ops;
+        this.jumps = jumps;
+        this.operands = operands;
+        this.names = names;
+    }
+
+    /**
+     * 渲染到out中
+     * @param model 处理器返回的model，可以为null
+     * @param request model中没有的变量到请求属性中找，可以为null
+     */
+    public void render(Map<String, Object> model, HttpServletRequest request, TemplateOutput out) {
+        int depth = 0;
+        int pc = 0;
+        try {
+            while (pc < ops.length) {
+                switch (ops[pc]) {
+                    case TEXT:
+                        out.write((byte[]) operands[pc]);
+                        pc++;
+                        break;
+                    case VALUE:
+                    case RAW: {
+                        Object value = evaluate((Expression) operands[pc], depth, model, request, out);
+                        if (value != null) {
+                            out.write(value.toString(), ops[pc] == VALUE);
+                        }
+                        pc++;
+                        break;
+                    }
+                    case IF:
+                        pc = isTrue(evaluate((Expression) operands[pc], depth, model, request, out)) ? pc + 1 : jumps[pc];
+                        break;
+                    case UNLESS:
+                        pc = isTrue(evaluate((Expression) operands[pc], depth, model, request, out)) ? jumps[pc] : pc + 1;
+                        break;
+                    case JUMP:
+                        pc = jumps[pc];
+                        break;
+                    case EACH: {
+                        Loop loop = out.loop(depth);
+                        if (loop.start(names[pc], evaluate((Expression) operands[pc], depth, model, request, out))) {
+                            depth++;
+                            pc++;
+                        } else {
+                            loop.clear();
+                            pc = jumps[pc];
+                        }
+                        break;
+                    }
+                    case NEXT: {
+                        Loop loop = out.loops[depth - 1];
+                        if (loop.next()) {
+                            pc = jumps[pc];
+                        } else {
+                            loop.clear();
+                            depth--;
+                            pc++;
+                        }
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("不正确的指令" + ops[pc]);
+                }
+            }
+        } finally {
+            for (int i = 0; i < depth; i++) {
+                out.loops[i].clear();
+            }
+        }
+    }
+
+    private static Object evaluate(Expression expression, int depth, Map<String, Object> model,
+                                   HttpServletRequest request, TemplateOutput out) {
+        String[] path = expression.path;
+        String first = path[0];
+        Object value = null;
+        if (first.charAt(0) == '@') {
+            if (depth > 0) {
+                Loop loop = out.loops[depth - 1];
+                switch (first) {
+                    case "@index":
+                        value = loop.index;
+                        break;
+                    case "@first":
+                        value = loop.index == 0;
+                        break;
+                    case "@last":
+                        value = loop.isLast();
+                        break;
+                    default:
+                }
+            }
+        } else {
+            boolean found = false;
+            for (int i = depth - 1; i >= 0; i--) {
+                Loop loop = out.loops[i];
+                if (loop.name.equals(first)) {
+                    value = loop.value;
+                    found = true;
+                    break;
+                }
+            }
+            if (!found && model != null) {
+                value = model.get(first);
+                found = value != null || model.containsKey(first);
+            }
+            if (!found && request != null) {
+                value = request.getAttribute(first);
+            }
+        }
+        for (int i = 1; i < path.length && value != null; i++) {
+            value = PropertyAccessor.get(value, path[i]);
+        }
+        return value;
+    }
+
+    /**
+     * null、false、0、空字符串、空集合和空数组为假
+     */
+    private static boolean isTrue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() > 0;
+        }
+        if (value instanceof Collection) {
+            return !((Collection<?>) value).isEmpty();
+        }
+        if (value instanceof Map) {
+            return !((Map<?, ?>) value).isEmpty();
+        }
+        if (value.getClass().isArray()) {
+            return Array.getLength(value) > 0;
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 指令的个数
+     */
+    public int size() {
+        return ops.length;
+    }
+}
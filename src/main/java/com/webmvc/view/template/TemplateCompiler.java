@@ -0,0 +1,231 @@
+package com.webmvc.view.template;
+
+import com.webmvc.excepetion.WebMVCException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 把模板编译成Template
+ * 支持的语法：
+ * {{user.name}}            输出转义后的值
+ * {{{html}}}               输出不转义的值
+ * {{#if x}} {{#else}} {{/if}}
+ * {{#unless x}} {{#else}} {{/unless}}
+ * {{#each items as item}} {{/each}}   不写as时循环变量是this，循环中可以用@index、@first、@last
+ * {{> header.tpl}}         包含另一个模板，编译时展开
+ * {{! 注释 }}
+ * Created by sgz
+ * 2026/10/21 21:50
+ */
+public final class TemplateCompiler {
+
+    /**
+     * 读取模板的源码
+     */
+    public interface Loader {
+        /**
+         * @param name 模板名
+         * @throws WebMVCException 模板不存在
+         */
+        String load(String name);
+    }
+
+    /*包含的最大层数，防止循环包含*/
+    private static final int MAX_INCLUDE_DEPTH = 16;
+
+    private static final class Block {
+        final int op;
+        final int pc;
+        /*#else的JUMP指令，没有#else时为-1*/
+        int elsePc = -1;
+
+        Block(int op, int pc) {
+            this.op = op;
+            this.pc = pc;
+        }
+    }
+
+    private final Loader loader;
+
+    private final StringBuilder text = new StringBuilder();
+
+    private int[] ops = new int[32];
+
+    private int[] jumps = new int[32];
+
+    private final List<Object> operands = new ArrayList<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private int size;
+
+    private final Deque<Block> blocks = new ArrayDeque<>();
+
+    private TemplateCompiler(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * 编译模板
+     * @param name 模板名，用loader读取源码
+     * @throws WebMVCException 模板有语法错误
+     */
+    public static Template compile(String name, Loader loader) {
+        TemplateCompiler compiler = new TemplateCompiler(loader);
+        compiler.parse(name, loader.load(name), 0);
+        compiler.flushText();
+        return new Template(name, Arrays.copyOf(compiler.ops, compiler.size), Arrays.copyOf(compiler.jumps, compiler.size),
+                compiler.operands.toArray(), compiler.names.toArray(new String[0]));
+    }
+
+    private void parse(String name, String source, int depth) {
+        int blockDepth = blocks.size();
+        int pos = 0;
+        int length = source.length();
+        while (pos < length) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) {
+                text.append(source, pos, length);
+                break;
+            }
+            text.append(source, pos, open);
+            boolean raw = source.startsWith("{{{", open);
+            String close = raw ? "}}}" : "}}";
+            int start = open + close.length();
+            int end = source.indexOf(close, start);
+            if (end < 0) {
+                throw error(name, source, open, "标签没有闭合");
+            }
+            String tag = source.substring(start, end).trim();
+            pos = end + close.length();
+            if (raw) {
+                emit(Template.RAW, expression(name, source, open, tag), null);
+            } else if (tag.startsWith("!")) {
+                //注释
+            } else if (tag.startsWith("#if ")) {
+                blocks.push(new Block(Template.IF, emit(Template.IF, expression(name, source, open, tag.substring(4)), null)));
+            } else if (tag.startsWith("#unless ")) {
+                blocks.push(new Block(Template.UNLESS, emit(Template.UNLESS, expression(name, source, open, tag.substring(8)), null)));
+            } else if (tag.equals("#else")) {
+                Block block = blocks.peek();
+                if (blocks.size() <= blockDepth || block.op == Template.EACH || block.elsePc >= 0) {
+                    throw error(name, source, open, "#else不在#if或#unless中");
+                }
+                block.elsePc = emit(Template.JUMP, null, null);
+                jumps[block.pc] = size;
+            } else if (tag.equals("/if") || tag.equals("/unless")) {
+                int op = tag.equals("/if") ? Template.IF : Template.UNLESS;
+                Block block = end(name, source, open, blockDepth, op, tag);
+                flushText();
+                jumps[block.elsePc >= 0 ? block.elsePc : block.pc] = size;
+            } else if (tag.startsWith("#each ")) {
+                String expression = tag.substring(6).trim();
+                String variable = "this";
+                int as = expression.indexOf(" as ");
+                if (as > 0) {
+                    variable = expression.substring(as + 4).trim();
+                    expression = expression.substring(0, as);
+                    if (!isIdentifier(variable)) {
+                        throw error(name, source, open, "不正确的循环变量名" + variable);
+                    }
+                }
+                blocks.push(new Block(Template.EACH, emit(Template.EACH, expression(name, source, open, expression), variable)));
+            } else if (tag.equals("/each")) {
+                Block block = end(name, source, open, blockDepth, Template.EACH, tag);
+                int next = emit(Template.NEXT, null, null);
+                jumps[next] = block.pc + 1;
+                jumps[block.pc] = size;
+            } else if (tag.startsWith(">")) {
+                String include = tag.substring(1).trim();
+                if (depth >= MAX_INCLUDE_DEPTH) {
+                    throw error(name, source, open, "包含的层数超过了" + MAX_INCLUDE_DEPTH + "，可能是循环包含");
+                }
+                parse(include, loader.load(include), depth + 1);
+            } else if (tag.startsWith("#") || tag.startsWith("/")) {
+                throw error(name, source, open, "不支持的标签{{" + tag + "}}");
+            } else {
+                emit(Template.VALUE, expression(name, source, open, tag), null);
+            }
+        }
+        if (blocks.size() > blockDepth) {
+            Block block = blocks.peek();
+            throw new WebMVCException("模板" + name + "中的" + tagName(block.op) + "没有结束");
+        }
+    }
+
+    private Block end(String name, String source, int offset, int blockDepth, int op, String tag) {
+        if (blocks.size() <= blockDepth || blocks.peek().op != op) {
+            throw error(name, source, offset, "{{" + tag + "}}没有对应的开始标签");
+        }
+        return blocks.pop();
+    }
+
+    /**
+     * 添加一条指令，先把之前的文本作为TEXT指令
+     * @return 指令的位置
+     */
+    private int emit(int op, Object operand, String name) {
+        if (op != Template.TEXT) {
+            flushText();
+        }
+        if (size == ops.length) {
+            ops = Arrays.copyOf(ops, size * 2);
+            jumps = Arrays.copyOf(jumps, size * 2);
+        }
+        ops[size] = op;
+        operands.add(operand);
+        names.add(name);
+        return size++;
+    }
+
+    private void flushText() {
+        if (text.length() > 0) {
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            text.setLength(0);
+            emit(Template.TEXT, bytes, null);
+        }
+    }
+
+    private static Expression expression(String name, String source, int offset, String tag) {
+        String expression = tag.trim();
+        String[] path = expression.split("\\.", -1);
+        for (int i = 0; i < path.length; i++) {
+            boolean special = i == 0 && path.length == 1 && path[0].startsWith("@");
+            if (!(special ? isIdentifier(path[0].substring(1)) : isIdentifier(path[i]))) {
+                throw error(name, source, offset, "不正确的表达式" + expression);
+            }
+        }
+        return new Expression(expression, path);
+    }
+
+    private static boolean isIdentifier(String s) {
+        if (s.isEmpty() || !Character.isJavaIdentifierStart(s.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < s.length(); i++) {
+            if (!Character.isJavaIdentifierPart(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String tagName(int op) {
+        return op == Template.IF ? "#if" : op == Template.UNLESS ? "#unless" : "#each";
+    }
+
+    private static WebMVCException error(String name, String source, int offset, String message) {
+        int line = 1;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return new WebMVCException("模板" + name + "第" + line + "行: " + message);
+    }
+}
@@ -0,0 +1,137 @@
+package com.webmvc.view.template;
+
+import java.util.Arrays;
+
+/**
+ * 模板渲染的输出，直接写utf-8字节
+ * 每个线程一个，复用缓冲区和循环的栈，渲染结果太大时用完后换回小的缓冲区
+ * Created by sgz
+ * 2026/10/21 20:10
+ */
+public final class TemplateOutput {
+
+    private static final int INITIAL_SIZE = 8192;
+
+    /*超过这个大小的缓冲区用完后不保留*/
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<TemplateOutput> OUTPUT = new ThreadLocal<TemplateOutput>() {
+        @Override
+        protected TemplateOutput initialValue() {
+            return new TemplateOutput();
+        }
+    };
+
+    private byte[] buffer = new byte[INITIAL_SIZE];
+
+    private int count;
+
+    /*each的栈，渲染时复用*/
+    Loop[] loops = new Loop[4];
+
+    /**
+     * @return 当前线程的输出，已经清空
+     */
+    public static TemplateOutput get() {
+        TemplateOutput output = OUTPUT.get();
+        output.count = 0;
+        return output;
+    }
+
+    /**
+     * 不再使用缓冲区中的内容时调用，释放过大的缓冲区
+     */
+    public void release() {
+        count = 0;
+        if (buffer.length > MAX_RETAINED_SIZE) {
+            buffer = new byte[INITIAL_SIZE];
+        }
+    }
+
+    void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * 按utf-8写入字符串
+     * @param escape 是否转义html的特殊字符
+     */
+    void write(String s, boolean escape) {
+        int length = s.length();
+        //ascii每个字符一个字节，转义最多6个字节，其它字符最多3个字节
+        ensureCapacity(length * 6);
+        byte[] b = buffer;
+        int n = count;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (escape) {
+                    switch (c) {
+                        case '&': n = ascii(b, n, "&amp;"); continue;
+                        case '<': n = ascii(b, n, "&lt;"); continue;
+                        case '>': n = ascii(b, n, "&gt;"); continue;
+                        case '"': n = ascii(b, n, "&quot;"); continue;
+                        case '\'': n = ascii(b, n, "&#39;"); continue;
+                        default:
+                    }
+                }
+                b[n++] = (byte) c;
+            } else if (c < 0x800) {
+                b[n++] = (byte) (0xC0 | (c >> 6));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                b[n++] = (byte) (0xF0 | (codePoint >> 18));
+                b[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                b[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                //不成对的代理字符
+                b[n++] = '?';
+            } else {
+                b[n++] = (byte) (0xE0 | (c >> 12));
+                b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        count = n;
+    }
+
+    private static int ascii(byte[] b, int n, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            b[n++] = (byte) s.charAt(i);
+        }
+        return n;
+    }
+
+    private void ensureCapacity(int length) {
+        if (count + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+        }
+    }
+
+    Loop loop(int depth) {
+        if (depth == loops.length) {
+            loops = Arrays.copyOf(loops, depth * 2);
+        }
+        Loop loop = loops[depth];
+        if (loop == null) {
+            loop = new Loop();
+            loops[depth] = loop;
+        }
+        return loop;
+    }
+
+    /**
+     * @return 缓冲区，只有前size()个字节有效
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return count;
+    }
+}
@@ -0,0 +1,122 @@
+package com.webmvc.async;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程的支持，JDK 21使用的版本，打包在多版本jar的META-INF/versions/21下
+ * 被固定的事件通过JFR的jdk.VirtualThreadPinned获取，同一个位置的调用栈只打印一次
+ * Created by sgz
+ * 2026/10/23 10:30
+ */
+public final class VirtualThreads {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /*调用栈最多打印的层数*/
+    private static final int MAX_FRAMES = 16;
+
+    private static final LongAdder PINNED_COUNT = new LongAdder();
+
+    /*已经打印过调用栈的位置*/
+    private static final Set<String> REPORTED = ConcurrentHashMap.newKeySet();
+
+    private static RecordingStream pinnedStream;
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return 当前的JDK是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的线程池
+     * @param prefix 线程名的前缀
+     * @return 不支持虚拟线程时返回null
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix + "-", 1).factory());
+    }
+
+    /**
+     * 开始监听虚拟线程被固定在平台线程上的事件
+     * 虚拟线程在synchronized块里阻塞时不能让出平台线程，超过阈值的记录下来并打印调用栈
+     * @param thresholdMillis 固定超过这个时间才记录
+     * @return 是否开始了监听
+     */
+    public static synchronized boolean startPinnedMonitor(long thresholdMillis) {
+        if (pinnedStream != null) {
+            return true;
+        }
+        RecordingStream stream;
+        try {
+            stream = new RecordingStream();
+        } catch (RuntimeException e) {
+            //JFR不可用
+            System.err.println("不能监听虚拟线程被固定的事件, " + e);
+            return false;
+        }
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, VirtualThreads::onPinned);
+        stream.setReuse(false);
+        stream.startAsync();
+        pinnedStream = stream;
+        return true;
+    }
+
+    private static void onPinned(RecordedEvent event) {
+        PINNED_COUNT.increment();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return;
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        String site = frames.isEmpty() ? "unknown" : frameToString(frames.get(0));
+        //用最近的不是JDK的代码的位置区分，同一个synchronized块只打印一次
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && !isJdkClass(frame.getMethod().getType().getName())) {
+                site = frameToString(frame);
+                break;
+            }
+        }
+        if (!REPORTED.add(site)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("虚拟线程被固定了")
+                .append(event.getDuration().toMillis()).append("ms, ").append(site);
+        for (int i = 0; i < frames.size() && i < MAX_FRAMES; i++) {
+            sb.append("\n\tat ").append(frameToString(frames.get(i)));
+        }
+        System.err.println(sb);
+    }
+
+    private static boolean isJdkClass(String className) {
+        return className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.");
+    }
+
+    private static String frameToString(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")";
+    }
+
+    /**
+     * @return 记录到的虚拟线程被固定的次数
+     */
+    public static long getPinnedCount() {
+        return PINNED_COUNT.sum();
+    }
+}
@@ -0,0 +1,79 @@
+package com.webmvc.util.locks;
+
+
+/**
+ * JDK 21使用的版本，打包在多版本jar的META-INF/versions/21下
+ * Unsafe.park会把虚拟线程固定在平台线程上，这里交给java.util.concurrent.locks.LockSupport，
+ * 虚拟线程在AQS、ReentrantLock和ArrayBlockingQueue上等待时可以让出平台线程
+ * Created by sgz
+ * 2026/10/23 10:45
+ */
+public class LockSupport {
+    private LockSupport() {} // Cannot be instantiated.
+
+    /**
+     * 终止一个挂起的线程，使其恢复正常
+     */
+    public static void unpark(Thread thread) {
+        java.util.concurrent.locks.LockSupport.unpark(thread);
+    }
+
+    /**
+     * 线程将一直阻塞直到超时或者中断等条件出现
+     * blocker是用来标识当前线程等待的对象，主要用来问题排查和系统监控
+     */
+    public static void park(Object blocker) {
+        java.util.concurrent.locks.LockSupport.park(blocker);
+    }
+
+    /**
+     * blocker是用来标识当前线程等待的对象，主要用来问题排查和系统监控
+     */
+    public static void parkNanos(Object blocker, long nanos) {
+        java.util.concurrent.locks.LockSupport.parkNanos(blocker, nanos);
+    }
+
+    /**
+     * blocker是用来标识当前线程等待的对象，主要用来问题排查和系统监控
+     * deadline是从1970年开始的毫秒数
+     */
+    public static void parkUntil(Object blocker, long deadline) {
+        java.util.concurrent.locks.LockSupport.parkUntil(blocker, deadline);
+    }
+
+    /**
+     * 返回blocker对象
+     */
+    public static Object getBlocker(Thread t) {
+        return java.util.concurrent.locks.LockSupport.getBlocker(t);
+    }
+
+    /**
+     * 阻塞当前线程，直到调用unpark方法或当前线程被中断
+     */
+    public static void park() {
+        java.util.concurrent.locks.LockSupport.park();
+    }
+
+    /**
+     * 阻塞当前线程，最长不超过nanos纳秒
+     */
+    public static void parkNanos(long nanos) {
+        java.util.concurrent.locks.LockSupport.parkNanos(nanos);
+    }
+
+    /**
+     * deadline是从1970年开始的毫秒数
+     */
+    public static void parkUntil(long deadline) {
+        java.util.concurrent.locks.LockSupport.parkUntil(deadline);
+    }
+
+    /**
+     * 不能再用Unsafe访问Thread的字段，直接取一个不为0的随机数
+     */
+    static final int nextSecondarySeed() {
+        int r = java.util.concurrent.ThreadLocalRandom.current().nextInt();
+        return r == 0 ? 1 : r;
+    }
+}
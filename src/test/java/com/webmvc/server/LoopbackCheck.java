@@ -0,0 +1,171 @@
+package com.webmvc.server;
+
+import com.webmvc.DispatcherServlet;
+
+import java.io.IOException;
+
+/**
+ * 在回环地址上启动内嵌服务器，用原始的Socket检查HTTP/1.1的处理：
+ * keep-alive、chunked请求和响应、管线化、100-continue、HTTP/1.0、异步请求、静态资源、
+ * 不合法的请求和空闲连接的超时
+ * 配置在src/test/resources/webmvc.properties，处理器是loopback.LoopbackController，
+ * 从项目根目录运行，有检查没通过时以1退出：
+ * mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.webmvc.server.LoopbackCheck
+ * Created by sgz
+ * 2026/10/25 10:00
+ */
+public class LoopbackCheck {
+
+    private static final String HOST = "Host: 127.0.0.1\r\n";
+
+    private static int port;
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        HttpServer server = new HttpServer(new DispatcherServlet());
+        server.start();
+        port = server.getPort();
+        try {
+            checkKeepAlive();
+            checkPipelining();
+            checkContinue();
+            checkHttp10();
+            checkBadRequests();
+            checkIdleTimeout();
+        } finally {
+            server.stop();
+        }
+        System.out.println(failures == 0 ? "全部通过" : failures + "项检查没有通过");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * 同一个连接上依次发送的请求
+     */
+    private static void checkKeepAlive() throws IOException {
+        try (LoopbackClient client = new LoopbackClient(port)) {
+            LoopbackClient.Response response = client.exchange("GET /hello?name=%E4%B8%AD%E6%96%87 HTTP/1.1\r\n" + HOST + "\r\n");
+            expect("GET带查询参数", response, 200, "{\"hello\":\"中文\"}");
+            expect("GET的响应有ETag", response.header("ETag") != null, response);
+
+            expect("路径变量", client.exchange("GET /user/42 HTTP/1.1\r\n" + HOST + "\r\n"), 200, "\"user42\"");
+
+            expect("Content-Length的请求体", client.exchange("POST /echo HTTP/1.1\r\n" + HOST
+                    + "Content-Type: application/json\r\nContent-Length: 9\r\n\r\n{\"k\":\"v\"}"), 200, "{\"k\":\"v\"}");
+
+            expect("chunked的请求体", client.exchange("POST /echo HTTP/1.1\r\n" + HOST
+                    + "Content-Type: application/json\r\nTransfer-Encoding: chunked\r\n\r\n"
+                    + "4\r\n{\"k\"\r\n5;ext=1\r\n:\"c\"}\r\n0\r\n\r\n"), 200, "{\"k\":\"c\"}");
+
+            expect("表单", client.exchange("POST /form HTTP/1.1\r\n" + HOST
+                    + "Content-Type: application/x-www-form-urlencoded\r\nContent-Length: 11\r\n\r\na=1&b=x+%26"), 200, "{\"a\":\"1\",\"b\":\"x &\"}");
+
+            response = client.exchange("GET /big HTTP/1.1\r\n" + HOST + "\r\n");
+            expect("超过缓冲区的响应用chunked写出", response.status == 200 && response.chunks > 1
+                    && response.body().startsWith("[0,1,2,") && response.body().endsWith(",49999]"), response);
+
+            response = client.exchange("HEAD /hello?name=h HTTP/1.1\r\n" + HOST + "\r\n");
+            expect("HEAD只有响应头", response.status == 200 && "13".equals(response.header("Content-Length")), response);
+
+            expect("模板", client.exchange("GET /page HTTP/1.1\r\n" + HOST + "\r\n"), 200,
+                    "<h1>T&lt;&gt;</h1><ul><li>1</li><li>2</li><li>3</li></ul>\n");
+            expect("CompletableFuture", client.exchange("GET /async HTTP/1.1\r\n" + HOST + "\r\n"), 200, "{\"async\":true}");
+            expect("Callable", client.exchange("GET /callable HTTP/1.1\r\n" + HOST + "\r\n"), 200, "\"called\"");
+            expect("异步超时", client.exchange("GET /never HTTP/1.1\r\n" + HOST + "\r\n").status == 503, "503");
+            expect("处理器抛出异常", client.exchange("GET /boom HTTP/1.1\r\n" + HOST + "\r\n").status == 500, "500");
+            expect("没有匹配的路由", client.exchange("GET /nothing HTTP/1.1\r\n" + HOST + "\r\n").status == 404, "404");
+            expect("请求方法不支持", client.exchange("DELETE /echo HTTP/1.1\r\n" + HOST + "\r\n").status == 405, "405");
+            expect("静态资源", client.exchange("GET /asset/app.css HTTP/1.1\r\n" + HOST + "\r\n"), 200, "body{color:red}\n");
+            expect("静态资源不能访问web根目录外", client.exchange("GET /asset/../WEB-INF/view/page.tpl HTTP/1.1\r\n" + HOST + "\r\n").status == 404, "404");
+
+            response = client.exchange("GET /metrics HTTP/1.1\r\n" + HOST + "\r\n");
+            expect("指标", response.status == 200 && response.body().contains("webmvc_"), response);
+        }
+    }
+
+    /**
+     * 一次写出三个请求，最后一个要求关闭连接
+     */
+    private static void checkPipelining() throws IOException {
+        try (LoopbackClient client = new LoopbackClient(port)) {
+            client.send("GET /user/1 HTTP/1.1\r\n" + HOST + "\r\nGET /user/2 HTTP/1.1\r\n" + HOST + "\r\n"
+                    + "GET /user/3 HTTP/1.1\r\n" + HOST + "Connection: close\r\n\r\n");
+            for (int i = 1; i <= 3; i++) {
+                expect("管线化的第" + i + "个请求", client.read(false), 200, "\"user" + i + "\"");
+            }
+            expect("Connection: close后关闭连接", client.read(false) == null, "连接没有关闭");
+        }
+    }
+
+    private static void checkContinue() throws IOException {
+        try (LoopbackClient client = new LoopbackClient(port)) {
+            client.send("POST /echo HTTP/1.1\r\n" + HOST + "Content-Type: application/json\r\nContent-Length: 2\r\n"
+                    + "Expect: 100-continue\r\n\r\n");
+            expect("100-continue", client.read(false).status == 100, "100");
+            client.send("{}");
+            expect("100-continue之后的响应", client.read(false), 200, "{}");
+        }
+    }
+
+    private static void checkHttp10() throws IOException {
+        try (LoopbackClient client = new LoopbackClient(port)) {
+            LoopbackClient.Response response = client.exchange("GET /big HTTP/1.0\r\n\r\n");
+            expect("HTTP/1.0不用chunked，写完关闭连接", response.status == 200
+                    && response.header("Transfer-Encoding") == null && response.body().endsWith(",49999]"), response);
+        }
+        try (LoopbackClient client = new LoopbackClient(port)) {
+            LoopbackClient.Response response = client.exchange("GET /user/5 HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+            expect("HTTP/1.0的keep-alive", response.status == 200 && "keep-alive".equalsIgnoreCase(response.header("Connection")), response);
+            expect("HTTP/1.0的第二个请求", client.exchange("GET /user/6 HTTP/1.0\r\n\r\n"), 200, "\"user6\"");
+            expect("HTTP/1.0没有keep-alive时关闭连接", client.read(false) == null, "连接没有关闭");
+        }
+    }
+
+    private static void checkBadRequests() throws IOException {
+        String longUri = new String(new char[9000]).replace('\0', 'a');
+        String[][] cases = {
+                {"请求行不合法", "GARBAGE\r\n\r\n", "400"},
+                {"HTTP版本不支持", "GET / HTTP/2.0\r\n\r\n", "505"},
+                {"同时有Transfer-Encoding和Content-Length", "POST /echo HTTP/1.1\r\nContent-Length: 5\r\nTransfer-Encoding: chunked\r\n\r\n", "400"},
+                {"请求体太大", "POST /echo HTTP/1.1\r\nContent-Length: 999999999\r\n\r\n", "413"},
+                {"Content-Length超过int", "POST /echo HTTP/1.1\r\nContent-Length: 2500000000\r\n\r\n", "413"},
+                {"URI太长", "GET /" + longUri + " HTTP/1.1\r\n\r\n", "414"},
+                {"chunk的长度行太长", "POST /echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n1;" + longUri + "\r\n", "400"},
+                {"编码的斜杠", "GET /a%2Fb HTTP/1.1\r\n\r\n", "400"},
+                {"路径跳出根目录", "GET /../x HTTP/1.1\r\n\r\n", "400"},
+        };
+        for (String[] c : cases) {
+            try (LoopbackClient client = new LoopbackClient(port)) {
+                LoopbackClient.Response response = client.exchange(c[1]);
+                expect(c[0], response != null && response.status == Integer.parseInt(c[2])
+                        && "close".equalsIgnoreCase(response.header("Connection")), response);
+            }
+        }
+    }
+
+    /**
+     * 空闲连接在keep_alive_timeout之后被关闭
+     */
+    private static void checkIdleTimeout() throws IOException {
+        try (LoopbackClient client = new LoopbackClient(port)) {
+            long start = System.currentTimeMillis();
+            boolean closed = client.read(false) == null;
+            long elapsed = System.currentTimeMillis() - start;
+            expect("空闲连接超时关闭", closed && elapsed >= 1500, elapsed + "ms");
+        }
+    }
+
+    private static void expect(String name, LoopbackClient.Response response, int status, String body) {
+        expect(name, response != null && response.status == status && response.body().equals(body), response);
+    }
+
+    private static void expect(String name, boolean passed, Object actual) {
+        if (passed) {
+            System.out.println("通过   " + name);
+        } else {
+            failures++;
+            System.out.println("没通过 " + name + ": " + actual);
+        }
+    }
+}
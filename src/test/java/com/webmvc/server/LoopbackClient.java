@@ -0,0 +1,174 @@
+package com.webmvc.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 在回环地址上直接用Socket发送HTTP/1.1请求，不经过任何HTTP客户端，
+ * 请求原样写出，可以发送分段、管线化和不合法的请求
+ * Created by sgz
+ * 2026/10/25 09:40
+ */
+class LoopbackClient implements AutoCloseable {
+
+    private static final int SO_TIMEOUT = 5000;
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    LoopbackClient(int port) throws IOException {
+        socket = new Socket("127.0.0.1", port);
+        socket.setSoTimeout(SO_TIMEOUT);
+        socket.setTcpNoDelay(true);
+        in = socket.getInputStream();
+        out = socket.getOutputStream();
+    }
+
+    /**
+     * 原样写出请求，不等响应
+     */
+    void send(String request) throws IOException {
+        out.write(request.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    void send(byte[] request) throws IOException {
+        out.write(request);
+        out.flush();
+    }
+
+    /**
+     * 写出请求并读取一个响应
+     */
+    Response exchange(String request) throws IOException {
+        send(request);
+        return read(request.startsWith("HEAD "));
+    }
+
+    /**
+     * 读取一个响应，100 Continue也作为一个响应返回
+     * @param head 是否是HEAD请求的响应，HEAD的响应没有响应体
+     * @return 连接已经关闭时返回null
+     */
+    Response read(boolean head) throws IOException {
+        String statusLine = readLine(true);
+        if (statusLine == null) {
+            return null;
+        }
+        Response response = new Response(statusLine);
+        String line;
+        while (!(line = readLine(false)).isEmpty()) {
+            int index = line.indexOf(':');
+            response.headers.put(line.substring(0, index).trim().toLowerCase(Locale.ENGLISH), line.substring(index + 1).trim());
+        }
+        if (head || response.status == 100 || response.status == 204 || response.status == 304) {
+            return response;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        String contentLength = response.headers.get("content-length");
+        if ("chunked".equalsIgnoreCase(response.headers.get("transfer-encoding"))) {
+            int size;
+            while ((size = Integer.parseInt(readLine(false).trim(), 16)) > 0) {
+                body.write(readFully(size));
+                readLine(false);
+                response.chunks++;
+            }
+            //没有trailer
+            readLine(false);
+        } else if (contentLength != null) {
+            body.write(readFully(Integer.parseInt(contentLength)));
+        } else {
+            //HTTP/1.0，读到连接关闭
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                body.write(buffer, 0, n);
+            }
+        }
+        response.body = body.toByteArray();
+        return response;
+    }
+
+    /**
+     * @param eofAllowed 在行首读到连接关闭时是否返回null
+     */
+    String readLine(boolean eofAllowed) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) {
+                if (eofAllowed && sb.length() == 0) {
+                    return null;
+                }
+                throw new EOFException();
+            }
+            if (c != '\r') {
+                sb.append((char) c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private byte[] readFully(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int n = in.read(bytes, offset, length - offset);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            offset += n;
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    static final class Response {
+
+        final String statusLine;
+
+        final int status;
+
+        /*名字是小写的*/
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        byte[] body = new byte[0];
+
+        /*chunked响应的块数*/
+        int chunks;
+
+        Response(String statusLine) {
+            this.statusLine = statusLine;
+            this.status = Integer.parseInt(statusLine.split(" ")[1]);
+        }
+
+        String header(String name) {
+            return headers.get(name.toLowerCase(Locale.ENGLISH));
+        }
+
+        String body() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            String text = body();
+            return statusLine + " " + headers + " " + (text.length() > 120 ? text.substring(0, 120) + "...(" + text.length() + ")" : text);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.webmvc.server;
+
+import com.webmvc.DispatcherServlet;
+import com.webmvc.helper.ConfigHelper;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 比较内嵌服务器和Jetty 9.4的吞吐量，两边运行同一个DispatcherServlet和同样的处理器，都在回环地址上
+ * 每个连接keep-alive，依次发送请求并读完响应再发下一个；两个服务器轮流压测，第一轮只用来预热
+ * 参数：连接数(默认16)、每个连接的请求数(默认5000)、轮数(默认4)、请求路径(默认/user/7)
+ * 从项目根目录运行：
+ * mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.webmvc.server.ThroughputBench -Dexec.args="16 5000 4 /user/7"
+ * Created by sgz
+ * 2026/10/25 10:40
+ */
+public class ThroughputBench {
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        String path = args.length > 3 ? args[3] : "/user/7";
+
+        HttpServer embedded = new HttpServer(new DispatcherServlet());
+        embedded.start();
+        Server jetty = startJetty();
+        int jettyPort = ((ServerConnector) jetty.getConnectors()[0]).getLocalPort();
+
+        byte[] request = ("GET " + path + " HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        ExecutorService clients = Executors.newFixedThreadPool(connections);
+        double embeddedTotal = 0;
+        double jettyTotal = 0;
+        try {
+            for (int round = 0; round < rounds; round++) {
+                double embeddedRate = run(clients, embedded.getPort(), request, connections, requests);
+                double jettyRate = run(clients, jettyPort, request, connections, requests);
+                System.out.printf("第%d轮%s  内嵌服务器 %.0f req/s  Jetty %.0f req/s%n",
+                        round + 1, round == 0 ? "(预热)" : "", embeddedRate, jettyRate);
+                if (round > 0) {
+                    embeddedTotal += embeddedRate;
+                    jettyTotal += jettyRate;
+                }
+            }
+        } finally {
+            clients.shutdown();
+            embedded.stop();
+            jetty.stop();
+        }
+        if (rounds > 1) {
+            System.out.printf("%d个连接 %s  内嵌服务器平均 %.0f req/s  Jetty平均 %.0f req/s  比值 %.2f%n",
+                    connections, path, embeddedTotal / (rounds - 1), jettyTotal / (rounds - 1), embeddedTotal / jettyTotal);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * DispatcherServlet映射到/*，和内嵌服务器一样用pathInfo匹配路由，web根目录也相同
+     */
+    private static Server startJetty() throws Exception {
+        Server jetty = new Server();
+        ServerConnector connector = new ServerConnector(jetty);
+        connector.setHost("127.0.0.1");
+        connector.setPort(0);
+        jetty.addConnector(connector);
+
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+        context.setContextPath("/");
+        context.setResourceBase(ConfigHelper.getServerDocumentRoot());
+        ServletHolder holder = new ServletHolder("dispatcher", new DispatcherServlet());
+        holder.setInitOrder(1);
+        holder.setAsyncSupported(true);
+        context.addServlet(holder, "/*");
+        jetty.setHandler(context);
+        jetty.start();
+        return jetty;
+    }
+
+    /**
+     * @return 每秒完成的请求数，只算状态码是200的
+     */
+    private static double run(ExecutorService clients, int port, byte[] request, int connections, int requests) throws Exception {
+        LongAdder ok = new LongAdder();
+        List<Future<?>> futures = new ArrayList<>(connections);
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            futures.add(clients.submit(() -> {
+                try (LoopbackClient client = new LoopbackClient(port)) {
+                    for (int j = 0; j < requests; j++) {
+                        client.send(request);
+                        if (client.read(false).status == 200) {
+                            ok.increment();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return ok.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,110 @@
+package com.webmvc.server.loopback;
+
+import com.webmvc.annotation.Controller;
+import com.webmvc.annotation.PathVariable;
+import com.webmvc.annotation.RequestBody;
+import com.webmvc.annotation.RequestMapping;
+import com.webmvc.annotation.RequestParam;
+import com.webmvc.annotation.ResponseBody;
+import com.webmvc.bean.ModelAndView;
+import com.webmvc.enums.RequestMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * LoopbackCheck和ThroughputBench请求的处理器
+ * Created by sgz
+ * 2026/10/25 09:30
+ */
+@Controller
+@RequestMapping("/")
+public class LoopbackController {
+
+    @RequestMapping("/hello")
+    @ResponseBody
+    public Map<String, Object> hello(@RequestParam("name") String name) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("hello", name);
+        return result;
+    }
+
+    @RequestMapping("/user/{id}")
+    @ResponseBody
+    public String user(@PathVariable("id") long id) {
+        return "user" + id;
+    }
+
+    @RequestMapping(value = "/echo", method = RequestMethod.POST)
+    @ResponseBody
+    public Map<String, Object> echo(@RequestBody Map<String, Object> body) {
+        return body;
+    }
+
+    @RequestMapping(value = "/form", method = RequestMethod.POST)
+    @ResponseBody
+    public Map<String, Object> form(@RequestParam("a") String a, @RequestParam("b") String b) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("a", a);
+        result.put("b", b);
+        return result;
+    }
+
+    /**
+     * 超过响应缓冲区，用chunked写出
+     */
+    @RequestMapping("/big")
+    @ResponseBody
+    public List<Integer> big() {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    @RequestMapping("/page")
+    public ModelAndView page() {
+        return new ModelAndView("page.tpl").addModel("title", "T<>").addModel("items", Arrays.asList(1, 2, 3));
+    }
+
+    @RequestMapping("/async")
+    @ResponseBody
+    public CompletableFuture<Map<String, Object>> async() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Collections.<String, Object>singletonMap("async", true);
+        });
+    }
+
+    @RequestMapping("/callable")
+    @ResponseBody
+    public Callable<String> callable() {
+        return () -> "called";
+    }
+
+    /**
+     * 永远不会完成，等异步超时
+     */
+    @RequestMapping("/never")
+    @ResponseBody
+    public CompletableFuture<String> never() {
+        return new CompletableFuture<>();
+    }
+
+    @RequestMapping("/boom")
+    @ResponseBody
+    public String boom() {
+        throw new IllegalStateException("boom");
+    }
+}
@@ -0,0 +1 @@
+<h1>{{title}}</h1><ul>{{#each items as i}}<li>{{i}}</li>{{/each}}</ul>